@@ -113,7 +113,7 @@ CREATE TABLE vehicles (
 ) ENGINE=InnoDB;
 
 -- ===================================================================
--- 3. BOOKING & CONTRACT (4 bảng)
+-- 3. BOOKING & CONTRACT (5 bảng)
 -- ===================================================================
 
 -- Bảng: bookings - Đặt xe
@@ -153,6 +153,23 @@ CREATE TABLE booking_documents (
     FOREIGN KEY (document_id) REFERENCES user_documents(document_id) ON DELETE CASCADE
 ) ENGINE=InnoDB;
 
+-- Bảng: reservation_holds - Giữ xe tạm thời (TTL)
+-- Placed while customer fills out the booking form or pays the deposit
+-- Expired rows are removed by the reservation sweeper
+CREATE TABLE reservation_holds (
+    hold_id INT PRIMARY KEY AUTO_INCREMENT,
+    vehicle_id INT NOT NULL,
+    customer_id INT NOT NULL,
+    start_date DATETIME NOT NULL,
+    end_date DATETIME NOT NULL,
+    expires_at DATETIME NOT NULL,
+    created_at DATETIME NOT NULL,
+    FOREIGN KEY (vehicle_id) REFERENCES vehicles(vehicle_id) ON DELETE CASCADE,
+    FOREIGN KEY (customer_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    INDEX idx_hold_vehicle (vehicle_id),
+    INDEX idx_hold_expires (expires_at)
+) ENGINE=InnoDB;
+
 -- Bảng: contracts - Hợp đồng thuê xe
 -- WORKFLOW STEP 3: Auto-created when staff approves booking
 -- WORKFLOW STEP 4: Contract sent to customer with PENDING_PAYMENT status
@@ -179,7 +196,8 @@ CREATE TABLE contracts (
     FOREIGN KEY (customer_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (vehicle_id) REFERENCES vehicles(vehicle_id) ON DELETE CASCADE,
     FOREIGN KEY (staff_id) REFERENCES users(user_id) ON DELETE CASCADE,
-    INDEX idx_customer (customer_id),
+    INDEX idx_customer_status (customer_id, status),     -- Hợp đồng của khách hàng (lọc theo trạng thái)
+    INDEX idx_staff_status (staff_id, status),           -- Hợp đồng do nhân viên tạo (lọc theo trạng thái)
     INDEX idx_booking (booking_id),
     INDEX idx_status (status),
     CONSTRAINT chk_deposit_fee CHECK (deposit_amount > total_rental_fee)
@@ -234,6 +252,90 @@ CREATE TABLE payments (
     INDEX idx_bill_number (bill_number)
 ) ENGINE=InnoDB;
 
+-- Bảng: ledger_entries - Sổ cái thanh toán (ghi sổ kép, chỉ thêm mới)
+-- amount > 0 = debit, amount < 0 = credit; lines of one journal sum to zero
+-- Accounts: CASH, CUSTOMER_DEPOSITS, RENTAL_REVENUE, DEPOSIT_DEDUCTIONS
+CREATE TABLE ledger_entries (
+    entry_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    journal_key VARCHAR(64) NOT NULL,                -- e.g. PAYMENT-123
+    account VARCHAR(30) NOT NULL,
+    amount DECIMAL(18, 2) NOT NULL,
+    contract_id INT,
+    payment_id INT,
+    business_date DATE NOT NULL,
+    description VARCHAR(255),
+    created_at DATETIME NOT NULL,
+    UNIQUE KEY uk_ledger_journal (journal_key, account),
+    INDEX idx_ledger_contract (contract_id, entry_id),
+    INDEX idx_ledger_date (business_date)
+) ENGINE=InnoDB;
+
+-- Bảng: ledger_contract_balances - Số dư theo hợp đồng (snapshot)
+CREATE TABLE ledger_contract_balances (
+    balance_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    contract_id INT NOT NULL,
+    account VARCHAR(30) NOT NULL,
+    balance DECIMAL(18, 2) NOT NULL,
+    UNIQUE KEY uk_ledger_contract (contract_id, account)
+) ENGINE=InnoDB;
+
+-- Bảng: ledger_daily_totals - Tổng phát sinh theo ngày (snapshot)
+CREATE TABLE ledger_daily_totals (
+    total_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    business_date DATE NOT NULL,
+    account VARCHAR(30) NOT NULL,
+    debit_total DECIMAL(18, 2) NOT NULL,
+    credit_total DECIMAL(18, 2) NOT NULL,
+    UNIQUE KEY uk_ledger_daily (business_date, account)
+) ENGINE=InnoDB;
+
+-- Bảng: ledger_checkpoints - Tiến độ snapshot / backfill sổ cái
+CREATE TABLE ledger_checkpoints (
+    checkpoint_name VARCHAR(30) PRIMARY KEY,         -- SNAPSHOT, BACKFILL
+    last_entry_id BIGINT NOT NULL,
+    updated_at DATETIME NOT NULL
+) ENGINE=InnoDB;
+
+-- Bảng: fleet_utilisation - Chuỗi thời gian tỷ lệ sử dụng đội xe (theo ngày / giờ)
+-- Rebuilt nightly from contract rental intervals; NULL location/category rows are totals, empty buckets are not stored
+CREATE TABLE fleet_utilisation (
+    utilisation_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    granularity VARCHAR(10) NOT NULL,                -- DAY, HOUR
+    bucket_start DATETIME NOT NULL,
+    location_id BIGINT DEFAULT NULL,
+    category VARCHAR(20) DEFAULT NULL,
+    occupied_minutes BIGINT NOT NULL,                -- Số phút-xe được thuê trong khoảng
+    peak_occupied INT NOT NULL,                      -- Số xe thuê cùng lúc cao nhất
+    INDEX idx_fleet_util_bucket (granularity, bucket_start)
+) ENGINE=InnoDB;
+
+-- Bảng: number_sequences - Bộ đếm số hóa đơn / hợp đồng / ticket
+-- Instances reserve blocks by moving next_value forward (row locked with SELECT ... FOR UPDATE)
+CREATE TABLE number_sequences (
+    sequence_name VARCHAR(50) PRIMARY KEY,           -- BILL, CONTRACT, TICKET
+    next_value BIGINT NOT NULL                       -- First value not yet reserved
+) ENGINE=InnoDB;
+
+-- Bảng: payment_settlement_tasks - Hàng đợi xử lý IPN từ cổng thanh toán
+-- Stored before the IPN is acknowledged; applied by settlement workers, pending rows re-queued at startup
+CREATE TABLE payment_settlement_tasks (
+    task_id INT PRIMARY KEY AUTO_INCREMENT,
+    transaction_ref VARCHAR(50) NOT NULL,
+    response_code VARCHAR(10),
+    transaction_status VARCHAR(10),
+    transaction_no VARCHAR(50),
+    bank_code VARCHAR(20),
+    card_type VARCHAR(20),
+    pay_date VARCHAR(14),
+    secure_hash VARCHAR(255),
+    status ENUM('PENDING', 'DONE', 'FAILED') NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    created_at DATETIME NOT NULL,
+    processed_at DATETIME,
+    INDEX idx_settlement_status (status)
+) ENGINE=InnoDB;
+
 -- ===================================================================
 -- 4. RENTAL PROCESS (2 bảng)
 -- ===================================================================
@@ -289,6 +391,7 @@ CREATE TABLE deposit_holds (
     contract_id INT NOT NULL UNIQUE,
     deposit_amount DECIMAL(18, 2) NOT NULL,
     deducted_at_return DECIMAL(18, 2) DEFAULT 0,        -- Đã trừ khi trả xe
+    total_fines DECIMAL(18, 2) DEFAULT NULL,            -- Tổng phạt (cache từ traffic_violations, NULL = tính lại khi khởi động)
     hold_start_date DATETIME NOT NULL,
     hold_end_date DATETIME NOT NULL,
     status ENUM('HOLDING', 'READY', 'REFUNDED') DEFAULT 'HOLDING',
@@ -1763,6 +1866,15 @@ CREATE INDEX idx_contracts_active ON contracts(status, start_date);
 CREATE INDEX idx_vehicles_location ON vehicles(status, location_id);
 CREATE INDEX idx_bookings_date ON bookings(start_date, end_date);
 
+-- Keyset paging of the staff/admin ticket list (newest first, by status or unfiltered)
+-- Used by: SupportTicketRepository.findPage
+CREATE INDEX idx_support_tickets_status_created ON support_tickets(status, created_at);
+CREATE INDEX idx_support_tickets_created ON support_tickets(created_at);
+
+-- Conversation paging ("load older messages")
+-- Used by: SupportMessageRepository.findConversationPage
+CREATE INDEX idx_support_messages_ticket_created ON support_messages(ticket_id, created_at);
+
 -- ===================================================================
 -- SYNC VEHICLE STATUSES AFTER DATA INSERTION
 -- ===================================================================
@@ -0,0 +1,53 @@
+package com.carrental.config;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+/**
+ * Reusable HMAC signer for one secret key
+ * Mac instances are not thread-safe and expensive to look up and initialise,
+ * so each thread keeps its own initialised Mac and only resets it per signature.
+ */
+public final class HmacSigner {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String algorithm;
+    private final SecretKeySpec keySpec;
+    private final ThreadLocal<Mac> mac;
+
+    public HmacSigner(String algorithm, String key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null");
+        }
+        this.algorithm = algorithm;
+        this.keySpec = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), algorithm);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        newMac(); // Fail fast on an unsupported algorithm or invalid key
+    }
+
+    /**
+     * Sign data and return the lowercase hex digest
+     */
+    public String sign(String data) {
+        if (data == null) {
+            throw new NullPointerException("Data cannot be null");
+        }
+        Mac instance = mac.get();
+        instance.reset();
+        return HEX.formatHex(instance.doFinal(data.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(algorithm);
+            instance.init(keySpec);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + algorithm + " signer", e);
+        }
+    }
+}
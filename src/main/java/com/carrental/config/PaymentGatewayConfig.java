@@ -4,12 +4,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Payment Gateway Configuration and Utility Class
@@ -18,6 +17,9 @@ import java.util.*;
 @Configuration
 public class PaymentGatewayConfig {
 
+    // HMAC signers by secret key (normally just the configured one)
+    private static final Map<String, HmacSigner> SIGNERS = new ConcurrentHashMap<>();
+
     // Payment Gateway Configuration
     // VNPay Sandbox credentials - Replace with production credentials for live environment
     @Value("${payment.gateway.url:https://sandbox.vnpayment.vn/paymentv2/vpcpay.html}")
@@ -92,51 +94,78 @@ public class PaymentGatewayConfig {
 
     /**
      * Generate HMAC SHA512 signature
+     * Signers are cached per key, so the Mac is looked up and initialised once per thread
      */
     public static String hmacSHA512(final String key, final String data) {
         try {
             if (key == null || data == null) {
                 throw new NullPointerException("Key and data cannot be null");
             }
-            final Mac hmac512 = Mac.getInstance("HmacSHA512");
-            byte[] hmacKeyBytes = key.getBytes(StandardCharsets.UTF_8);
-            final SecretKeySpec secretKeySpec = new SecretKeySpec(hmacKeyBytes, "HmacSHA512");
-            hmac512.init(secretKeySpec);
-            byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
-            byte[] result = hmac512.doFinal(dataBytes);
-            StringBuilder sb = new StringBuilder(2 * result.length);
-            for (byte b : result) {
-                sb.append(String.format("%02x", b & 0xff));
-            }
-            return sb.toString();
+            return SIGNERS.computeIfAbsent(key, k -> new HmacSigner("HmacSHA512", k)).sign(data);
         } catch (Exception ex) {
             return "";
         }
     }
 
+    /**
+     * Sign data with the configured secret key
+     */
+    public String sign(String data) {
+        return hmacSHA512(secretKey, data);
+    }
+
+    /**
+     * Hash data, query string and signature of a payment request
+     * @param query URL-encoded query string without vnp_SecureHash
+     */
+    public record SignedQuery(String hashData, String query, String secureHash) {
+
+        /**
+         * Full payment URL including the signature
+         */
+        public String toUrl(String gatewayUrl) {
+            return gatewayUrl + "?" + query + "&vnp_SecureHash=" + secureHash;
+        }
+    }
+
+    /**
+     * Build and sign a payment request in one pass over the sorted parameters
+     * Each value is URL encoded once and appended to both the hash data and the query string.
+     */
+    public SignedQuery signQuery(SortedMap<String, String> params) {
+        StringBuilder hashData = new StringBuilder(256);
+        StringBuilder query = new StringBuilder(320);
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String fieldValue = param.getValue();
+            if (fieldValue == null || fieldValue.isEmpty()) {
+                continue;
+            }
+            String encodedValue = URLEncoder.encode(fieldValue, StandardCharsets.UTF_8);
+            if (hashData.length() > 0) {
+                hashData.append('&');
+                query.append('&');
+            }
+            hashData.append(param.getKey()).append('=').append(encodedValue);
+            query.append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8)).append('=').append(encodedValue);
+        }
+        String data = hashData.toString();
+        return new SignedQuery(data, query.toString(), sign(data));
+    }
+
     /**
      * Build the canonical hash data string from fields (sorted & URL encoded)
      * This matches VNPay's expected signature input.
      */
     public String buildHashData(Map<String, String> fields) {
-        List<String> fieldNames = new ArrayList<>(fields.keySet());
-        Collections.sort(fieldNames);
-        List<String> hashDataList = new ArrayList<>();
-
-        for (String fieldName : fieldNames) {
-            String fieldValue = fields.get(fieldName);
+        StringBuilder hashData = new StringBuilder(256);
+        for (Map.Entry<String, String> field : sorted(fields).entrySet()) {
+            String fieldValue = field.getValue();
             if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                try {
-                    // VNPay requires hashing over URL-encoded values in the same way they were sent
-                    String encodedValue = URLEncoder.encode(fieldValue, StandardCharsets.UTF_8.toString());
-                    hashDataList.add(fieldName + "=" + encodedValue);
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to encode payment field for hashing", e);
-                }
+                // VNPay requires hashing over URL-encoded values in the same way they were sent
+                appendField(hashData, field.getKey(), URLEncoder.encode(fieldValue, StandardCharsets.UTF_8));
             }
         }
-
-        return String.join("&", hashDataList);
+        return hashData.toString();
     }
 
     /**
@@ -144,23 +173,47 @@ public class PaymentGatewayConfig {
      * NOTE: Fields should already be URL encoded before passing to this method
      */
     public String hashAllFields(Map<String, String> fields) {
-        List<String> fieldNames = new ArrayList<>(fields.keySet());
-        Collections.sort(fieldNames);
-        List<String> hashDataList = new ArrayList<>();
-
-        for (String fieldName : fieldNames) {
-            String fieldValue = fields.get(fieldName);
+        StringBuilder hashData = new StringBuilder(256);
+        for (Map.Entry<String, String> field : sorted(fields).entrySet()) {
+            String fieldValue = field.getValue();
             if ((fieldValue != null) && (fieldValue.length() > 0)) {
                 // Fields are already URL encoded, just concatenate
-                hashDataList.add(fieldName + "=" + fieldValue);
+                appendField(hashData, field.getKey(), fieldValue);
             }
         }
+        return sign(hashData.toString());
+    }
 
-        String hashData = String.join("&", hashDataList);
-        System.out.println("DEBUG hashAllFields - Hash Data: " + hashData);
-        String hash = hmacSHA512(secretKey, hashData);
-        System.out.println("DEBUG hashAllFields - Generated Hash: " + hash);
-        return hash;
+    /**
+     * Compute the signature of parameters received from the gateway (return URL callback or IPN)
+     * Values are URL encoded (field names are not) and the hash fields themselves are excluded.
+     */
+    public String hashReceivedFields(Map<String, String> params) {
+        StringBuilder hashData = new StringBuilder(256);
+        for (Map.Entry<String, String> param : sorted(params).entrySet()) {
+            String fieldName = param.getKey();
+            String fieldValue = param.getValue();
+            if (fieldValue == null || fieldValue.isEmpty()
+                    || "vnp_SecureHash".equals(fieldName) || "vnp_SecureHashType".equals(fieldName)) {
+                continue;
+            }
+            appendField(hashData, fieldName, URLEncoder.encode(fieldValue, StandardCharsets.UTF_8));
+        }
+        return sign(hashData.toString());
+    }
+
+    private static SortedMap<String, String> sorted(Map<String, String> fields) {
+        if (fields instanceof SortedMap<String, String> sortedFields && sortedFields.comparator() == null) {
+            return sortedFields;
+        }
+        return new TreeMap<>(fields);
+    }
+
+    private static void appendField(StringBuilder hashData, String fieldName, String encodedValue) {
+        if (hashData.length() > 0) {
+            hashData.append('&');
+        }
+        hashData.append(fieldName).append('=').append(encodedValue);
     }
 
     /**
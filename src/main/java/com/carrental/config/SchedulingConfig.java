@@ -0,0 +1,12 @@
+package com.carrental.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (reservation hold sweeper, ...)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
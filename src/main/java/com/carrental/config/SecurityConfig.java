@@ -34,6 +34,7 @@ public class SecurityConfig {
                 .requestMatchers("/auth/**").permitAll()
                 .requestMatchers("/vehicles/**").permitAll()
                 .requestMatchers("/dev/**").permitAll() // Development only - remove in production
+                .requestMatchers("/payment/ipn").permitAll() // Server-to-server notification from VNPay (signed)
                 .requestMatchers("/admin/**").hasRole("ADMIN")
                 .requestMatchers("/staff/**").hasAnyRole("STAFF", "ADMIN")
                 .requestMatchers("/bookings/**", "/contracts/**", "/support/**").hasAnyRole("CUSTOMER", "STAFF", "ADMIN")
@@ -0,0 +1,106 @@
+package com.carrental.config;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Builds signed VNPay request URLs
+ * Immutable and thread-safe: merchant settings are read once at startup and dates use
+ * java.time formatters, so one instance is shared by the deposit and bill flows
+ * (and by future commands such as refund or query).
+ */
+@Component
+public class VnPayRequestBuilder {
+
+    // VNPay expects Vietnam local time (GMT+7); note "Etc/GMT+7" would be UTC-7
+    public static final ZoneId GATEWAY_ZONE = ZoneId.of("Asia/Ho_Chi_Minh");
+    public static final DateTimeFormatter GATEWAY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    // How long a payment URL stays valid (vnp_ExpireDate); the vehicle is held for the same window
+    public static final int EXPIRE_MINUTES = 15;
+
+    private static final String CURRENCY = "VND";
+    private static final String LOCALE = "vn";
+
+    private final PaymentGatewayConfig gatewayConfig;
+    private final String version;
+    private final String merchantCode;
+    private final String gatewayUrl;
+
+    public VnPayRequestBuilder(PaymentGatewayConfig gatewayConfig) {
+        this.gatewayConfig = gatewayConfig;
+        this.version = gatewayConfig.getVersion();
+        this.merchantCode = gatewayConfig.getMerchantCode();
+        this.gatewayUrl = gatewayConfig.getGatewayUrl();
+    }
+
+    /**
+     * Parameters of a "pay" request
+     * @param amount Amount in VND x 100 (gateway format)
+     */
+    public record PaymentRequest(String transactionRef, long amount, String orderInfo, String orderType,
+                                 String returnUrl, String ipAddress) {
+    }
+
+    /**
+     * Build the signed payment URL, created now and expiring after 15 minutes
+     */
+    public String buildPaymentUrl(PaymentRequest request) {
+        return buildPaymentUrl(request, LocalDateTime.now(GATEWAY_ZONE));
+    }
+
+    /**
+     * Build the signed payment URL with the given creation time (gateway zone)
+     */
+    public String buildPaymentUrl(PaymentRequest request, LocalDateTime createDate) {
+        SortedMap<String, String> params = baseParams("pay");
+        params.put("vnp_Amount", String.valueOf(request.amount()));
+        params.put("vnp_CurrCode", CURRENCY);
+        params.put("vnp_TxnRef", request.transactionRef());
+        params.put("vnp_OrderInfo", request.orderInfo());
+        params.put("vnp_OrderType", request.orderType());
+        params.put("vnp_Locale", LOCALE);
+        params.put("vnp_ReturnUrl", request.returnUrl());
+        params.put("vnp_IpAddr", request.ipAddress());
+        params.put("vnp_CreateDate", GATEWAY_DATE_FORMAT.format(createDate));
+        params.put("vnp_ExpireDate", GATEWAY_DATE_FORMAT.format(createDate.plusMinutes(EXPIRE_MINUTES)));
+        return gatewayConfig.signQuery(params).toUrl(gatewayUrl);
+    }
+
+    /**
+     * Build the signed JSON body of a "querydr" request (transaction status lookup)
+     * Unlike "pay", the API signs the values joined by '|' in a fixed order.
+     * @param transactionDate vnp_CreateDate of the original payment request
+     */
+    public SortedMap<String, String> buildQueryRequest(String requestId, String transactionRef, String orderInfo,
+                                                       String transactionDate, String ipAddress,
+                                                       LocalDateTime createDate) {
+        SortedMap<String, String> params = baseParams("querydr");
+        params.put("vnp_RequestId", requestId);
+        params.put("vnp_TxnRef", transactionRef);
+        params.put("vnp_OrderInfo", orderInfo);
+        params.put("vnp_TransactionDate", transactionDate);
+        params.put("vnp_CreateDate", GATEWAY_DATE_FORMAT.format(createDate));
+        params.put("vnp_IpAddr", ipAddress);
+        String hashData = String.join("|", requestId, version, "querydr", merchantCode, transactionRef,
+                transactionDate, params.get("vnp_CreateDate"), ipAddress, orderInfo);
+        params.put("vnp_SecureHash", gatewayConfig.sign(hashData));
+        return params;
+    }
+
+    /**
+     * Sorted parameters common to every command (version, command, merchant code)
+     * Callers add the command-specific fields and sign with PaymentGatewayConfig.signQuery.
+     */
+    public SortedMap<String, String> baseParams(String command) {
+        SortedMap<String, String> params = new TreeMap<>();
+        params.put("vnp_Version", version);
+        params.put("vnp_Command", command);
+        params.put("vnp_TmnCode", merchantCode);
+        return params;
+    }
+}
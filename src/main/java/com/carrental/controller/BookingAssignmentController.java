@@ -1,9 +1,12 @@
 package com.carrental.controller;
 
 import com.carrental.model.Booking;
+import com.carrental.model.BulkActionResultDTO;
 import com.carrental.model.User;
 import com.carrental.repository.UserRepository;
+import com.carrental.service.BookingBulkService;
 import com.carrental.service.BookingService;
+import com.carrental.service.StaffAssignmentEngine;
 import com.carrental.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Booking Assignment Controller (Admin only)
@@ -32,6 +36,12 @@ public class BookingAssignmentController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StaffAssignmentEngine staffAssignmentEngine;
+
+    @Autowired
+    private BookingBulkService bookingBulkService;
+
     /**
      * Get current authenticated admin user
      */
@@ -57,12 +67,10 @@ public class BookingAssignmentController {
         // Get all staff members
         List<User> staffMembers = userService.findAllStaff();
         
-        // Get pending booking count for each staff (for display)
+        // Pending booking count for each staff, served from the assignment engine (no per-staff queries)
+        Map<Long, Integer> pendingCounts = staffAssignmentEngine.getPendingCounts();
         List<StaffWorkload> staffWorkloads = staffMembers.stream()
-                .map(staff -> {
-                    long pendingCount = bookingService.getPendingBookingsByAssignedStaff(staff.getId()).size();
-                    return new StaffWorkload(staff, pendingCount);
-                })
+                .map(staff -> new StaffWorkload(staff, pendingCounts.getOrDefault(staff.getId(), 0)))
                 .sorted((a, b) -> {
                     // Sort by pending count (ascending), then by name (alphabetically)
                     int countCompare = Long.compare(a.getPendingCount(), b.getPendingCount());
@@ -124,6 +132,53 @@ public class BookingAssignmentController {
         return "redirect:/admin/bookings/assign";
     }
 
+    /**
+     * Assign several selected bookings to one staff member
+     * POST /admin/bookings/assign/bulk
+     */
+    @PostMapping("/bulk")
+    public String bulkAssignBookings(@RequestParam(value = "bookingIds", required = false) List<Long> bookingIds,
+                                     @RequestParam Long staffId,
+                                     RedirectAttributes redirectAttributes) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Vui lòng chọn ít nhất một đơn đặt xe");
+            return "redirect:/admin/bookings/assign";
+        }
+
+        try {
+            BulkActionResultDTO result = bookingBulkService.assignBookingsToStaff(bookingIds, staffId);
+            addBulkResultMessages(result, "Đã phân công ", redirectAttributes);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                "Lỗi khi phân công: " + e.getMessage());
+        }
+
+        return "redirect:/admin/bookings/assign";
+    }
+
+    /**
+     * Auto-assign several selected bookings
+     * POST /admin/bookings/assign/bulk/auto
+     */
+    @PostMapping("/bulk/auto")
+    public String bulkAutoAssignBookings(@RequestParam(value = "bookingIds", required = false) List<Long> bookingIds,
+                                         RedirectAttributes redirectAttributes) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Vui lòng chọn ít nhất một đơn đặt xe");
+            return "redirect:/admin/bookings/assign";
+        }
+
+        try {
+            BulkActionResultDTO result = bookingBulkService.autoAssignBookingsToStaff(bookingIds);
+            addBulkResultMessages(result, "Đã tự động phân công ", redirectAttributes);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                "Lỗi khi tự động phân công: " + e.getMessage());
+        }
+
+        return "redirect:/admin/bookings/assign";
+    }
+
     /**
      * Auto-assign all unassigned bookings
      * POST /admin/bookings/assign/auto-all
@@ -131,21 +186,18 @@ public class BookingAssignmentController {
     @PostMapping("/auto-all")
     public String autoAssignAll(RedirectAttributes redirectAttributes) {
         try {
-            List<Booking> unassignedBookings = bookingService.getUnassignedBookings();
-            int assignedCount = 0;
-            
-            for (Booking booking : unassignedBookings) {
-                try {
-                    bookingService.autoAssignBookingToStaff(booking.getId());
-                    assignedCount++;
-                } catch (Exception e) {
-                    // Continue with other bookings even if one fails
-                    System.err.println("Failed to assign booking #" + booking.getId() + ": " + e.getMessage());
-                }
+            List<Long> unassignedIds = bookingService.getUnassignedBookings().stream()
+                    .map(Booking::getId)
+                    .toList();
+
+            // Chunked: one transaction per chunk instead of one per booking
+            BulkActionResultDTO result = bookingBulkService.autoAssignBookingsToStaff(unassignedIds);
+            if (result.getFailureCount() > 0) {
+                System.err.println("Failed to assign bookings: " + result.getFailureSummary());
             }
-            
+
             redirectAttributes.addFlashAttribute("successMessage",
-                "Đã tự động phân công " + assignedCount + " đơn đặt cho nhân viên");
+                "Đã tự động phân công " + result.getSuccessCount() + " đơn đặt cho nhân viên");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage",
                 "Lỗi khi tự động phân công: " + e.getMessage());
@@ -154,6 +206,18 @@ public class BookingAssignmentController {
         return "redirect:/admin/bookings/assign";
     }
 
+    private void addBulkResultMessages(BulkActionResultDTO result, String successPrefix,
+                                       RedirectAttributes redirectAttributes) {
+        if (result.getSuccessCount() > 0) {
+            redirectAttributes.addFlashAttribute("successMessage",
+                successPrefix + result.getSuccessCount() + " đơn đặt cho nhân viên");
+        }
+        if (result.getFailureCount() > 0) {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                "Không thể phân công " + result.getFailureCount() + " đơn: " + result.getFailureSummary());
+        }
+    }
+
     /**
      * Inner class to hold staff workload information
      */
@@ -2,6 +2,7 @@ package com.carrental.controller;
 
 import com.carrental.model.Booking;
 import com.carrental.model.Contract;
+import com.carrental.model.CustomerBookingDTO;
 import com.carrental.model.Location;
 import com.carrental.model.Payment;
 import com.carrental.model.User;
@@ -9,12 +10,17 @@ import com.carrental.model.UserDocument;
 import com.carrental.model.Vehicle;
 import com.carrental.repository.UserRepository;
 import com.carrental.service.BookingService;
-import com.carrental.service.ContractService;
 import com.carrental.service.LocationService;
-import com.carrental.service.PaymentService;
+import com.carrental.service.ReservationHoldService;
 import com.carrental.service.UserDocumentService;
 import com.carrental.service.VehicleService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
@@ -24,6 +30,7 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -54,10 +61,7 @@ public class BookingController {
     private UserRepository userRepository;
 
     @Autowired
-    private ContractService contractService;
-
-    @Autowired
-    private PaymentService paymentService;
+    private ReservationHoldService reservationHoldService;
 
     /**
      * Get current authenticated user
@@ -116,6 +120,38 @@ public class BookingController {
         return "customer/booking-create";
     }
 
+    /**
+     * UC06: Hold the vehicle while the customer completes the booking form
+     * POST /bookings/hold (AJAX, called when both dates are selected)
+     */
+    @PostMapping("/hold")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> holdVehicle(
+            @RequestParam Long vehicleId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            User currentUser = getCurrentUser();
+
+            if (!vehicleService.isVehicleAvailableForDateRange(vehicleId, startDate, endDate, currentUser.getId())) {
+                response.put("held", false);
+                response.put("message", "Xe không khả dụng trong khoảng thời gian đã chọn");
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+
+            var hold = reservationHoldService.placeHold(vehicleId, currentUser, startDate, endDate);
+            response.put("held", true);
+            response.put("expiresAt", hold.getExpiresAt().toString());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.warn("[HOLD] Could not hold vehicle {}: {}", vehicleId, e.getMessage());
+            response.put("held", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+    }
+
     /**
      * UC06: Create new booking
      * POST /bookings/create
@@ -176,55 +212,53 @@ public class BookingController {
      * GET /bookings/my-bookings
      */
     @GetMapping("/my-bookings")
-    public String myBookings(@RequestParam(required = false) String status, Model model) {
-        log.info("[MY-BOOKINGS] === START === status filter: {}", status);
+    public String myBookings(@RequestParam(required = false) String status,
+                             @RequestParam(defaultValue = "0") int page,
+                             Model model) {
+        log.info("[MY-BOOKINGS] === START === status filter: {}, page: {}", status, page);
         User currentUser = getCurrentUser();
         log.info("[MY-BOOKINGS] Current user: {} (ID: {})", currentUser.getEmail(), currentUser.getId());
 
-        List<Booking> bookings;
-        bookings = bookingService.getBookingsByCustomer(currentUser.getId());
-
+        // Filter by booking status (including Completed)
+        Booking.BookingStatus bookingStatus = null;
         if (status != null && !status.isEmpty()) {
-            // Filter by booking status (including Completed)
             try {
-                Booking.BookingStatus bookingStatus = Booking.BookingStatus.valueOf(status.toUpperCase());
-                log.info("[MY-BOOKINGS] Filtering by booking status: {}", bookingStatus);
-                bookings = bookings.stream()
-                        .filter(b -> b.getStatus() == bookingStatus)
-                        .toList();
-                log.info("[MY-BOOKINGS] After status filter: {} bookings", bookings.size());
+                bookingStatus = Booking.BookingStatus.valueOf(status.toUpperCase());
             } catch (IllegalArgumentException e) {
                 log.warn("[MY-BOOKINGS] Invalid status parameter: {}", status);
-                // Keep original list if status param is invalid
+                // Show all bookings if status param is invalid
             }
         }
 
-        // Map bookingId -> contract (if staff already created one)
-        // Build contract map from all contracts of current customer to ensure visibility
-        // Build contract map by fetching per booking to avoid missing entries
+        // Bookings with their contract and bill payment (RENTAL) in one query, 10 per page
+        Pageable pageable = PageRequest.of(Math.max(page, 0), 10);
+        Page<CustomerBookingDTO> bookingsPage = bookingService.getCustomerBookingsPage(
+                currentUser.getId(), bookingStatus, pageable);
+
+        // Map bookingId -> contract / bill payment for the view
+        List<Booking> bookings = new java.util.ArrayList<>();
         Map<Long, Contract> contractMap = new java.util.HashMap<>();
         Map<Long, Payment> billMap = new java.util.HashMap<>();
-        for (Booking booking : bookings) {
-            contractService.getContractByBookingId(booking.getId())
-                    .ifPresent(contract -> {
-                        contractMap.put(booking.getId(), contract);
-                        log.info("[MY-BOOKINGS] Contract found for bookingId={} contractId={} status={}",
-                                booking.getId(), contract.getId(), contract.getStatus());
-
-                        // Attach bill payment (RENTAL) if exists
-                        paymentService.getBillPaymentByContractId(contract.getId())
-                                .ifPresent(p -> billMap.put(booking.getId(), p));
-                    });
+        for (CustomerBookingDTO row : bookingsPage.getContent()) {
+            Booking booking = row.getBooking();
+            bookings.add(booking);
+            if (row.getContract() != null) {
+                contractMap.put(booking.getId(), row.getContract());
+            }
+            if (row.getBillPayment() != null) {
+                billMap.put(booking.getId(), row.getBillPayment());
+            }
         }
 
-        log.info("[MY-BOOKINGS] Bookings count={} contractMap size={}", bookings.size(), contractMap.size());
-        bookings.forEach(b -> log.info("[MY-BOOKINGS] Booking #{} status={} contract? {}",
-                b.getId(), b.getStatus(), contractMap.get(b.getId()) != null));
+        log.info("[MY-BOOKINGS] Bookings count={} (total {}) contractMap size={}",
+                bookings.size(), bookingsPage.getTotalElements(), contractMap.size());
 
         model.addAttribute("bookings", bookings);
         model.addAttribute("selectedStatus", status);
         model.addAttribute("contractMap", contractMap);
         model.addAttribute("billMap", billMap);
+        model.addAttribute("currentPage", bookingsPage.getNumber());
+        model.addAttribute("totalPages", bookingsPage.getTotalPages());
 
         return "customer/my-bookings";
     }
@@ -1,10 +1,12 @@
 package com.carrental.controller;
 
 import com.carrental.model.Booking;
+import com.carrental.model.BulkActionResultDTO;
 import com.carrental.model.Contract;
 import com.carrental.model.User;
 import com.carrental.model.UserDocument;
 import com.carrental.repository.UserRepository;
+import com.carrental.service.BookingBulkService;
 import com.carrental.service.BookingService;
 import com.carrental.service.ContractService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +34,9 @@ public class BookingManagementController {
     @Autowired
     private ContractService contractService;
 
+    @Autowired
+    private BookingBulkService bookingBulkService;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -216,6 +221,41 @@ public class BookingManagementController {
         return "redirect:/staff/bookings/" + id;
     }
     
+    /**
+     * UC07 & UC10: Approve several selected bookings at once and create their contracts
+     * POST /staff/bookings/bulk-approve
+     * Staff can only approve bookings assigned to them; others are skipped and reported.
+     */
+    @PostMapping("/bulk-approve")
+    public String bulkApproveBookings(@RequestParam(value = "bookingIds", required = false) List<Long> bookingIds,
+                                      RedirectAttributes redirectAttributes) {
+        String redirect = isAdmin() ? "redirect:/admin/bookings/pending" : "redirect:/staff/bookings/pending";
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Vui lòng chọn ít nhất một đơn đặt xe");
+            return redirect;
+        }
+
+        try {
+            User currentStaff = getCurrentUser();
+            Long requiredStaffId = isAdmin() ? null : currentStaff.getId();
+            BulkActionResultDTO result = bookingBulkService.approveBookings(bookingIds, currentStaff, requiredStaffId);
+
+            if (result.getSuccessCount() > 0) {
+                redirectAttributes.addFlashAttribute("successMessage",
+                    "Đã duyệt " + result.getSuccessCount() + " đơn đặt xe và tạo hợp đồng tương ứng.");
+            }
+            if (result.getFailureCount() > 0) {
+                redirectAttributes.addFlashAttribute("errorMessage",
+                    "Không thể duyệt " + result.getFailureCount() + " đơn: " + result.getFailureSummary());
+            }
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage",
+                "Lỗi khi duyệt đơn: " + e.getMessage());
+        }
+
+        return redirect;
+    }
+
     /**
      * UC07: Reject booking
      * POST /staff/bookings/{id}/reject
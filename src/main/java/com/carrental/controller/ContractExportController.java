@@ -0,0 +1,98 @@
+package com.carrental.controller;
+
+import com.carrental.service.ContractBulkExportService;
+import com.carrental.service.ContractBulkExportService.ExportJob;
+import com.carrental.service.ContractBulkExportService.JobStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bulk contract export for Admin (month-end statements)
+ * Starts a background export of all contracts created in a date range and serves its progress and result
+ */
+@Controller
+@RequestMapping("/admin/contracts/export-jobs")
+public class ContractExportController {
+
+    @Autowired
+    private ContractBulkExportService contractBulkExportService;
+
+    /**
+     * Start a bulk export
+     * POST /admin/contracts/export-jobs
+     */
+    @PostMapping
+    public String startExport(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+                              @RequestParam(defaultValue = "ZIP") ContractBulkExportService.Format format,
+                              RedirectAttributes redirectAttributes) {
+        try {
+            ExportJob job = contractBulkExportService.start(fromDate, toDate, format);
+            redirectAttributes.addFlashAttribute("exportJobId", job.getId());
+            redirectAttributes.addFlashAttribute("successMessage", "Đã bắt đầu xuất hợp đồng từ " + fromDate + " đến " + toDate);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Xuất hợp đồng thất bại: " + e.getMessage());
+        }
+        return "redirect:/admin/contracts";
+    }
+
+    /**
+     * Export progress, polled by the contracts page
+     * GET /admin/contracts/export-jobs/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getProgress(@PathVariable String jobId) {
+        return contractBulkExportService.getJob(jobId)
+                .map(job -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("status", job.getStatus());
+                    response.put("done", job.getDone());
+                    response.put("total", job.getTotal());
+                    response.put("percent", job.getPercent());
+                    response.put("error", job.getError());
+                    if (job.getStatus() == JobStatus.COMPLETED) {
+                        response.put("downloadUrl", "/admin/contracts/export-jobs/" + job.getId() + "/download");
+                    }
+                    return ResponseEntity.ok(response);
+                })
+                .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    /**
+     * Download a finished export
+     * GET /admin/contracts/export-jobs/{jobId}/download
+     */
+    @GetMapping("/{jobId}/download")
+    public ResponseEntity<Resource> download(@PathVariable String jobId) {
+        ExportJob job = contractBulkExportService.getJob(jobId).orElse(null);
+        if (job == null || job.getStatus() != JobStatus.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+
+        MediaType contentType = job.getFormat() == ContractBulkExportService.Format.ZIP
+                ? MediaType.parseMediaType("application/zip")
+                : MediaType.APPLICATION_PDF;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(job.getFileName())
+                        .build()
+                        .toString())
+                .body(new FileSystemResource(job.getFile()));
+    }
+}
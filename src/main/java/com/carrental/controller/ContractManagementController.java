@@ -1,11 +1,13 @@
 package com.carrental.controller;
 
 import com.carrental.model.Contract;
+import com.carrental.service.ContractPdfCache;
 import com.carrental.service.ContractService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -16,24 +18,15 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
-import com.lowagie.text.Document;
-import com.lowagie.text.DocumentException;
-import com.lowagie.text.Font;
-import com.lowagie.text.FontFactory;
-import com.lowagie.text.PageSize;
-import com.lowagie.text.Paragraph;
-import com.lowagie.text.Phrase;
-import com.lowagie.text.pdf.BaseFont;
-import com.lowagie.text.pdf.PdfPCell;
-import com.lowagie.text.pdf.PdfPTable;
-import com.lowagie.text.pdf.PdfWriter;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
-import java.io.ByteArrayOutputStream;
 import java.util.List;
 
 /**
@@ -47,6 +40,9 @@ public class ContractManagementController {
     @Autowired
     private ContractService contractService;
 
+    @Autowired
+    private ContractPdfCache contractPdfCache;
+
     @Autowired
     private com.carrental.repository.UserRepository userRepository;
 
@@ -172,133 +168,37 @@ public class ContractManagementController {
      * GET /staff/contracts/{id}/export or /admin/contracts/{id}/export
      */
     @GetMapping("/{id}/export")
-    public ResponseEntity<byte[]> exportContractPdf(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+    public ResponseEntity<Resource> exportContractPdf(@PathVariable Long id, WebRequest webRequest,
+                                                      RedirectAttributes redirectAttributes) {
         try {
             Contract contract = contractService.getContractById(id)
                     .orElseThrow(() -> new RuntimeException("Contract not found"));
             
-            byte[] pdfBytes = generateContractPdf(contract);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDisposition(
-                    ContentDisposition.attachment()
+            // Opened before responding, so a concurrent re-render or invalidation cannot delete it mid-send
+            ContractPdfCache.OpenedPdf pdf = contractPdfCache.open(contract);
+
+            // Served from the disk cache; the ETag/Last-Modified let the browser revalidate with a 304
+            if (webRequest.checkNotModified(pdf.key(), pdf.lastModified())) {
+                pdf.stream().close();
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_PDF)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
                             .filename("contract-" + contract.getContractNumber() + ".pdf")
-                            .build());
-            
-            return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+                            .build()
+                            .toString())
+                    .eTag(pdf.key())
+                    .lastModified(pdf.lastModified())
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .contentLength(pdf.length())
+                    .body(new InputStreamResource(pdf.stream()));
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Xuất PDF thất bại: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
-    /**
-     * Build a simple PDF summary for contract
-     */
-    private byte[] generateContractPdf(Contract contract) throws DocumentException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Document document = new Document(PageSize.A4, 36, 36, 36, 36);
-        PdfWriter.getInstance(document, baos);
-        document.open();
-
-        Font titleFont = fontUnicode(16, Font.BOLD);
-        Font sectionFont = fontUnicode(12, Font.BOLD);
-        Font textFont = fontUnicode(11, Font.NORMAL);
-
-        document.add(new Paragraph("HỢP ĐỒNG THUÊ XE", titleFont));
-        document.add(new Paragraph("Mã hợp đồng: " + safe(contract.getContractNumber()), textFont));
-        document.add(new Paragraph("Trạng thái: " + contract.getStatus(), textFont));
-        document.add(new Paragraph("Ngày tạo: " + safe(contract.getCreatedAt()), textFont));
-        document.add(Paragraph.getInstance("\n"));
-        
-        // Customer info table - use contract data instead of booking to avoid null issues
-        document.add(new Paragraph("Thông tin khách hàng", sectionFont));
-        PdfPTable table = new PdfPTable(2);
-        table.setWidthPercentage(100);
-        addRow(table, "Họ tên", safe(contract.getCustomer().getFullName()), textFont);
-        addRow(table, "Email", safe(contract.getCustomer().getEmail()), textFont);
-        addRow(table, "Số điện thoại", safe(contract.getCustomer().getPhone()), textFont);
-        // Only show booking ID if booking exists
-        if (contract.getBooking() != null) {
-            addRow(table, "Mã đơn đặt", "#" + contract.getBooking().getId(), textFont);
-        }
-        addRow(table, "Thời gian thuê", safe(contract.getStartDate()) + " → " + safe(contract.getEndDate()), textFont);
-        document.add(table);
-
-        document.add(Paragraph.getInstance("\n"));
-        document.add(new Paragraph("Thông tin xe", sectionFont));
-        PdfPTable vehicleTable = new PdfPTable(2);
-        vehicleTable.setWidthPercentage(100);
-        addRow(vehicleTable, "Xe", safe(contract.getVehicle().getModel().getBrand().getBrandName()) + " " + safe(contract.getVehicle().getModel().getModelName()), textFont);
-        addRow(vehicleTable, "Biển số", safe(contract.getVehicle().getLicensePlate()), textFont);
-        document.add(vehicleTable);
-        
-        document.add(Paragraph.getInstance("\n"));
-        document.add(new Paragraph("Thanh toán", sectionFont));
-        PdfPTable paymentTable = new PdfPTable(2);
-        paymentTable.setWidthPercentage(100);
-        addRow(paymentTable, "Giá thuê / ngày", formatCurrency(contract.getDailyRate()), textFont);
-        addRow(paymentTable, "Số ngày thuê", safe(contract.getTotalDays()) + " ngày", textFont);
-        addRow(paymentTable, "Tiền cọc", formatCurrency(contract.getDepositAmount()), textFont);
-        addRow(paymentTable, "Tổng tiền thuê", formatCurrency(contract.getTotalRentalFee()), textFont);
-        document.add(paymentTable);
-        
-        document.close();
-        return baos.toByteArray();
-    }
-    
-    private void addRow(PdfPTable table, String label, String value, Font font) {
-        PdfPCell cell1 = new PdfPCell(new Phrase(label, font));
-        PdfPCell cell2 = new PdfPCell(new Phrase(value, font));
-        cell1.setBorderWidth(0.2f);
-        cell2.setBorderWidth(0.2f);
-        table.addCell(cell1);
-        table.addCell(cell2);
-    }
-    
-    private String safe(Object obj) {
-        return obj == null ? "---" : obj.toString();
-    }
-    
-    private String formatCurrency(java.math.BigDecimal amount) {
-        if (amount == null) return "---";
-        return String.format("%,.0f ₫", amount.doubleValue());
-    }
-
-    private Font fontUnicode(float size, int style) {
-        // Register system fonts once per JVM (harmless if called multiple times)
-        FontFactory.registerDirectories();
-
-        // Try explicit Windows font files first (to ensure embedding Vietnamese glyphs)
-        String[] winFonts = {
-                "C:/Windows/Fonts/arial.ttf",
-                "C:/Windows/Fonts/arialuni.ttf",
-                "C:/Windows/Fonts/tahoma.ttf",
-                "C:/Windows/Fonts/segoeui.ttf"
-        };
-        for (String path : winFonts) {
-            try {
-                BaseFont bf = BaseFont.createFont(path, BaseFont.IDENTITY_H, BaseFont.EMBEDDED);
-                return new Font(bf, size, style);
-            } catch (Exception ignore) {
-                // try next
-            }
-        }
-
-        // Try font names that may exist on system
-        String[] names = {"Arial Unicode MS", "Segoe UI", "Tahoma", "Arial", "Times New Roman", "DejaVu Sans"};
-        for (String name : names) {
-            Font font = FontFactory.getFont(name, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, style);
-            if (font != null && font.getBaseFont() != null) {
-                return font;
-            }
-        }
-
-        // Fallback
-        return FontFactory.getFont(FontFactory.HELVETICA, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, size, style);
-    }
-    
     /**
      * Cancel contract (if needed)
      * POST /staff/contracts/{id}/cancel or /admin/contracts/{id}/cancel
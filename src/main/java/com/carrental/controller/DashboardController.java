@@ -3,7 +3,6 @@ package com.carrental.controller;
 import com.carrental.model.User;
 import com.carrental.model.Booking;
 import com.carrental.service.BookingService;
-import com.carrental.service.SupportService;
 import com.carrental.service.UserService;
 import com.carrental.service.VehicleService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -46,9 +45,6 @@ public class DashboardController {
     @Autowired
     private BookingService bookingService;
     
-    @Autowired
-    private SupportService supportService;
-    
     // ========================================
     // ADMIN ROUTES
     // ========================================
@@ -455,9 +451,9 @@ public class DashboardController {
      * GET /staff/support
      */
     @GetMapping("/staff/support")
-    public String staffManageSupport(Model model) {
-        model.addAttribute("tickets", supportService.getAllTickets());
-        return "staff/support";
+    public String staffManageSupport() {
+        // Paged ticket list lives in SupportController
+        return "redirect:/staff/support/tickets";
     }
     
     /**
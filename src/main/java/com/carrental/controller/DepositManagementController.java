@@ -114,38 +114,41 @@ public class DepositManagementController {
         // Auto-update deposits from HOLDING to READY when holdEndDate has passed
         // This ensures deposits are only eligible for refund 2 weeks after actual return date
         LocalDateTime now = LocalDateTime.now();
+        List<Long> maturedIds = new java.util.ArrayList<>();
         for (DepositHold deposit : deposits) {
             if (deposit.getStatus() == DepositHold.DepositStatus.HOLDING 
                 && deposit.getHoldEndDate() != null 
                 && now.isAfter(deposit.getHoldEndDate())) {
-                
-                System.out.println("Auto-updating deposit " + deposit.getId() + " from HOLDING to READY");
-                System.out.println("  Hold end date: " + deposit.getHoldEndDate());
-                System.out.println("  Current time: " + now);
-                
-                depositService.updateDepositStatus(deposit.getId(), DepositHold.DepositStatus.READY);
+                maturedIds.add(deposit.getId());
                 deposit.setStatus(DepositHold.DepositStatus.READY); // Update in-memory object too
             }
         }
+        if (!maturedIds.isEmpty()) {
+            System.out.println("Auto-updating deposits " + maturedIds + " from HOLDING to READY");
+            depositService.updateDepositStatuses(maturedIds, DepositHold.DepositStatus.READY);
+        }
         
-        // Check which deposits already have refunds processed
+        // Check which deposits already have refunds processed (one query for the whole list)
         // AND auto-update status to REFUNDED if refund exists
+        java.util.Map<Long, DepositHoldSummaryDTO> summaries = depositService.getHoldSummaries(
+                deposits.stream().map(DepositHold::getId).toList());
         java.util.Map<Long, Boolean> refundProcessedMap = new java.util.HashMap<>();
+        List<Long> refundedIds = new java.util.ArrayList<>();
         for (DepositHold deposit : deposits) {
-            boolean hasRefund = refundService.getRefundByDepositHold(deposit.getId()).isPresent();
+            DepositHoldSummaryDTO summary = summaries.get(deposit.getId());
+            boolean hasRefund = summary != null && summary.isRefunded();
             refundProcessedMap.put(deposit.getId(), hasRefund);
             
-            if (hasRefund) {
-                System.out.println("Deposit " + deposit.getId() + " already has refund processed");
-                
-                // Auto-update status to REFUNDED if not already
-                if (deposit.getStatus() != DepositHold.DepositStatus.REFUNDED) {
-                    System.out.println("  Auto-updating deposit " + deposit.getId() + " to REFUNDED status");
-                    depositService.updateDepositStatus(deposit.getId(), DepositHold.DepositStatus.REFUNDED);
-                    deposit.setStatus(DepositHold.DepositStatus.REFUNDED); // Update in-memory object too
-                }
+            // Auto-update status to REFUNDED if not already
+            if (hasRefund && deposit.getStatus() != DepositHold.DepositStatus.REFUNDED) {
+                refundedIds.add(deposit.getId());
+                deposit.setStatus(DepositHold.DepositStatus.REFUNDED); // Update in-memory object too
             }
         }
+        if (!refundedIds.isEmpty()) {
+            System.out.println("Auto-updating deposits " + refundedIds + " to REFUNDED status");
+            depositService.updateDepositStatuses(refundedIds, DepositHold.DepositStatus.REFUNDED);
+        }
         
         // Filter out deposits that already have refunds when status is READY
         // This ensures the READY filter only shows deposits that can actually be refunded
@@ -1,26 +1,27 @@
 package com.carrental.controller;
 
 import com.carrental.config.PaymentGatewayConfig;
-import com.carrental.model.Contract;
 import com.carrental.model.Payment;
-import com.carrental.repository.PaymentRepository;
-import com.carrental.service.ContractService;
+import com.carrental.service.PaymentCallbackService;
+import com.carrental.service.PaymentSettlementQueue;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.math.BigDecimal;
 import java.util.*;
 
 /**
  * Controller for handling payment gateway callback
- * Processes payment results and updates contract status
+ * Validates the signature and hands the result to PaymentCallbackService,
+ * which updates payment/contract status idempotently
  */
 @Controller
 @RequestMapping("/payment")
@@ -32,10 +33,10 @@ public class PaymentCallbackController {
     private PaymentGatewayConfig gatewayConfig;
 
     @Autowired
-    private PaymentRepository paymentRepository;
+    private PaymentCallbackService paymentCallbackService;
 
     @Autowired
-    private ContractService contractService;
+    private PaymentSettlementQueue paymentSettlementQueue;
 
     /**
      * Handle payment gateway return callback
@@ -53,34 +54,11 @@ while (paramNames.hasMoreElements()) {
 log.info("Received VNPay callback with raw params: {}", rawParams);
 
 
-        // Get all parameters from VNPay
-        // IMPORTANT: For hash verification, only field VALUES must be URL encoded (per VNPay spec)
-        // Field names remain as-is (not encoded in hash data, only in query URL)
-        Map<String, String> fields = new HashMap<>();
-        for (Enumeration<String> params = request.getParameterNames(); params.hasMoreElements(); ) {
-            String fieldName = params.nextElement();
-            String fieldValue = request.getParameter(fieldName);
-            if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                // For hash data: fieldName stays as-is, only encode the value
-                try {
-                    String encodedValue = java.net.URLEncoder.encode(fieldValue, java.nio.charset.StandardCharsets.UTF_8.toString());
-                    fields.put(fieldName, encodedValue);
-                } catch (Exception e) {
-                    log.error("Failed to encode field {} for hashing", fieldName, e);
-                    fields.put(fieldName, fieldValue); // Fallback to non-encoded
-                }
-            }
-        }
-
         // Get secure hash from VNPay (original, not encoded)
         String secureHash = request.getParameter("vnp_SecureHash");
 
-        // Remove hash fields before validating (using non-encoded keys since field names are not encoded)
-        fields.remove("vnp_SecureHashType");
-        fields.remove("vnp_SecureHash");
-
-        // Validate signature using the same method as in VNPayConfig.hashAllFields
-        String signValue = gatewayConfig.hashAllFields(fields);
+        // Validate signature (values URL encoded per VNPay spec, hash fields excluded)
+        String signValue = gatewayConfig.hashReceivedFields(rawParams);
         boolean isValidSignature = signValue.equalsIgnoreCase(secureHash);
 
         // Debug logs to compare hash inputs with VNPay (helps diagnose signature mismatches)
@@ -127,63 +105,33 @@ log.info("Received VNPay callback with raw params: {}", rawParams);
 
         try {
             if (isValidSignature) {
-                // Find payment by transaction reference
-                Optional<Payment> paymentOpt = paymentRepository.findByTransactionRef(transactionRef);
-                if (!paymentOpt.isPresent()) {
+                // Apply result idempotently: duplicates (browser retry, IPN) do not re-apply it
+                PaymentCallbackService.CallbackResult result = paymentCallbackService.processGatewayResult(
+                        new PaymentCallbackService.GatewayResult(transactionRef, responseCode, transactionStatus,
+                                transactionNo, bankCode, cardType, payDate, secureHash));
+
+                if (result.outcome() == PaymentCallbackService.Outcome.NOT_FOUND) {
                     log.warn("Payment callback received but no payment found for transactionRef={}", transactionRef);
                     message = "Payment record not found";
                     paymentStatus = "failed";
                 } else {
-                    Payment payment = paymentOpt.get();
+                    Payment payment = result.payment();
                     contractId = payment.getContract().getId();
-                    log.info("Processing callback for contractId={}, transactionRef={}, responseCode={}, transactionStatus={}",
-                            contractId, transactionRef, responseCode, transactionStatus);
+                    log.info("Processed callback for contractId={}, transactionRef={}, responseCode={}, transactionStatus={}, outcome={}",
+                            contractId, transactionRef, responseCode, transactionStatus, result.outcome());
 
-                    // Check transaction status
-                    if ("00".equals(responseCode) && "00".equals(transactionStatus)) {
-                        // Payment successful
+                    // Show the payment's actual state (a duplicate callback shows the earlier result)
+                    if (payment.getStatus() == Payment.PaymentStatus.COMPLETED) {
                         paymentStatus = "success";
-                        boolean isDeposit = payment.getPaymentType() == Payment.PaymentType.DEPOSIT;
-                        if (isDeposit) {
+                        if (payment.getPaymentType() == Payment.PaymentType.DEPOSIT) {
                             message = "Thanh toán cọc thành công! Hợp đồng của bạn đã được kích hoạt.";
                         } else {
                             message = "Thanh toán hóa đơn thành công! Cảm ơn bạn.";
                         }
-
-                        // Update payment record
-                        payment.setStatus(Payment.PaymentStatus.COMPLETED);
-                        payment.setPaymentDate(parsePaymentDate(payDate));
-                        payment.setGatewayTransactionId(transactionNo);
-                        payment.setGatewayResponseCode(responseCode);
-                        payment.setGatewayTransactionStatus(transactionStatus);
-                        payment.setGatewayBankCode(bankCode);
-                        payment.setGatewayCardType(cardType);
-                        payment.setGatewayPayDate(payDate);
-                        payment.setGatewaySecureHash(secureHash);
-                        paymentRepository.save(payment);
                         log.info("Payment completed for contractId={}, vnPayTxn={}, bankCode={}", contractId, transactionNo, bankCode);
-
-                        // Update contract status based on payment type
-                        if (isDeposit) {
-                            contractService.updateContractStatus(contractId, Contract.ContractStatus.ACTIVE);
-                        } else if (payment.getPaymentType() == Payment.PaymentType.RENTAL) {
-                            contractService.updateContractStatus(contractId, Contract.ContractStatus.COMPLETED);
-                        }
-
                     } else {
-                        // Payment failed
                         paymentStatus = "failed";
                         message = "Thanh toán thất bại: " + getErrorMessage(responseCode);
-
-                        // Update payment record
-                        payment.setStatus(Payment.PaymentStatus.FAILED);
-                        payment.setGatewayResponseCode(responseCode);
-                        payment.setGatewayTransactionStatus(transactionStatus);
-                        payment.setGatewayBankCode(bankCode);
-                        payment.setGatewayCardType(cardType);
-                        payment.setGatewayPayDate(payDate);
-                        payment.setGatewaySecureHash(secureHash);
-                        paymentRepository.save(payment);
                         log.warn("Payment failed for contractId={}, responseCode={}, transactionStatus={}, message={}",
                                 contractId, responseCode, transactionStatus, message);
                     }
@@ -193,12 +141,9 @@ log.info("Received VNPay callback with raw params: {}", rawParams);
                 paymentStatus = "failed";
                 message = "Chữ ký thanh toán không hợp lệ. Giao dịch có thể bị giả mạo. Vui lòng liên hệ hỗ trợ.";
                 log.error("Invalid VNPay signature for transactionRef={}, receivedHash={}, computed={}", transactionRef, secureHash, signValue);
-                // Try to mark payment as failed if we have the reference
+                // Try to mark payment as failed if we have the reference (only while still pending)
                 if (transactionRef != null) {
-                    paymentRepository.findByTransactionRef(transactionRef).ifPresent(p -> {
-                        p.setStatus(Payment.PaymentStatus.FAILED);
-                        paymentRepository.save(p);
-                    });
+                    paymentCallbackService.rejectInvalidSignature(transactionRef);
                 }
             }
         } catch (Exception e) {
@@ -215,21 +160,68 @@ log.info("Received VNPay callback with raw params: {}", rawParams);
     }
 
     /**
-     * Parse payment date from gateway format (yyyyMMddHHmmss) to LocalDateTime
+     * Handle payment gateway IPN (server-to-server notification)
+     * Verifies the signature, order and amount, stores the result on the settlement queue
+     * and acknowledges right away; the payment/contract are updated by the queue workers.
+     * Response codes follow the VNPay IPN spec.
      */
-    private LocalDateTime parsePaymentDate(String payDate) {
-        if (payDate == null || payDate.isEmpty()) {
-            return LocalDateTime.now();
+    @GetMapping("/ipn")
+    @ResponseBody
+    public ResponseEntity<Map<String, String>> handlePaymentIpn(HttpServletRequest request) {
+        Map<String, String> params = new HashMap<>();
+        for (Enumeration<String> names = request.getParameterNames(); names.hasMoreElements(); ) {
+            String key = names.nextElement();
+            params.put(key, request.getParameter(key));
         }
+        String transactionRef = params.get("vnp_TxnRef");
+        log.info("Received VNPay IPN for transactionRef={}", transactionRef);
+
         try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-            return LocalDateTime.parse(payDate, formatter);
+            String secureHash = params.get("vnp_SecureHash");
+            if (secureHash == null || !gatewayConfig.hashReceivedFields(params).equalsIgnoreCase(secureHash)) {
+                log.error("Invalid VNPay IPN signature for transactionRef={}", transactionRef);
+                return ipnResponse("97", "Invalid Checksum");
+            }
+
+            Optional<Payment> paymentOpt = transactionRef != null
+                    ? paymentCallbackService.findByTransactionRef(transactionRef)
+                    : Optional.empty();
+            if (paymentOpt.isEmpty()) {
+                return ipnResponse("01", "Order not found");
+            }
+            Payment payment = paymentOpt.get();
+
+            // vnp_Amount is in the smallest unit (amount x 100)
+            String amount = params.get("vnp_Amount");
+            if (amount == null || payment.getAmount() == null
+                    || new BigDecimal(amount).compareTo(payment.getAmount().multiply(new BigDecimal("100"))) != 0) {
+                log.warn("VNPay IPN amount mismatch for transactionRef={}: received {}, expected {}",
+                        transactionRef, amount, payment.getAmount());
+                return ipnResponse("04", "Invalid amount");
+            }
+
+            if (payment.getStatus() == Payment.PaymentStatus.COMPLETED) {
+                return ipnResponse("02", "Order already confirmed");
+            }
+
+            paymentSettlementQueue.submit(new PaymentCallbackService.GatewayResult(transactionRef,
+                    params.get("vnp_ResponseCode"), params.get("vnp_TransactionStatus"),
+                    params.get("vnp_TransactionNo"), params.get("vnp_BankCode"), params.get("vnp_CardType"),
+                    params.get("vnp_PayDate"), secureHash));
+            return ipnResponse("00", "Confirm Success");
         } catch (Exception e) {
-            log.warn("Failed to parse payment date {}, fallback to now()", payDate, e);
-            return LocalDateTime.now();
+            log.error("VNPay IPN handling failed for transactionRef={}", transactionRef, e);
+            return ipnResponse("99", "Unknown error");
         }
     }
 
+    private ResponseEntity<Map<String, String>> ipnResponse(String rspCode, String message) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("RspCode", rspCode);
+        body.put("Message", message);
+        return ResponseEntity.ok(body);
+    }
+
     /**
      * Get friendly error message for payment gateway response codes
      */
@@ -1,13 +1,21 @@
 package com.carrental.controller;
 
 import com.carrental.model.*;
+import com.carrental.service.FleetUtilisationService;
+import com.carrental.service.LocationService;
+import com.carrental.service.ReportExportService;
 import com.carrental.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -22,6 +30,18 @@ public class ReportController {
     
     @Autowired
     private ReportService reportService;
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private FleetUtilisationService fleetUtilisationService;
+
+    @Autowired
+    private LocationService locationService;
+
+    @Autowired
+    private com.carrental.repository.VehicleRepository vehicleRepository;
     
     /**
      * Admin Reports Page
@@ -33,10 +53,15 @@ public class ReportController {
             @RequestParam(required = false) String period,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) Long fleetLocationId,
+            @RequestParam(required = false) String fleetCategory,
             Model model) {
         
         // Calculate date range
         DateRange dateRange = calculateDateRange(period, startDate, endDate);
+        if (fleetCategory != null && fleetCategory.isEmpty()) {
+            fleetCategory = null;
+        }
         
         // Generate reports
         RevenueReportDTO revenueReport = reportService.generateRevenueReport(
@@ -46,12 +71,19 @@ public class ReportController {
         List<CustomerStatsDTO> customerStats = reportService.generateCustomerStatsReport(
             dateRange.start, dateRange.end);
         DashboardStatsDTO dashboardStats = reportService.generateDashboardStats(dateRange.start, dateRange.end);
+        List<FleetUtilisationPointDTO> fleetUtilisation = fleetUtilisationService.getSeries(
+            dateRange.start, dateRange.end, fleetLocationId, fleetCategory);
         
         // Add to model
         model.addAttribute("revenueReport", revenueReport);
         model.addAttribute("vehicleUsage", vehicleUsage);
         model.addAttribute("customerStats", customerStats);
         model.addAttribute("dashboardStats", dashboardStats);
+        model.addAttribute("fleetUtilisation", fleetUtilisation);
+        model.addAttribute("locations", locationService.getAllLocations());
+        model.addAttribute("categories", vehicleRepository.findAllCategories());
+        model.addAttribute("fleetLocationId", fleetLocationId);
+        model.addAttribute("fleetCategory", fleetCategory);
         model.addAttribute("selectedPeriod", period != null ? period : "month");
         model.addAttribute("startDate", dateRange.start.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
         model.addAttribute("endDate", dateRange.end.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
@@ -95,6 +127,37 @@ public class ReportController {
         return "staff/reports";
     }
     
+    /**
+     * Export report data for the selected period
+     * GET /admin/reports/export?dataset=PAYMENTS|CONTRACTS|USAGE&format=CSV|XLSX
+     */
+    @GetMapping("/admin/reports/export")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportReport(
+            @RequestParam ReportExportService.Dataset dataset,
+            @RequestParam(defaultValue = "CSV") ReportExportService.Format format,
+            @RequestParam(required = false) String period,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        
+        DateRange dateRange = calculateDateRange(period, startDate, endDate);
+        String fileName = dataset.getFileName() + "-"
+                + dateRange.start.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "-"
+                + dateRange.end.format(DateTimeFormatter.ofPattern("yyyyMMdd")) + "." + format.getExtension();
+        
+        // Rows are written to the response as they are read from the database
+        // (bounded by spring.mvc.async.request-timeout, not the container's 30 s default)
+        StreamingResponseBody body = out -> reportExportService.export(
+            dataset, format, dateRange.start, dateRange.end, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+    
     /**
      * Calculate date range based on period or custom dates
      */
@@ -1,5 +1,7 @@
 package com.carrental.controller;
 
+import com.carrental.model.KeysetPage;
+import com.carrental.model.SupportChatMessageDTO;
 import com.carrental.model.SupportMessage;
 import com.carrental.model.SupportTicket;
 import com.carrental.model.SupportTicket.Category;
@@ -8,13 +10,20 @@ import com.carrental.model.User;
 import com.carrental.service.SupportService;
 import com.carrental.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,6 +65,43 @@ public class SupportController {
                 && "ADMIN".equalsIgnoreCase(currentUser.getRole().name());
     }
 
+    /**
+     * Ticket of the current customer, or 404 (for AJAX and live chat endpoints)
+     */
+    private SupportTicket findOwnTicket(Long id) {
+        User currentUser = getCurrentUser();
+        Optional<SupportTicket> ticketOpt = supportService.getTicketById(id);
+        if (currentUser == null || ticketOpt.isEmpty() ||
+            ticketOpt.get().getCustomer() == null ||
+            !ticketOpt.get().getCustomer().getId().equals(currentUser.getId())) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return ticketOpt.get();
+    }
+
+    /**
+     * ID of the newest message rendered on the page (0 when none); the live chat stream starts after it
+     */
+    private static long lastMessageId(KeysetPage<SupportMessage> messagePage) {
+        List<SupportMessage> items = messagePage.getItems();
+        return items.isEmpty() ? 0L : items.get(items.size() - 1).getId();
+    }
+
+    /**
+     * Post a live chat message and return it (the page also receives it over the stream)
+     */
+    private ResponseEntity<SupportChatMessageDTO> postChatMessage(Long ticketId, String messageText) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (messageText == null || messageText.isBlank()) {
+            return ResponseEntity.badRequest().build();
+        }
+        SupportMessage message = supportService.addMessage(ticketId, currentUser.getId(), messageText);
+        return ResponseEntity.ok(supportService.toChatMessage(message));
+    }
+
     // ==================== UNIVERSAL ENDPOINT ====================
     
     /**
@@ -174,11 +220,13 @@ public class SupportController {
             return "redirect:/customer/support/tickets";
         }
         
-        List<SupportMessage> messages = supportService.getMessages(id);
+        KeysetPage<SupportMessage> messagePage = supportService.getMessagePage(id, null, null);
         Optional<SupportMessage> rating = supportService.getTicketRating(id);
         
         model.addAttribute("ticket", ticket);
-        model.addAttribute("messages", messages);
+        model.addAttribute("messages", messagePage.getItems());
+        model.addAttribute("messagePage", messagePage);
+        model.addAttribute("lastMessageId", lastMessageId(messagePage));
         model.addAttribute("rating", rating.orElse(null));
         model.addAttribute("canRate", 
             (ticket.getStatus() == TicketStatus.RESOLVED || 
@@ -188,6 +236,44 @@ public class SupportController {
         return "customer/support-detail";
     }
 
+    /**
+     * Older messages of a ticket ("load older messages"), rendered as a fragment
+     * GET /customer/support/tickets/{id}/messages?before=...&beforeId=...
+     */
+    @GetMapping("/customer/support/tickets/{id}/messages")
+    public String olderCustomerMessages(@PathVariable Long id,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                        @RequestParam Long beforeId,
+                                        Model model) {
+        model.addAttribute("ticket", findOwnTicket(id));
+        model.addAttribute("messagePage", supportService.getMessagePage(id, before, beforeId));
+        return "customer/support-detail :: message-page";
+    }
+
+    /**
+     * Live chat stream of a ticket (Server-Sent Events)
+     * GET /customer/support/tickets/{id}/stream?after={last rendered message ID}
+     * On reconnect the browser's Last-Event-ID takes over from the after parameter.
+     */
+    @GetMapping(value = "/customer/support/tickets/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter customerChatStream(@PathVariable Long id,
+                                         @RequestParam(required = false) Long after,
+                                         @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        findOwnTicket(id);
+        return supportService.openChatStream(id, lastEventId != null ? lastEventId : after);
+    }
+
+    /**
+     * Live chat reply without a page reload (customer)
+     * POST /customer/support/tickets/{id}/messages
+     */
+    @PostMapping("/customer/support/tickets/{id}/messages")
+    public ResponseEntity<SupportChatMessageDTO> postCustomerChatMessage(@PathVariable Long id,
+                                                                         @RequestParam String messageText) {
+        findOwnTicket(id);
+        return postChatMessage(id, messageText);
+    }
+
     /**
      * Add message to ticket (customer reply)
      * POST /customer/support/tickets/{id}/message
@@ -247,23 +333,41 @@ public class SupportController {
     // ==================== STAFF/ADMIN ENDPOINTS ====================
     
     /**
-     * UC20: List all support tickets (staff/admin)
+     * UC20: List support tickets (staff/admin), newest first, one page at a time
      * GET /staff/support/tickets or /admin/support/tickets
+     * assignee: staff ID, "none" for unassigned tickets, empty for all;
+     * before/beforeId: cursor of the next page (keyset paging)
      */
     @GetMapping({"/staff/support/tickets", "/admin/support/tickets"})
     public String listAllTickets(@RequestParam(required = false) String status,
+                                 @RequestParam(required = false) String assignee,
+                                 @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                 @RequestParam(required = false) Long beforeId,
                                  Model model) {
-        List<SupportTicket> tickets;
-        
+        TicketStatus ticketStatus = null;
         if (status != null && !status.isEmpty()) {
-            TicketStatus ticketStatus = TicketStatus.valueOf(status);
-            tickets = supportService.getTicketsByStatus(ticketStatus);
-        } else {
-            tickets = supportService.getAllTickets();
+            ticketStatus = TicketStatus.valueOf(status);
         }
         
-        model.addAttribute("tickets", tickets);
-        model.addAttribute("selectedStatus", status);
+        boolean unassigned = "none".equals(assignee);
+        Long assigneeId = null;
+        if (assignee != null && !assignee.isEmpty() && !unassigned) {
+            assigneeId = Long.valueOf(assignee);
+        }
+        if (before == null || beforeId == null) {
+            before = null;
+            beforeId = null;
+        }
+        
+        KeysetPage<SupportTicket> ticketPage =
+                supportService.getTicketPage(ticketStatus, assigneeId, unassigned, before, beforeId);
+        
+        model.addAttribute("tickets", ticketPage.getItems());
+        model.addAttribute("ticketPage", ticketPage);
+        model.addAttribute("firstPage", before == null);
+        model.addAttribute("selectedStatus", ticketStatus != null ? status : null);
+        model.addAttribute("selectedAssignee", unassigned || assigneeId != null ? assignee : null);
+        model.addAttribute("staffList", userService.findAllStaff());
         model.addAttribute("statuses", TicketStatus.values());
 
         if (isAdmin()) {
@@ -290,14 +394,16 @@ public class SupportController {
         }
         
         SupportTicket ticket = ticketOpt.get();
-        List<SupportMessage> messages = supportService.getMessages(id);
+        KeysetPage<SupportMessage> messagePage = supportService.getMessagePage(id, null, null);
         Optional<SupportMessage> rating = supportService.getTicketRating(id);
         
         // Get all staff for assignment dropdown
         List<User> staffList = userService.findAllStaff();
         
         model.addAttribute("ticket", ticket);
-        model.addAttribute("messages", messages);
+        model.addAttribute("messages", messagePage.getItems());
+        model.addAttribute("messagePage", messagePage);
+        model.addAttribute("lastMessageId", lastMessageId(messagePage));
         model.addAttribute("rating", rating.orElse(null));
         model.addAttribute("staffList", staffList);
         model.addAttribute("statuses", TicketStatus.values());
@@ -308,6 +414,55 @@ public class SupportController {
         return "staff/support-ticket-detail";
     }
 
+    /**
+     * Older messages of a ticket (staff/admin), rendered as a fragment
+     * GET /staff/support/tickets/{id}/messages or /admin/support/tickets/{id}/messages
+     */
+    @GetMapping({"/staff/support/tickets/{id}/messages", "/admin/support/tickets/{id}/messages"})
+    public String olderStaffMessages(@PathVariable Long id,
+                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before,
+                                     @RequestParam Long beforeId,
+                                     Model model) {
+        SupportTicket ticket = supportService.getTicketById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        
+        model.addAttribute("ticket", ticket);
+        model.addAttribute("messagePage", supportService.getMessagePage(id, before, beforeId));
+
+        if (isAdmin()) {
+            return "admin/support-ticket-detail :: message-page";
+        }
+        return "staff/support-ticket-detail :: message-page";
+    }
+
+    /**
+     * Live chat stream of a ticket (staff/admin, Server-Sent Events)
+     * GET /staff/support/tickets/{id}/stream?after=... or /admin/support/tickets/{id}/stream?after=...
+     */
+    @GetMapping(value = {"/staff/support/tickets/{id}/stream", "/admin/support/tickets/{id}/stream"},
+                produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter staffChatStream(@PathVariable Long id,
+                                      @RequestParam(required = false) Long after,
+                                      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (supportService.getTicketById(id).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return supportService.openChatStream(id, lastEventId != null ? lastEventId : after);
+    }
+
+    /**
+     * Live chat reply without a page reload (staff/admin)
+     * POST /staff/support/tickets/{id}/messages or /admin/support/tickets/{id}/messages
+     */
+    @PostMapping({"/staff/support/tickets/{id}/messages", "/admin/support/tickets/{id}/messages"})
+    public ResponseEntity<SupportChatMessageDTO> postStaffChatMessage(@PathVariable Long id,
+                                                                      @RequestParam String messageText) {
+        if (supportService.getTicketById(id).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        return postChatMessage(id, messageText);
+    }
+
     /**
      * UC20: Reply to ticket (staff/admin)
      * POST /staff/support/tickets/{id}/reply or /admin/support/tickets/{id}/reply
@@ -12,6 +12,7 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -29,9 +30,6 @@ public class ViolationManagementController {
     @Autowired
     private com.carrental.repository.UserRepository userRepository;
 
-    @Autowired
-    private RefundService refundService;
-
     /**
      * Get current authenticated user
      */
@@ -100,27 +98,36 @@ public class ViolationManagementController {
             
             // Auto-update deposits from HOLDING to READY when holdEndDate has passed
             java.time.LocalDateTime now = java.time.LocalDateTime.now();
+            List<Long> maturedIds = new ArrayList<>();
             for (DepositHold deposit : deposits) {
                 if (deposit.getStatus() == DepositHold.DepositStatus.HOLDING 
                     && deposit.getHoldEndDate() != null 
                     && now.isAfter(deposit.getHoldEndDate())) {
-                    depositService.updateDepositStatus(deposit.getId(), DepositHold.DepositStatus.READY);
+                    maturedIds.add(deposit.getId());
                     deposit.setStatus(DepositHold.DepositStatus.READY);
                 }
             }
+            depositService.updateDepositStatuses(maturedIds, DepositHold.DepositStatus.READY);
             
+            // Amounts, fines and refund state of all listed deposits in one query
+            Map<Long, DepositHoldSummaryDTO> summaries = depositService.getHoldSummaries(
+                    deposits.stream().map(DepositHold::getId).toList());
+
             // Check which deposits already have refunds processed
             Map<Long, Boolean> refundProcessedMap = new HashMap<>();
+            List<Long> refundedIds = new ArrayList<>();
             for (DepositHold deposit : deposits) {
-                boolean hasRefund = refundService.getRefundByDepositHold(deposit.getId()).isPresent();
+                DepositHoldSummaryDTO summary = summaries.get(deposit.getId());
+                boolean hasRefund = summary != null && summary.isRefunded();
                 refundProcessedMap.put(deposit.getId(), hasRefund);
                 
                 // Auto-update status to REFUNDED if refund exists
                 if (hasRefund && deposit.getStatus() != DepositHold.DepositStatus.REFUNDED) {
-                    depositService.updateDepositStatus(deposit.getId(), DepositHold.DepositStatus.REFUNDED);
+                    refundedIds.add(deposit.getId());
                     deposit.setStatus(DepositHold.DepositStatus.REFUNDED);
                 }
             }
+            depositService.updateDepositStatuses(refundedIds, DepositHold.DepositStatus.REFUNDED);
             
             // Filter out deposits that already have refunds when status is READY
             if (statusStr != null && statusStr.equalsIgnoreCase("READY")) {
@@ -129,18 +136,19 @@ public class ViolationManagementController {
                     .collect(java.util.stream.Collectors.toList());
             }
             
-            // Get violations for each deposit
-            Map<Long, List<TrafficViolation>> violationsMap = new HashMap<>();
+            // Get violations for all deposits in one query
+            Map<Long, List<TrafficViolation>> violationsMap = new HashMap<>(violationService.getViolationsByDepositHolds(
+                    deposits.stream().map(DepositHold::getId).toList()));
             Map<Long, BigDecimal> totalFinesMap = new HashMap<>();
             Map<Long, BigDecimal> refundAmountMap = new HashMap<>();
             
             for (DepositHold deposit : deposits) {
-                List<TrafficViolation> violations = violationService.getViolationsByDepositHold(deposit.getId());
-                violationsMap.put(deposit.getId(), violations);
-                totalFinesMap.put(deposit.getId(), violationService.getTotalFinesByHold(deposit.getId()));
-                // Calculate refund amount for each deposit (only if status is READY)
-                if (deposit.getStatus() == DepositHold.DepositStatus.READY) {
-                    refundAmountMap.put(deposit.getId(), refundService.calculateRefundAmount(deposit.getId()));
+                DepositHoldSummaryDTO summary = summaries.get(deposit.getId());
+                violationsMap.putIfAbsent(deposit.getId(), List.of());
+                totalFinesMap.put(deposit.getId(), summary != null ? summary.getTotalFines() : BigDecimal.ZERO);
+                // Refund amount for each deposit (only if status is READY)
+                if (deposit.getStatus() == DepositHold.DepositStatus.READY && summary != null) {
+                    refundAmountMap.put(deposit.getId(), summary.getNetRefundable());
                 } else {
                     refundAmountMap.put(deposit.getId(), BigDecimal.ZERO);
                 }
@@ -0,0 +1,67 @@
+package com.carrental.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the outcome of a bulk booking action (approve/assign)
+ * Keeps the IDs that succeeded and the reason each failed ID was skipped
+ */
+public class BulkActionResultDTO {
+    private static final int MAX_FAILURES_IN_SUMMARY = 5;
+
+    private final List<Long> succeededIds = new ArrayList<>();
+    private final Map<Long, String> failures = new LinkedHashMap<>();
+
+    public void addSuccess(Long id) {
+        succeededIds.add(id);
+    }
+
+    public void addFailure(Long id, String reason) {
+        failures.put(id, reason);
+    }
+
+    public void merge(BulkActionResultDTO other) {
+        succeededIds.addAll(other.succeededIds);
+        failures.putAll(other.failures);
+    }
+
+    public int getSuccessCount() {
+        return succeededIds.size();
+    }
+
+    public int getFailureCount() {
+        return failures.size();
+    }
+
+    /**
+     * Short description of the first few failures for flash messages, e.g. "#12: Booking not found; ..."
+     */
+    public String getFailureSummary() {
+        StringBuilder summary = new StringBuilder();
+        int shown = 0;
+        for (Map.Entry<Long, String> failure : failures.entrySet()) {
+            if (shown == MAX_FAILURES_IN_SUMMARY) {
+                summary.append("; ...");
+                break;
+            }
+            if (shown > 0) {
+                summary.append("; ");
+            }
+            summary.append('#').append(failure.getKey()).append(": ").append(failure.getValue());
+            shown++;
+        }
+        return summary.toString();
+    }
+
+    // Getters
+    public List<Long> getSucceededIds() {
+        return succeededIds;
+    }
+
+    public Map<Long, String> getFailures() {
+        return failures;
+    }
+}
@@ -5,7 +5,10 @@ import java.time.LocalDateTime;
 import org.hibernate.annotations.CreationTimestamp;
 
 @Entity
-@Table(name = "contracts")
+@Table(name = "contracts", indexes = {
+    @Index(name = "idx_customer_status", columnList = "customer_id, status"),
+    @Index(name = "idx_staff_status", columnList = "staff_id, status")
+})
 public class Contract {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,109 @@
+package com.carrental.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one row of the contract export
+ * Read with a constructor expression so exported rows never become managed entities
+ */
+public class ContractExportRowDTO {
+    private final Long contractId;
+    private final String contractNumber;
+    private final Contract.ContractStatus status;
+    private final String customerName;
+    private final String customerEmail;
+    private final String licensePlate;
+    private final String brandName;
+    private final String modelName;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final Integer totalDays;
+    private final BigDecimal dailyRate;
+    private final BigDecimal totalRentalFee;
+    private final BigDecimal depositAmount;
+    private final LocalDateTime createdAt;
+
+    public ContractExportRowDTO(Long contractId, String contractNumber, Contract.ContractStatus status,
+                                String customerName, String customerEmail, String licensePlate,
+                                String brandName, String modelName, LocalDateTime startDate,
+                                LocalDateTime endDate, Integer totalDays, BigDecimal dailyRate,
+                                BigDecimal totalRentalFee, BigDecimal depositAmount, LocalDateTime createdAt) {
+        this.contractId = contractId;
+        this.contractNumber = contractNumber;
+        this.status = status;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.licensePlate = licensePlate;
+        this.brandName = brandName;
+        this.modelName = modelName;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.totalDays = totalDays;
+        this.dailyRate = dailyRate;
+        this.totalRentalFee = totalRentalFee;
+        this.depositAmount = depositAmount;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getContractId() {
+        return contractId;
+    }
+
+    public String getContractNumber() {
+        return contractNumber;
+    }
+
+    public Contract.ContractStatus getStatus() {
+        return status;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public String getLicensePlate() {
+        return licensePlate;
+    }
+
+    public String getBrandName() {
+        return brandName;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public Integer getTotalDays() {
+        return totalDays;
+    }
+
+    public BigDecimal getDailyRate() {
+        return dailyRate;
+    }
+
+    public BigDecimal getTotalRentalFee() {
+        return totalRentalFee;
+    }
+
+    public BigDecimal getDepositAmount() {
+        return depositAmount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
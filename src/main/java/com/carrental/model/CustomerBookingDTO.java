@@ -0,0 +1,45 @@
+package com.carrental.model;
+
+/**
+ * DTO for one row of the customer's "my bookings" page
+ * Booking together with its contract and rental bill payment (both may be null)
+ */
+public class CustomerBookingDTO {
+    private Booking booking;
+    private Contract contract;
+    private Payment billPayment;
+
+    public CustomerBookingDTO() {
+    }
+
+    public CustomerBookingDTO(Booking booking, Contract contract, Payment billPayment) {
+        this.booking = booking;
+        this.contract = contract;
+        this.billPayment = billPayment;
+    }
+
+    // Getters and Setters
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public void setBooking(Booking booking) {
+        this.booking = booking;
+    }
+
+    public Contract getContract() {
+        return contract;
+    }
+
+    public void setContract(Contract contract) {
+        this.contract = contract;
+    }
+
+    public Payment getBillPayment() {
+        return billPayment;
+    }
+
+    public void setBillPayment(Payment billPayment) {
+        this.billPayment = billPayment;
+    }
+}
@@ -22,6 +22,11 @@ public class DepositHold {
     @Column(name = "deducted_at_return", precision = 18, scale = 2)
     private BigDecimal deductedAtReturn = BigDecimal.ZERO;
 
+    // Sum of traffic_violations.fine_amount, kept up to date by TrafficViolationService
+    // (null only for rows created before the column existed, until the startup backfill)
+    @Column(name = "total_fines", precision = 18, scale = 2)
+    private BigDecimal totalFines = BigDecimal.ZERO;
+
     @Column(name = "hold_start_date", nullable = false)
     private LocalDateTime holdStartDate;
 
@@ -88,6 +93,14 @@ public class DepositHold {
         this.holdEndDate = holdEndDate;
     }
 
+    public BigDecimal getTotalFines() {
+        return totalFines;
+    }
+
+    public void setTotalFines(BigDecimal totalFines) {
+        this.totalFines = totalFines;
+    }
+
     public DepositStatus getStatus() {
         return status;
     }
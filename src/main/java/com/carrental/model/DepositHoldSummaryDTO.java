@@ -0,0 +1,77 @@
+package com.carrental.model;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for one row of the deposit management screens
+ * Hold amounts, cached fine total and refund state read in a single query
+ */
+public class DepositHoldSummaryDTO {
+    private final Long holdId;
+    private final DepositHold.DepositStatus status;
+    private final BigDecimal depositAmount;
+    private final BigDecimal deductedAtReturn;
+    private final BigDecimal totalFines;
+    private final Long refundId;
+    private final Refund.RefundStatus refundStatus;
+    private final BigDecimal refundAmount;
+
+    public DepositHoldSummaryDTO(Long holdId, DepositHold.DepositStatus status, BigDecimal depositAmount,
+                                 BigDecimal deductedAtReturn, BigDecimal totalFines, Long refundId,
+                                 Refund.RefundStatus refundStatus, BigDecimal refundAmount) {
+        this.holdId = holdId;
+        this.status = status;
+        this.depositAmount = depositAmount;
+        this.deductedAtReturn = deductedAtReturn != null ? deductedAtReturn : BigDecimal.ZERO;
+        this.totalFines = totalFines != null ? totalFines : BigDecimal.ZERO;
+        this.refundId = refundId;
+        this.refundStatus = refundStatus;
+        this.refundAmount = refundAmount;
+    }
+
+    /**
+     * Deposit minus return deductions and traffic fines, never negative
+     * (same rule as RefundService.calculateRefundAmount)
+     */
+    public BigDecimal getNetRefundable() {
+        BigDecimal net = depositAmount.subtract(deductedAtReturn).subtract(totalFines);
+        return net.compareTo(BigDecimal.ZERO) < 0 ? BigDecimal.ZERO : net;
+    }
+
+    public boolean isRefunded() {
+        return refundId != null;
+    }
+
+    // Getters
+    public Long getHoldId() {
+        return holdId;
+    }
+
+    public DepositHold.DepositStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getDepositAmount() {
+        return depositAmount;
+    }
+
+    public BigDecimal getDeductedAtReturn() {
+        return deductedAtReturn;
+    }
+
+    public BigDecimal getTotalFines() {
+        return totalFines;
+    }
+
+    public Long getRefundId() {
+        return refundId;
+    }
+
+    public Refund.RefundStatus getRefundStatus() {
+        return refundStatus;
+    }
+
+    public BigDecimal getRefundAmount() {
+        return refundAmount;
+    }
+}
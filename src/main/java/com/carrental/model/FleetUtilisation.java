@@ -0,0 +1,126 @@
+package com.carrental.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One bucket of the fleet utilisation time series (per day or per hour)
+ * Occupied vehicle-minutes and peak concurrently rented vehicles for a location and category;
+ * a null location or category is the total over all of them. Buckets without any rental are not stored.
+ * Built by FleetUtilisationService from contract rental intervals.
+ */
+@Entity
+@Table(name = "fleet_utilisation", indexes = {
+    @Index(name = "idx_fleet_util_bucket", columnList = "granularity, bucket_start")
+})
+public class FleetUtilisation {
+
+    public enum Granularity {
+        DAY(24 * 60),
+        HOUR(60);
+
+        private final long minutes;
+
+        Granularity(long minutes) {
+            this.minutes = minutes;
+        }
+
+        public long getMinutes() {
+            return minutes;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "utilisation_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "location_id")
+    private Long locationId;
+
+    @Column(length = 20)
+    private String category;
+
+    @Column(name = "occupied_minutes", nullable = false)
+    private Long occupiedMinutes;
+
+    @Column(name = "peak_occupied", nullable = false)
+    private Integer peakOccupied;
+
+    public FleetUtilisation() {
+    }
+
+    public FleetUtilisation(Granularity granularity, LocalDateTime bucketStart, Long locationId, String category,
+                            long occupiedMinutes, int peakOccupied) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.locationId = locationId;
+        this.category = category;
+        this.occupiedMinutes = occupiedMinutes;
+        this.peakOccupied = peakOccupied;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public Long getLocationId() {
+        return locationId;
+    }
+
+    public void setLocationId(Long locationId) {
+        this.locationId = locationId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Long getOccupiedMinutes() {
+        return occupiedMinutes;
+    }
+
+    public void setOccupiedMinutes(Long occupiedMinutes) {
+        this.occupiedMinutes = occupiedMinutes;
+    }
+
+    public Integer getPeakOccupied() {
+        return peakOccupied;
+    }
+
+    public void setPeakOccupied(Integer peakOccupied) {
+        this.peakOccupied = peakOccupied;
+    }
+}
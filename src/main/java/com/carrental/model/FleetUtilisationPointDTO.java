@@ -0,0 +1,66 @@
+package com.carrental.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one point of the fleet utilisation chart on the reports page
+ * Average and peak rented vehicles in a day or hour, against the current fleet size
+ */
+public class FleetUtilisationPointDTO {
+    private final LocalDateTime bucketStart;
+    private final FleetUtilisation.Granularity granularity;
+    private final long occupiedMinutes;
+    private final int peakOccupied;
+    private final long fleetSize;
+
+    public FleetUtilisationPointDTO(LocalDateTime bucketStart, FleetUtilisation.Granularity granularity,
+                                    long occupiedMinutes, int peakOccupied, long fleetSize) {
+        this.bucketStart = bucketStart;
+        this.granularity = granularity;
+        this.occupiedMinutes = occupiedMinutes;
+        this.peakOccupied = peakOccupied;
+        this.fleetSize = fleetSize;
+    }
+
+    /**
+     * Vehicles rented on average over the bucket
+     */
+    public BigDecimal getAverageOccupied() {
+        return BigDecimal.valueOf(occupiedMinutes)
+            .divide(BigDecimal.valueOf(granularity.getMinutes()), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Average rented vehicles as a percentage of the fleet
+     */
+    public BigDecimal getUtilisationRate() {
+        if (fleetSize == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.valueOf(occupiedMinutes * 100)
+            .divide(BigDecimal.valueOf(granularity.getMinutes() * fleetSize), 1, RoundingMode.HALF_UP);
+    }
+
+    // Getters
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public FleetUtilisation.Granularity getGranularity() {
+        return granularity;
+    }
+
+    public long getOccupiedMinutes() {
+        return occupiedMinutes;
+    }
+
+    public int getPeakOccupied() {
+        return peakOccupied;
+    }
+
+    public long getFleetSize() {
+        return fleetSize;
+    }
+}
@@ -0,0 +1,37 @@
+package com.carrental.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One page of rows ordered by (createdAt, id) and the cursor for the next page
+ * The cursor is the (createdAt, id) of the last row in sort order; it is null when there is no next page.
+ */
+public class KeysetPage<T> {
+    private final List<T> items;
+    private final LocalDateTime nextBefore;
+    private final Long nextBeforeId;
+
+    public KeysetPage(List<T> items, LocalDateTime nextBefore, Long nextBeforeId) {
+        this.items = items;
+        this.nextBefore = nextBefore;
+        this.nextBeforeId = nextBeforeId;
+    }
+
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public LocalDateTime getNextBefore() {
+        return nextBefore;
+    }
+
+    public Long getNextBeforeId() {
+        return nextBeforeId;
+    }
+
+    public boolean isHasMore() {
+        return nextBeforeId != null;
+    }
+}
@@ -0,0 +1,62 @@
+package com.carrental.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Snapshot of the balance of a ledger account for one contract
+ * Built incrementally from ledger entries by the ledger snapshot job
+ */
+@Entity
+@Table(name = "ledger_contract_balances", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_ledger_contract", columnNames = {"contract_id", "account"})
+})
+public class LedgerContractBalance {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "balance_id")
+    private Long id;
+
+    @Column(name = "contract_id", nullable = false)
+    private Long contractId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private LedgerEntry.Account account;
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal balance;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getContractId() {
+        return contractId;
+    }
+
+    public void setContractId(Long contractId) {
+        this.contractId = contractId;
+    }
+
+    public LedgerEntry.Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(LedgerEntry.Account account) {
+        this.account = account;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+}
@@ -0,0 +1,74 @@
+package com.carrental.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Snapshot of debit/credit totals per ledger account and business day
+ * Built incrementally from ledger entries by the ledger snapshot job
+ */
+@Entity
+@Table(name = "ledger_daily_totals", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_ledger_daily", columnNames = {"business_date", "account"})
+})
+public class LedgerDailyTotal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "total_id")
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private LedgerEntry.Account account;
+
+    @Column(name = "debit_total", nullable = false, precision = 18, scale = 2)
+    private BigDecimal debitTotal;
+
+    @Column(name = "credit_total", nullable = false, precision = 18, scale = 2)
+    private BigDecimal creditTotal;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+
+    public void setBusinessDate(LocalDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    public LedgerEntry.Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(LedgerEntry.Account account) {
+        this.account = account;
+    }
+
+    public BigDecimal getDebitTotal() {
+        return debitTotal;
+    }
+
+    public void setDebitTotal(BigDecimal debitTotal) {
+        this.debitTotal = debitTotal;
+    }
+
+    public BigDecimal getCreditTotal() {
+        return creditTotal;
+    }
+
+    public void setCreditTotal(BigDecimal creditTotal) {
+        this.creditTotal = creditTotal;
+    }
+}
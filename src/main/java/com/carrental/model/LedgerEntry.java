@@ -0,0 +1,138 @@
+package com.carrental.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One line of a double-entry journal in the payment ledger (append-only)
+ * amount is signed: positive = debit, negative = credit; the lines of one
+ * journal (same journalKey) always sum to zero.
+ */
+@Entity
+@Table(name = "ledger_entries", uniqueConstraints = {
+    // One line per account and journal; also makes posting a journal twice fail
+    @UniqueConstraint(name = "uk_ledger_journal", columnNames = {"journal_key", "account"})
+}, indexes = {
+    @Index(name = "idx_ledger_contract", columnList = "contract_id, entry_id"),
+    @Index(name = "idx_ledger_date", columnList = "business_date")
+})
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "entry_id")
+    private Long id;
+
+    @Column(name = "journal_key", nullable = false, length = 64)
+    private String journalKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Account account;
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "contract_id")
+    private Long contractId;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(length = 255)
+    private String description;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Accounts of the payment ledger
+     * CASH: money received from / paid back to customers (asset, debit balance)
+     * CUSTOMER_DEPOSITS: deposits held for customers (liability, credit balance)
+     * RENTAL_REVENUE: paid rental bills (income, credit balance)
+     * DEPOSIT_DEDUCTIONS: part of a deposit kept for fees and traffic fines (income, credit balance)
+     */
+    public enum Account {
+        CASH,
+        CUSTOMER_DEPOSITS,
+        RENTAL_REVENUE,
+        DEPOSIT_DEDUCTIONS
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJournalKey() {
+        return journalKey;
+    }
+
+    public void setJournalKey(String journalKey) {
+        this.journalKey = journalKey;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public void setAccount(Account account) {
+        this.account = account;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public Long getContractId() {
+        return contractId;
+    }
+
+    public void setContractId(Long contractId) {
+        this.contractId = contractId;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public void setPaymentId(Long paymentId) {
+        this.paymentId = paymentId;
+    }
+
+    public LocalDate getBusinessDate() {
+        return businessDate;
+    }
+
+    public void setBusinessDate(LocalDate businessDate) {
+        this.businessDate = businessDate;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,44 @@
+package com.carrental.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Named counter used to generate business numbers (bill, contract, ticket)
+ * nextValue is the first value not yet handed out to any application instance;
+ * instances reserve blocks of values by moving it forward.
+ */
+@Entity
+@Table(name = "number_sequences")
+public class NumberSequence {
+    @Id
+    @Column(name = "sequence_name", length = 50)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    public NumberSequence() {
+    }
+
+    public NumberSequence(String name, Long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getNextValue() {
+        return nextValue;
+    }
+
+    public void setNextValue(Long nextValue) {
+        this.nextValue = nextValue;
+    }
+}
@@ -0,0 +1,78 @@
+package com.carrental.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one row of the payment export
+ * Read with a constructor expression so exported rows never become managed entities
+ */
+public class PaymentExportRowDTO {
+    private final Long paymentId;
+    private final String billNumber;
+    private final String transactionRef;
+    private final String contractNumber;
+    private final String customerName;
+    private final Payment.PaymentType paymentType;
+    private final Payment.PaymentMethod paymentMethod;
+    private final Payment.PaymentStatus status;
+    private final BigDecimal amount;
+    private final LocalDateTime paymentDate;
+
+    public PaymentExportRowDTO(Long paymentId, String billNumber, String transactionRef, String contractNumber,
+                               String customerName, Payment.PaymentType paymentType,
+                               Payment.PaymentMethod paymentMethod, Payment.PaymentStatus status,
+                               BigDecimal amount, LocalDateTime paymentDate) {
+        this.paymentId = paymentId;
+        this.billNumber = billNumber;
+        this.transactionRef = transactionRef;
+        this.contractNumber = contractNumber;
+        this.customerName = customerName;
+        this.paymentType = paymentType;
+        this.paymentMethod = paymentMethod;
+        this.status = status;
+        this.amount = amount;
+        this.paymentDate = paymentDate;
+    }
+
+    // Getters
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public String getBillNumber() {
+        return billNumber;
+    }
+
+    public String getTransactionRef() {
+        return transactionRef;
+    }
+
+    public String getContractNumber() {
+        return contractNumber;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public Payment.PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public Payment.PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public Payment.PaymentStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getPaymentDate() {
+        return paymentDate;
+    }
+}
@@ -0,0 +1,52 @@
+package com.carrental.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a pending online payment checked by the reconciliation job
+ * Only the columns needed to query the gateway (no contract graph)
+ */
+public class StalePaymentDTO {
+    private final Long paymentId;
+    private final String transactionRef;
+    private final Payment.PaymentType paymentType;
+    private final BigDecimal amount;
+    private final String paymentUrl;
+    private final LocalDateTime updatedAt;
+
+    public StalePaymentDTO(Long paymentId, String transactionRef, Payment.PaymentType paymentType,
+                           BigDecimal amount, String paymentUrl, LocalDateTime updatedAt) {
+        this.paymentId = paymentId;
+        this.transactionRef = transactionRef;
+        this.paymentType = paymentType;
+        this.amount = amount;
+        this.paymentUrl = paymentUrl;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public Long getPaymentId() {
+        return paymentId;
+    }
+
+    public String getTransactionRef() {
+        return transactionRef;
+    }
+
+    public Payment.PaymentType getPaymentType() {
+        return paymentType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getPaymentUrl() {
+        return paymentUrl;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
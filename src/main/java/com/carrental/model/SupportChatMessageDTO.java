@@ -0,0 +1,35 @@
+package com.carrental.model;
+
+/**
+ * A conversation message as pushed to the live support chat (JSON over Server-Sent Events)
+ */
+public class SupportChatMessageDTO {
+    private final Long id;
+    private final String senderName;
+    private final String messageText;
+    private final String createdAt;
+
+    public SupportChatMessageDTO(Long id, String senderName, String messageText, String createdAt) {
+        this.id = id;
+        this.senderName = senderName;
+        this.messageText = messageText;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public String getMessageText() {
+        return messageText;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "support_messages")
+@Table(name = "support_messages", indexes = {
+    @Index(name = "idx_support_messages_ticket_created", columnList = "ticket_id, created_at")
+})
 public class SupportMessage {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "support_tickets")
+@Table(name = "support_tickets", indexes = {
+    @Index(name = "idx_support_tickets_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_support_tickets_created", columnList = "created_at")
+})
 public class SupportTicket {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -37,6 +37,18 @@ public class VehicleUsageDTO {
         this.totalRevenue = totalRevenue;
     }
 
+    /**
+     * Constructor for the per-vehicle aggregate query (ContractRepository.findVehicleUsage)
+     */
+    public VehicleUsageDTO(Long vehicleId, String licensePlate, String brandName, String modelName,
+                          String category, Vehicle.VehicleStatus status, Long rentalCount,
+                          Long totalDaysRented, BigDecimal totalRevenue) {
+        this(vehicleId, licensePlate, brandName, modelName, category, rentalCount,
+             totalDaysRented != null ? totalDaysRented : 0L,
+             totalRevenue != null ? totalRevenue : BigDecimal.ZERO);
+        this.currentStatus = status != null ? status.name() : null;
+    }
+
     // Getters and Setters
     public Long getVehicleId() {
         return vehicleId;
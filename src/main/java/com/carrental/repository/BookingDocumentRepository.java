@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -35,5 +36,13 @@ public interface BookingDocumentRepository extends JpaRepository<BookingDocument
            "LEFT JOIN FETCH d.user " +
            "WHERE bd.booking.id = :bookingId")
     List<BookingDocument> findByBookingIdWithDocuments(@Param("bookingId") Long bookingId);
+
+    /**
+     * Find documents for several bookings at once with document details loaded (bulk approval)
+     */
+    @Query("SELECT bd FROM BookingDocument bd " +
+           "LEFT JOIN FETCH bd.document d " +
+           "WHERE bd.booking.id IN :bookingIds")
+    List<BookingDocument> findByBookingIdsWithDocuments(@Param("bookingIds") Collection<Long> bookingIds);
 }
 
@@ -1,6 +1,9 @@
 package com.carrental.repository;
 
 import com.carrental.model.Booking;
+import com.carrental.model.Payment;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,6 +43,20 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            "WHERE b.id = :id")
     Optional<Booking> findByIdWithRelations(@Param("id") Long id);
 
+    /**
+     * Find several bookings by ID with all relationships loaded (bulk actions)
+     */
+    @Query("SELECT b FROM Booking b " +
+           "LEFT JOIN FETCH b.customer " +
+           "LEFT JOIN FETCH b.vehicle v " +
+           "LEFT JOIN FETCH v.model m " +
+           "LEFT JOIN FETCH m.brand " +
+           "LEFT JOIN FETCH b.pickupLocation " +
+           "LEFT JOIN FETCH b.returnLocation " +
+           "LEFT JOIN FETCH b.assignedStaff " +
+           "WHERE b.id IN :ids")
+    List<Booking> findAllByIdWithRelations(@Param("ids") Collection<Long> ids);
+
     /**
      * Find all bookings with relationships loaded
      * Ordered by created date descending (newest first)
@@ -156,6 +174,16 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
            "AND b.statusString = 'Pending'")
     long countPendingBookingsByStaffId(@Param("staffId") Long staffId);
 
+    /**
+     * Count pending bookings per assigned staff and pickup location in one query
+     * Returns rows of [staffId, pickupLocationId, count]; used to seed the staff assignment engine
+     */
+    @Query("SELECT b.assignedStaff.id, b.pickupLocation.id, COUNT(b) FROM Booking b " +
+           "WHERE b.assignedStaff IS NOT NULL " +
+           "AND b.statusString = 'Pending' " +
+           "GROUP BY b.assignedStaff.id, b.pickupLocation.id")
+    List<Object[]> countPendingBookingsByStaffAndPickupLocation();
+
     /**
      * Check if vehicle is available for booking in a date range
      * Returns count of conflicting bookings (should be 0 for available)
@@ -185,6 +213,34 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByCustomerIdAndStatusWithRelations(@Param("customerId") Long customerId,
                                                          @Param("status") String status);
 
+    /**
+     * Page of a customer's bookings together with their contract and rental bill payment
+     * One row per booking: [Booking, Contract or null, Payment or null]
+     * Contract is one-to-one with booking; the first RENTAL payment is used (same as PaymentService.getRentalPayment)
+     * @param status Booking status value (e.g. 'Pending'), or null for all
+     */
+    @Query(value = "SELECT b, c, p FROM Booking b " +
+           "LEFT JOIN FETCH b.customer " +
+           "LEFT JOIN FETCH b.vehicle v " +
+           "LEFT JOIN FETCH v.model m " +
+           "LEFT JOIN FETCH m.brand " +
+           "LEFT JOIN FETCH b.pickupLocation " +
+           "LEFT JOIN FETCH b.returnLocation " +
+           "LEFT JOIN FETCH b.assignedStaff " +
+           "LEFT JOIN Contract c ON c.booking = b " +
+           "LEFT JOIN Payment p ON p.contract = c AND p.id = " +
+           "  (SELECT MIN(p2.id) FROM Payment p2 WHERE p2.contract = c AND p2.paymentType = :paymentType) " +
+           "WHERE b.customer.id = :customerId " +
+           "AND (:status IS NULL OR b.statusString = :status) " +
+           "ORDER BY b.createdAt DESC",
+           countQuery = "SELECT COUNT(b) FROM Booking b " +
+           "WHERE b.customer.id = :customerId " +
+           "AND (:status IS NULL OR b.statusString = :status)")
+    Page<Object[]> findCustomerBookingRows(@Param("customerId") Long customerId,
+                                           @Param("status") String status,
+                                           @Param("paymentType") Payment.PaymentType paymentType,
+                                           Pageable pageable);
+
     /**
      * Update booking status directly in database
      * Use this for critical status updates to ensure they are persisted
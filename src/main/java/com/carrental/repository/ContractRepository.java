@@ -1,23 +1,38 @@
 package com.carrental.repository;
 
 import com.carrental.model.Contract;
+import com.carrental.model.ContractExportRowDTO;
+import com.carrental.model.VehicleUsageDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ContractRepository extends JpaRepository<Contract, Long> {
     Optional<Contract> findByBookingId(Long bookingId);
+
+    // Booking IDs (among the given ones) that already have a contract
+    @Query("SELECT c.booking.id FROM Contract c WHERE c.booking.id IN :bookingIds")
+    List<Long> findBookingIdsWithContract(@Param("bookingIds") Collection<Long> bookingIds);
     Optional<Contract> findByContractNumber(String contractNumber);
     List<Contract> findByStatus(Contract.ContractStatus status);
 
+    // Contracts of a customer (idx_customer_status)
+    List<Contract> findByCustomerId(Long customerId);
+    List<Contract> findByCustomerIdAndStatus(Long customerId, Contract.ContractStatus status);
+
     // Paginated contracts by status
     Page<Contract> findByStatus(Contract.ContractStatus status, Pageable pageable);
     
@@ -26,6 +41,9 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     
     // Find contracts by staff ID and status (contract.staff_id)
     Page<Contract> findByStaffIdAndStatus(Long staffId, Contract.ContractStatus status, Pageable pageable);
+
+    // Find contracts by staff ID and status, non-paginated (idx_staff_status)
+    List<Contract> findByStaffIdAndStatus(Long staffId, Contract.ContractStatus status);
     
     // Find contracts by booking assigned staff ID (booking.assigned_staff_id)
     // Only includes contracts that have a booking with assigned staff
@@ -102,16 +120,42 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
     List<Contract> findByVehicleIdAndActiveOrCompleted(@Param("vehicleId") Long vehicleId);
     
     /**
-     * Get all contracts with vehicle details for usage report
+     * Per-vehicle usage for contracts created within a date range (ACTIVE/COMPLETED),
+     * aggregated in the database, highest revenue first
      */
-    @Query("SELECT c FROM Contract c " +
-           "LEFT JOIN FETCH c.vehicle v " +
-           "LEFT JOIN FETCH v.model m " +
-           "LEFT JOIN FETCH m.brand b " +
+    @Query("SELECT new com.carrental.model.VehicleUsageDTO(" +
+           "v.id, v.licensePlate, b.brandName, m.modelName, m.category, v.status, " +
+           "COUNT(c), SUM(c.totalDays), SUM(c.totalRentalFee)) " +
+           "FROM Contract c JOIN c.vehicle v JOIN v.model m JOIN m.brand b " +
            "WHERE c.status IN ('ACTIVE', 'COMPLETED') " +
-           "AND c.createdAt >= :startDate AND c.createdAt <= :endDate")
-    List<Contract> findActiveAndCompletedContractsWithVehicle(@Param("startDate") LocalDateTime startDate,
-                                                              @Param("endDate") LocalDateTime endDate);
+           "AND c.createdAt >= :startDate AND c.createdAt <= :endDate " +
+           "GROUP BY v.id, v.licensePlate, b.brandName, m.modelName, m.category, v.status " +
+           "ORDER BY SUM(c.totalRentalFee) DESC")
+    List<VehicleUsageDTO> findVehicleUsage(@Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Rental intervals [vehicleId, startDate, endDate] of ACTIVE/COMPLETED contracts overlapping a range
+     */
+    @Query("SELECT c.vehicle.id, c.startDate, c.endDate FROM Contract c " +
+           "WHERE c.status IN ('ACTIVE', 'COMPLETED') " +
+           "AND c.startDate < :endDate AND c.endDate > :startDate")
+    List<Object[]> findRentalIntervalsOverlapping(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Rental intervals with the vehicle's fleet group, for the utilisation time series:
+     * [vehicleId, locationId, category, startDate, endDate] of ACTIVE/COMPLETED contracts overlapping a range
+     */
+    @Query("SELECT v.id, v.location.id, m.category, c.startDate, c.endDate FROM Contract c " +
+           "JOIN c.vehicle v JOIN v.model m " +
+           "WHERE c.status IN ('ACTIVE', 'COMPLETED') " +
+           "AND c.startDate < :endDate AND c.endDate > :startDate")
+    List<Object[]> findFleetRentalIntervals(@Param("startDate") LocalDateTime startDate,
+                                            @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(c.startDate) FROM Contract c WHERE c.status IN ('ACTIVE', 'COMPLETED')")
+    LocalDateTime findEarliestRentalStart();
 
     /**
      * Check if vehicle has active contracts (ACTIVE or PENDING_PAYMENT) that overlap with date range
@@ -146,4 +190,53 @@ public interface ContractRepository extends JpaRepository<Contract, Long> {
            "ORDER BY c.startDate ASC")
     List<Contract> findActiveContractsInRange(@Param("vehicleId") Long vehicleId,
                                               @Param("startDate") LocalDateTime startDate);
+
+    /**
+     * Find contracts in a status created before a cutoff, paged by ID (keyset)
+     * Used by the reservation sweeper to expire stale PENDING_PAYMENT contracts in batches
+     */
+    @Query("SELECT c FROM Contract c " +
+           "WHERE c.status = :status " +
+           "AND c.createdAt < :cutoff " +
+           "AND c.id > :afterId " +
+           "ORDER BY c.id ASC")
+    List<Contract> findByStatusCreatedBefore(@Param("status") Contract.ContractStatus status,
+                                             @Param("cutoff") LocalDateTime cutoff,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    /**
+     * IDs of contracts created within a date range, oldest first (bulk PDF export)
+     */
+    @Query("SELECT c.id FROM Contract c " +
+           "WHERE c.createdAt >= :startDate AND c.createdAt < :endDate " +
+           "ORDER BY c.createdAt ASC, c.id ASC")
+    List<Long> findIdsCreatedBetween(@Param("startDate") LocalDateTime startDate,
+                                     @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Load contracts with everything the PDF prints, so they can be rendered outside a session
+     */
+    @Query("SELECT c FROM Contract c " +
+           "JOIN FETCH c.customer " +
+           "JOIN FETCH c.vehicle v " +
+           "JOIN FETCH v.model m " +
+           "JOIN FETCH m.brand " +
+           "LEFT JOIN FETCH c.booking " +
+           "WHERE c.id IN :ids")
+    List<Contract> findForPdfByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Stream contracts created within a range for export, oldest first
+     * (streamed row by row like PaymentRepository.streamForExport)
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.carrental.model.ContractExportRowDTO(" +
+           "c.id, c.contractNumber, c.status, cu.fullName, cu.email, v.licensePlate, b.brandName, m.modelName, " +
+           "c.startDate, c.endDate, c.totalDays, c.dailyRate, c.totalRentalFee, c.depositAmount, c.createdAt) " +
+           "FROM Contract c JOIN c.customer cu JOIN c.vehicle v JOIN v.model m JOIN m.brand b " +
+           "WHERE c.createdAt >= :startDate AND c.createdAt <= :endDate " +
+           "ORDER BY c.createdAt ASC, c.id ASC")
+    Stream<ContractExportRowDTO> streamForExport(@Param("startDate") LocalDateTime startDate,
+                                                 @Param("endDate") LocalDateTime endDate);
 }
@@ -2,10 +2,18 @@ package com.carrental.repository;
 
 import com.carrental.model.DepositHold;
 import com.carrental.model.DepositHold.DepositStatus;
+import com.carrental.model.DepositHoldSummaryDTO;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +22,69 @@ public interface DepositHoldRepository extends JpaRepository<DepositHold, Long>
     Optional<DepositHold> findByContractId(Long contractId);
     List<DepositHold> findByStatus(DepositStatus status);
     List<DepositHold> findByHoldEndDateBeforeAndStatus(LocalDateTime date, DepositStatus status);
+
+    // Deposits for contracts whose booking is assigned to the staff member (booking.assigned_staff_id)
+    @Query("SELECT d FROM DepositHold d " +
+           "WHERE d.contract.booking.assignedStaff.id = :assignedStaffId")
+    List<DepositHold> findByBookingAssignedStaffId(@Param("assignedStaffId") Long assignedStaffId);
+
+    @Query("SELECT d FROM DepositHold d " +
+           "WHERE d.contract.booking.assignedStaff.id = :assignedStaffId " +
+           "AND d.status = :status")
+    List<DepositHold> findByBookingAssignedStaffIdAndStatus(@Param("assignedStaffId") Long assignedStaffId,
+                                                           @Param("status") DepositStatus status);
+
+    // IDs of holds due for refund (READY, or HOLDING past hold_end_date) without a refund yet,
+    // in ID order after afterId (keyset paging for the batch refund job)
+    @Query("SELECT d.id FROM DepositHold d " +
+           "WHERE d.id > :afterId " +
+           "AND (d.status = com.carrental.model.DepositHold.DepositStatus.READY " +
+           "     OR (d.status = com.carrental.model.DepositHold.DepositStatus.HOLDING AND d.holdEndDate < :now)) " +
+           "AND NOT EXISTS (SELECT r.id FROM Refund r WHERE r.depositHold = d) " +
+           "ORDER BY d.id")
+    List<Long> findIdsDueForRefund(@Param("now") LocalDateTime now,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    // Holds with their contract and customer loaded in the same query
+    @Query("SELECT d FROM DepositHold d " +
+           "JOIN FETCH d.contract c " +
+           "JOIN FETCH c.customer " +
+           "WHERE d.id IN :ids")
+    List<DepositHold> findWithContractByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Amounts, cached fine total and refund state of the listed holds in one query
+    @Query("SELECT new com.carrental.model.DepositHoldSummaryDTO(" +
+           "d.id, d.status, d.depositAmount, d.deductedAtReturn, d.totalFines, r.id, r.status, r.refundAmount) " +
+           "FROM DepositHold d LEFT JOIN Refund r ON r.depositHold = d " +
+           "WHERE d.id IN :ids")
+    List<DepositHoldSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Recompute the cached fine total of one hold from its violations
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE DepositHold d SET d.totalFines = " +
+           "(SELECT COALESCE(SUM(v.fineAmount), 0) FROM TrafficViolation v WHERE v.depositHold.id = d.id) " +
+           "WHERE d.id = :holdId")
+    int refreshTotalFines(@Param("holdId") Long holdId);
+
+    // Fill the cached fine total of holds created before the column existed
+    @Modifying
+    @Query("UPDATE DepositHold d SET d.totalFines = " +
+           "(SELECT COALESCE(SUM(v.fineAmount), 0) FROM TrafficViolation v WHERE v.depositHold.id = d.id) " +
+           "WHERE d.totalFines IS NULL")
+    int fillMissingTotalFines();
+
+    // [holdId, holdEndDate] of every hold in a status (maturity wheel rebuild at startup)
+    @Query("SELECT d.id, d.holdEndDate FROM DepositHold d WHERE d.status = :status")
+    List<Object[]> findIdAndHoldEndDateByStatus(@Param("status") DepositStatus status);
+
+    // Holds among ids still in a status, locked so only one instance moves them on
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM DepositHold d WHERE d.id IN :ids AND d.status = :status")
+    List<DepositHold> findForUpdateByIdInAndStatus(@Param("ids") Collection<Long> ids,
+                                                   @Param("status") DepositStatus status);
+
+    @Modifying
+    @Query("UPDATE DepositHold d SET d.status = :status WHERE d.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("status") DepositStatus status);
 }
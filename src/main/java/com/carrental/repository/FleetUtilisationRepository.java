@@ -0,0 +1,45 @@
+package com.carrental.repository;
+
+import com.carrental.model.FleetUtilisation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FleetUtilisationRepository extends JpaRepository<FleetUtilisation, Long> {
+
+    @Query("SELECT MAX(f.bucketStart) FROM FleetUtilisation f WHERE f.granularity = :granularity")
+    LocalDateTime findLastBucketStart(@Param("granularity") FleetUtilisation.Granularity granularity);
+
+    /**
+     * Remove every bucket (both granularities) starting within [from, to), before it is rebuilt
+     */
+    @Modifying
+    @Query("DELETE FROM FleetUtilisation f WHERE f.bucketStart >= :from AND f.bucketStart < :to")
+    int deleteBucketsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("DELETE FROM FleetUtilisation f WHERE f.granularity = :granularity AND f.bucketStart < :cutoff")
+    int deleteBucketsBefore(@Param("granularity") FleetUtilisation.Granularity granularity,
+                            @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Stored buckets of one series; a null location/category selects the total over all of them
+     */
+    @Query("SELECT f FROM FleetUtilisation f " +
+           "WHERE f.granularity = :granularity " +
+           "AND f.bucketStart >= :from AND f.bucketStart < :to " +
+           "AND ((:locationId IS NULL AND f.locationId IS NULL) OR f.locationId = :locationId) " +
+           "AND ((:category IS NULL AND f.category IS NULL) OR f.category = :category) " +
+           "ORDER BY f.bucketStart ASC")
+    List<FleetUtilisation> findSeries(@Param("granularity") FleetUtilisation.Granularity granularity,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to,
+                                      @Param("locationId") Long locationId,
+                                      @Param("category") String category);
+}
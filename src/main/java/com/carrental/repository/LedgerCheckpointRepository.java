@@ -0,0 +1,22 @@
+package com.carrental.repository;
+
+import com.carrental.model.LedgerCheckpoint;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, String> {
+
+    /**
+     * Load a checkpoint with a write lock so only one snapshot run advances it at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM LedgerCheckpoint c WHERE c.name = :name")
+    Optional<LedgerCheckpoint> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,17 @@
+package com.carrental.repository;
+
+import com.carrental.model.LedgerContractBalance;
+import com.carrental.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerContractBalanceRepository extends JpaRepository<LedgerContractBalance, Long> {
+
+    List<LedgerContractBalance> findByContractId(Long contractId);
+
+    Optional<LedgerContractBalance> findByContractIdAndAccount(Long contractId, LedgerEntry.Account account);
+}
@@ -0,0 +1,20 @@
+package com.carrental.repository;
+
+import com.carrental.model.LedgerDailyTotal;
+import com.carrental.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerDailyTotalRepository extends JpaRepository<LedgerDailyTotal, Long> {
+
+    Optional<LedgerDailyTotal> findByBusinessDateAndAccount(LocalDate businessDate, LedgerEntry.Account account);
+
+    List<LedgerDailyTotal> findByAccountAndBusinessDateBetweenOrderByBusinessDateAsc(LedgerEntry.Account account,
+                                                                                    LocalDate fromDate,
+                                                                                    LocalDate toDate);
+}
@@ -0,0 +1,49 @@
+package com.carrental.repository;
+
+import com.carrental.model.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    boolean existsByJournalKey(String journalKey);
+
+    /**
+     * Entries after afterId created before the cutoff, in ID order (next page for the snapshot job)
+     */
+    List<LedgerEntry> findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(Long afterId, LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Per-account sum of a contract's entries after afterId
+     * Returns Object[]: [account, sum]
+     */
+    @Query("SELECT e.account, SUM(e.amount) FROM LedgerEntry e " +
+           "WHERE e.contractId = :contractId AND e.id > :afterId " +
+           "GROUP BY e.account")
+    List<Object[]> sumByAccountForContractAfter(@Param("contractId") Long contractId,
+                                                @Param("afterId") Long afterId);
+
+    /**
+     * Per-day debit and credit totals of one account for entries after afterId
+     * Returns Object[]: [businessDate, debitTotal, creditTotal]
+     */
+    @Query("SELECT e.businessDate, " +
+           "SUM(CASE WHEN e.amount > 0 THEN e.amount ELSE 0 END), " +
+           "SUM(CASE WHEN e.amount < 0 THEN -e.amount ELSE 0 END) " +
+           "FROM LedgerEntry e " +
+           "WHERE e.account = :account AND e.id > :afterId " +
+           "AND e.businessDate >= :fromDate AND e.businessDate <= :toDate " +
+           "GROUP BY e.businessDate")
+    List<Object[]> sumDailyAfter(@Param("account") LedgerEntry.Account account,
+                                 @Param("afterId") Long afterId,
+                                 @Param("fromDate") LocalDate fromDate,
+                                 @Param("toDate") LocalDate toDate);
+}
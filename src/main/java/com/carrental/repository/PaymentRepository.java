@@ -2,15 +2,24 @@ package com.carrental.repository;
 
 import com.carrental.model.Contract;
 import com.carrental.model.Payment;
+import com.carrental.model.PaymentExportRowDTO;
+import com.carrental.model.StalePaymentDTO;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
@@ -26,6 +35,69 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      */
     Optional<Payment> findByTransactionRef(String transactionRef);
 
+    /**
+     * Apply a payment gateway result only if the payment is still in one of the expected statuses
+     * (compare-and-set on status). Concurrent or repeated callbacks for the same transaction
+     * update at most one row; the others see 0 rows updated.
+     * paymentDate and gatewayTransactionId keep their current value when null is passed.
+     * @return number of rows updated (0 or 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :newStatus, " +
+           "p.paymentDate = COALESCE(:paymentDate, p.paymentDate), " +
+           "p.gatewayTransactionId = COALESCE(:gatewayTransactionId, p.gatewayTransactionId), " +
+           "p.gatewayResponseCode = :responseCode, " +
+           "p.gatewayTransactionStatus = :transactionStatus, " +
+           "p.gatewayBankCode = :bankCode, " +
+           "p.gatewayCardType = :cardType, " +
+           "p.gatewayPayDate = :payDate, " +
+           "p.gatewaySecureHash = :secureHash " +
+           "WHERE p.transactionRef = :transactionRef " +
+           "AND p.status IN :expectedStatuses")
+    int applyGatewayResult(@Param("transactionRef") String transactionRef,
+                           @Param("expectedStatuses") Collection<Payment.PaymentStatus> expectedStatuses,
+                           @Param("newStatus") Payment.PaymentStatus newStatus,
+                           @Param("paymentDate") LocalDateTime paymentDate,
+                           @Param("gatewayTransactionId") String gatewayTransactionId,
+                           @Param("responseCode") String responseCode,
+                           @Param("transactionStatus") String transactionStatus,
+                           @Param("bankCode") String bankCode,
+                           @Param("cardType") String cardType,
+                           @Param("payDate") String payDate,
+                           @Param("secureHash") String secureHash);
+
+    /**
+     * Change payment status only if it is still in one of the expected statuses (compare-and-set)
+     * @return number of rows updated (0 or 1)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = :newStatus " +
+           "WHERE p.transactionRef = :transactionRef " +
+           "AND p.status IN :expectedStatuses")
+    int updateStatusIfIn(@Param("transactionRef") String transactionRef,
+                         @Param("expectedStatuses") Collection<Payment.PaymentStatus> expectedStatuses,
+                         @Param("newStatus") Payment.PaymentStatus newStatus);
+
+    /**
+     * Pending online payments not touched since the cutoff, in ID order after afterId (keyset paging)
+     * Used by the reconciliation job; only payments sent to the gateway have a transaction reference.
+     */
+    @Query("SELECT new com.carrental.model.StalePaymentDTO(p.id, p.transactionRef, p.paymentType, p.amount, p.paymentUrl, p.updatedAt) " +
+           "FROM Payment p " +
+           "WHERE p.status = 'PENDING' " +
+           "AND p.transactionRef IS NOT NULL " +
+           "AND p.updatedAt < :cutoff " +
+           "AND p.id > :afterId " +
+           "ORDER BY p.id")
+    List<StalePaymentDTO> findStalePendingPayments(@Param("cutoff") LocalDateTime cutoff,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    /**
+     * Payments with a status after afterId, in ID order (keyset paging for the ledger backfill)
+     */
+    List<Payment> findByStatusAndIdGreaterThanOrderByIdAsc(Payment.PaymentStatus status, Long afterId, Pageable pageable);
+
     /**
      * Find payment by bill number
      */
@@ -89,4 +161,19 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      */
     @Query("SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.status = 'PENDING'")
     BigDecimal getTotalPendingAmount();
+
+    /**
+     * Stream payments dated within a range for export, oldest first
+     * Fetch size MIN_VALUE makes MySQL Connector/J stream rows instead of buffering the result;
+     * must be consumed inside a read-only transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT new com.carrental.model.PaymentExportRowDTO(" +
+           "p.id, p.billNumber, p.transactionRef, c.contractNumber, cu.fullName, " +
+           "p.paymentType, p.paymentMethod, p.status, p.amount, p.paymentDate) " +
+           "FROM Payment p LEFT JOIN p.contract c LEFT JOIN c.customer cu " +
+           "WHERE p.paymentDate >= :startDate AND p.paymentDate <= :endDate " +
+           "ORDER BY p.paymentDate ASC, p.id ASC")
+    Stream<PaymentExportRowDTO> streamForExport(@Param("startDate") LocalDateTime startDate,
+                                                @Param("endDate") LocalDateTime endDate);
 }
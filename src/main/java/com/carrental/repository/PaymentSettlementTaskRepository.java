@@ -0,0 +1,19 @@
+package com.carrental.repository;
+
+import com.carrental.model.PaymentSettlementTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentSettlementTaskRepository extends JpaRepository<PaymentSettlementTask, Long> {
+
+    /**
+     * IDs of tasks with the given status in arrival order (used to re-queue pending work at startup)
+     */
+    @Query("SELECT t.id FROM PaymentSettlementTask t WHERE t.status = :status ORDER BY t.id")
+    List<Long> findIdsByStatus(@Param("status") PaymentSettlementTask.TaskStatus status);
+}
@@ -3,8 +3,11 @@ package com.carrental.repository;
 import com.carrental.model.Refund;
 import com.carrental.model.Refund.RefundStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +16,7 @@ public interface RefundRepository extends JpaRepository<Refund, Long> {
     List<Refund> findByContractId(Long contractId);
     Optional<Refund> findByDepositHoldId(Long depositHoldId);
     List<Refund> findByStatus(RefundStatus status);
+
+    @Query("SELECT r.depositHold.id FROM Refund r WHERE r.depositHold.id IN :depositHoldIds")
+    List<Long> findDepositHoldIdsWithRefund(@Param("depositHoldIds") Collection<Long> depositHoldIds);
 }
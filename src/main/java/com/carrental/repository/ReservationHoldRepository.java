@@ -0,0 +1,39 @@
+package com.carrental.repository;
+
+import com.carrental.model.ReservationHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReservationHoldRepository extends JpaRepository<ReservationHold, Long> {
+
+    /**
+     * Find all holds that have not expired yet (used to rebuild the in-memory index at startup)
+     */
+    @Query("SELECT h FROM ReservationHold h " +
+           "JOIN FETCH h.vehicle " +
+           "JOIN FETCH h.customer " +
+           "WHERE h.expiresAt > :now")
+    List<ReservationHold> findUnexpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Delete all expired holds in a single statement
+     */
+    @Modifying
+    @Query("DELETE FROM ReservationHold h WHERE h.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Delete the hold a customer has on a vehicle
+     */
+    @Modifying
+    @Query("DELETE FROM ReservationHold h WHERE h.vehicle.id = :vehicleId AND h.customer.id = :customerId")
+    int deleteByVehicleIdAndCustomerId(@Param("vehicleId") Long vehicleId,
+                                       @Param("customerId") Long customerId);
+}
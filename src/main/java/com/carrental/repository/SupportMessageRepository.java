@@ -1,19 +1,41 @@
 package com.carrental.repository;
 
 import com.carrental.model.SupportMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SupportMessageRepository extends JpaRepository<SupportMessage, Long> {
     /**
-     * Find all messages for a ticket, ordered by creation time (oldest first)
+     * Latest conversation messages of a ticket older than the (before, beforeId) cursor, newest first
+     * Rating messages are shown separately and left out. Served by the (ticket_id, created_at) index.
      */
-    List<SupportMessage> findByTicketIdOrderByCreatedAtAsc(Long ticketId);
+    @Query("SELECT m FROM SupportMessage m " +
+           "JOIN FETCH m.sender " +
+           "WHERE m.ticket.id = :ticketId " +
+           "AND m.rating IS NULL " +
+           "AND (:before IS NULL OR m.createdAt < :before " +
+           "     OR (m.createdAt = :before AND m.id < :beforeId)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<SupportMessage> findConversationPage(@Param("ticketId") Long ticketId,
+                                              @Param("before") LocalDateTime before,
+                                              @Param("beforeId") Long beforeId,
+                                              Pageable pageable);
     
+    /**
+     * Conversation messages of a ticket after a message ID, oldest first
+     * Replays what a live chat viewer missed while their stream was reconnecting
+     */
+    List<SupportMessage> findByTicketIdAndIdGreaterThanAndRatingIsNullOrderByIdAsc(Long ticketId, Long afterId,
+                                                                                    Pageable pageable);
+
     /**
      * Find rated message for a ticket (for UC21: Rate Support)
      * A ticket should only have one message with a rating
@@ -2,9 +2,14 @@ package com.carrental.repository;
 
 import com.carrental.model.SupportTicket;
 import com.carrental.model.SupportTicket.TicketStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,13 +24,63 @@ public interface SupportTicketRepository extends JpaRepository<SupportTicket, Lo
      */
     List<SupportTicket> findByAssignedToId(Long staffId);
     
-    /**
-     * Find all tickets sorted by newest first (for staff/admin)
-     */
-    List<SupportTicket> findAllByOrderByCreatedAtDesc();
-    
     /**
      * Find tickets by status, sorted by newest first
      */
     List<SupportTicket> findByStatusOrderByCreatedAtDesc(TicketStatus status);
+
+    /**
+     * One page of tickets, newest first, older than the (before, beforeId) cursor (keyset paging)
+     * Status and assignee filters are optional (null = all); unassigned limits to tickets without
+     * a staff member. Served by the (status, created_at) index.
+     */
+    @Query("SELECT t FROM SupportTicket t " +
+           "LEFT JOIN FETCH t.customer " +
+           "LEFT JOIN FETCH t.assignedTo a " +
+           "WHERE (:status IS NULL OR t.status = :status) " +
+           "AND (:assigneeId IS NULL OR a.id = :assigneeId) " +
+           "AND (:unassigned = false OR a IS NULL) " +
+           "AND (:before IS NULL OR t.createdAt < :before " +
+           "     OR (t.createdAt = :before AND t.id < :beforeId)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<SupportTicket> findPage(@Param("status") TicketStatus status,
+                                 @Param("assigneeId") Long assigneeId,
+                                 @Param("unassigned") boolean unassigned,
+                                 @Param("before") LocalDateTime before,
+                                 @Param("beforeId") Long beforeId,
+                                 Pageable pageable);
+
+    /**
+     * Ticket counts per assignee, category and status (rebuild of the ticket routing engine)
+     * Rows: [staffId, category, status, count]
+     */
+    @Query("SELECT t.assignedTo.id, t.category, t.status, COUNT(t) FROM SupportTicket t " +
+           "WHERE t.assignedTo IS NOT NULL " +
+           "GROUP BY t.assignedTo.id, t.category, t.status")
+    List<Object[]> countAssignedByStaffCategoryAndStatus();
+
+    /**
+     * Ticket counts of one staff member per category and status
+     * Rows: [category, status, count]
+     */
+    @Query("SELECT t.category, t.status, COUNT(t) FROM SupportTicket t " +
+           "WHERE t.assignedTo.id = :staffId " +
+           "GROUP BY t.category, t.status")
+    List<Object[]> countByCategoryAndStatusForStaff(@Param("staffId") Long staffId);
+
+    /**
+     * Tickets of a staff member in the given statuses (re-routed when the staff member is deactivated)
+     */
+    List<SupportTicket> findByAssignedToIdAndStatusIn(Long staffId, Collection<TicketStatus> statuses);
+
+    /**
+     * Unassigned tickets in the given statuses, oldest first (routed when staff becomes available)
+     */
+    List<SupportTicket> findByAssignedToIsNullAndStatusInOrderByCreatedAtAsc(Collection<TicketStatus> statuses);
+
+    /**
+     * Highest ticket ID (0 if none), used to seed the ticket number sequence
+     */
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM SupportTicket t")
+    Long findMaxId();
 }
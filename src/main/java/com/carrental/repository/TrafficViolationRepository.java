@@ -7,13 +7,24 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TrafficViolationRepository extends JpaRepository<TrafficViolation, Long> {
     List<TrafficViolation> findByContractId(Long contractId);
     List<TrafficViolation> findByDepositHoldId(Long depositHoldId);
+    List<TrafficViolation> findByDepositHoldIdIn(Collection<Long> depositHoldIds);
     
     @Query("SELECT COALESCE(SUM(v.fineAmount), 0) FROM TrafficViolation v WHERE v.depositHold.id = :depositHoldId")
     BigDecimal sumFineAmountByDepositHoldId(@Param("depositHoldId") Long depositHoldId);
+
+    /**
+     * Fine totals for several deposit holds in one query
+     * Returns Object[]: [depositHoldId, sum]; holds without violations are not returned
+     */
+    @Query("SELECT v.depositHold.id, SUM(v.fineAmount) FROM TrafficViolation v " +
+           "WHERE v.depositHold.id IN :depositHoldIds " +
+           "GROUP BY v.depositHold.id")
+    List<Object[]> sumFineAmountByDepositHoldIds(@Param("depositHoldIds") Collection<Long> depositHoldIds);
 }
@@ -14,6 +14,9 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    List<User> findByRole(User.UserRole role);
+    List<User> findByRoleNot(User.UserRole role);
+    List<User> findByRoleAndStatus(User.UserRole role, User.UserStatus status);
     
     // ========== ANALYTICS QUERIES FOR REPORTS ==========
     
@@ -106,4 +106,12 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
      */
     @Query("SELECT CASE WHEN COUNT(v) > 0 THEN true ELSE false END FROM Vehicle v WHERE v.licensePlate = :licensePlate AND v.id != :vehicleId")
     boolean existsByLicensePlateAndIdNot(@Param("licensePlate") String licensePlate, @Param("vehicleId") Long vehicleId);
+
+    /**
+     * Number of vehicles at a location and/or in a category (null = any)
+     */
+    @Query("SELECT COUNT(v) FROM Vehicle v " +
+           "WHERE (:locationId IS NULL OR v.location.id = :locationId) " +
+           "AND (:category IS NULL OR v.model.category = :category)")
+    long countFleet(@Param("locationId") Long locationId, @Param("category") String category);
 }
@@ -0,0 +1,70 @@
+package com.carrental.service;
+
+import com.carrental.model.BulkActionResultDTO;
+import com.carrental.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bulk booking actions (approve / assign many selected bookings at once)
+ * Splits the selection into chunks and runs each chunk in its own transaction
+ * through BookingService, so one bad chunk does not roll back the others
+ * and no transaction holds hundreds of rows locked.
+ */
+@Service
+public class BookingBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingBulkService.class);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Value("${booking.bulk.chunk-size:100}")
+    private int chunkSize;
+
+    /**
+     * Approve selected bookings and create their contracts
+     * @param requiredStaffId If not null, only bookings assigned to this staff member are approved
+     */
+    public BulkActionResultDTO approveBookings(List<Long> bookingIds, User staffUser, Long requiredStaffId) {
+        return inChunks(bookingIds, chunk -> bookingService.approveBookings(chunk, staffUser, requiredStaffId));
+    }
+
+    /**
+     * Assign selected bookings to one staff member
+     */
+    public BulkActionResultDTO assignBookingsToStaff(List<Long> bookingIds, Long staffId) {
+        return inChunks(bookingIds, chunk -> bookingService.assignBookingsToStaff(chunk, staffId));
+    }
+
+    /**
+     * Automatically assign selected bookings using the assignment engine
+     */
+    public BulkActionResultDTO autoAssignBookingsToStaff(List<Long> bookingIds) {
+        return inChunks(bookingIds, bookingService::autoAssignBookingsToStaff);
+    }
+
+    private BulkActionResultDTO inChunks(List<Long> bookingIds, Function<List<Long>, BulkActionResultDTO> action) {
+        BulkActionResultDTO result = new BulkActionResultDTO();
+        List<Long> ids = bookingIds.stream().distinct().toList();
+        int size = Math.max(1, chunkSize);
+
+        for (int from = 0; from < ids.size(); from += size) {
+            List<Long> chunk = ids.subList(from, Math.min(from + size, ids.size()));
+            try {
+                // Each call is a separate transaction (BookingService is @Transactional)
+                result.merge(action.apply(chunk));
+            } catch (RuntimeException e) {
+                log.warn("Bulk booking chunk {} failed: {}", chunk, e.getMessage());
+                chunk.forEach(id -> result.addFailure(id, e.getMessage()));
+            }
+        }
+        return result;
+    }
+}
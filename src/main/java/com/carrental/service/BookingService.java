@@ -7,14 +7,20 @@ import com.carrental.repository.*;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -55,6 +61,12 @@ public class BookingService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ReservationHoldService reservationHoldService;
+
+    @Autowired
+    private StaffAssignmentEngine staffAssignmentEngine;
+
     /**
      * Get all bookings with relationships loaded
      */
@@ -76,6 +88,19 @@ public class BookingService {
         return bookingRepository.findByCustomerIdWithRelations(customerId);
     }
 
+    /**
+     * Get a page of the customer's bookings with their contract and rental bill payment
+     * Loaded in a single query (plus count), regardless of how many bookings the customer has
+     * @param status Booking status filter, or null for all
+     */
+    public Page<CustomerBookingDTO> getCustomerBookingsPage(Long customerId, BookingStatus status, Pageable pageable) {
+        return bookingRepository.findCustomerBookingRows(customerId,
+                        status != null ? status.getValue() : null,
+                        Payment.PaymentType.RENTAL,
+                        pageable)
+                .map(row -> new CustomerBookingDTO((Booking) row[0], (Contract) row[1], (Payment) row[2]));
+    }
+
     /**
      * Get bookings by vehicle
      */
@@ -120,7 +145,7 @@ public class BookingService {
         // Check if vehicle is available for the requested date range
         // This checks both vehicle status and active bookings/contracts
         if (!vehicleService.isVehicleAvailableForDateRange(
-                dto.getVehicleId(), dto.getStartDate(), dto.getEndDate())) {
+                dto.getVehicleId(), dto.getStartDate(), dto.getEndDate(), customer.getId())) {
             throw new RuntimeException("Vehicle is not available for the selected dates");
         }
 
@@ -151,6 +176,9 @@ public class BookingService {
 
         // Save booking
         booking = bookingRepository.save(booking);
+
+        // The pending booking now blocks the vehicle, so the customer's hold is no longer needed
+        reservationHoldService.releaseHold(dto.getVehicleId(), customer.getId());
         
         // Sync vehicle status to ensure it reflects current bookings
         vehicleService.syncVehicleStatus(dto.getVehicleId());
@@ -194,23 +222,17 @@ public class BookingService {
             throw new RuntimeException("Only pending bookings can be approved");
         }
 
-        // Check if booking has required documents
+        // Check that documents are attached and all approved
         List<BookingDocument> bookingDocuments = bookingDocumentRepository.findByBookingIdWithDocuments(bookingId);
-        if (bookingDocuments.isEmpty()) {
-            throw new RuntimeException("Booking must have at least one document attached");
-        }
-
-        // Verify all documents are approved
-        boolean allDocumentsApproved = bookingDocuments.stream()
-                .allMatch(bd -> bd.getDocument().getStatus() == UserDocument.DocumentStatus.Approved);
-
-        if (!allDocumentsApproved) {
-            throw new RuntimeException("All documents must be approved before booking can be approved");
+        String documentError = documentApprovalError(bookingDocuments);
+        if (documentError != null) {
+            throw new RuntimeException(documentError);
         }
 
         // Update booking status
         booking.setStatus(BookingStatus.APPROVED);
         Booking savedBooking = bookingRepository.save(booking);
+        staffAssignmentEngine.onResolved(assignedStaffId(savedBooking), pickupLocationId(savedBooking));
 
         // Sync vehicle status based on effective availability
         // This ensures the vehicle status matches its actual availability
@@ -270,6 +292,7 @@ public class BookingService {
         // Update booking status
         booking.setStatus(BookingStatus.REJECTED);
         Booking savedBooking = bookingRepository.save(booking);
+        staffAssignmentEngine.onResolved(assignedStaffId(savedBooking), pickupLocationId(savedBooking));
 
         // Sync vehicle status after rejection (vehicle might become available)
         vehicleService.syncVehicleStatus(savedBooking.getVehicle().getId());
@@ -333,6 +356,7 @@ public class BookingService {
         if (rowsUpdated == 0) {
             throw new RuntimeException("Failed to update booking status");
         }
+        staffAssignmentEngine.onResolved(assignedStaffId(booking), pickupLocationId(booking));
 
         // Flush and clear to ensure the update is committed and cache is cleared
         entityManager.flush();
@@ -363,6 +387,9 @@ public class BookingService {
     public Booking cancelBooking(Long bookingId) {
         Booking booking = bookingRepository.findByIdWithRelations(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
+        if (booking.getStatus() == BookingStatus.PENDING) {
+            staffAssignmentEngine.onResolved(assignedStaffId(booking), pickupLocationId(booking));
+        }
         booking.setStatus(BookingStatus.CANCELLED);
         Booking savedBooking = bookingRepository.save(booking);
         
@@ -378,6 +405,9 @@ public class BookingService {
     public Booking updateBookingStatus(Long id, BookingStatus status) {
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
+        if (booking.getStatus() == BookingStatus.PENDING && status != BookingStatus.PENDING) {
+            staffAssignmentEngine.onResolved(assignedStaffId(booking), pickupLocationId(booking));
+        }
         booking.setStatus(status);
         return bookingRepository.save(booking);
     }
@@ -425,14 +455,20 @@ public class BookingService {
             throw new RuntimeException("User is not a staff member");
         }
 
+        Long previousStaffId = assignedStaffId(booking);
+        if (booking.getStatus() == BookingStatus.PENDING && !staffId.equals(previousStaffId)) {
+            staffAssignmentEngine.onAssigned(previousStaffId, staffId, pickupLocationId(booking));
+        }
+
         booking.setAssignedStaff(staff);
         return bookingRepository.save(booking);
     }
 
     /**
-     * Automatically assign booking to staff with least workload
-     * Priority: 1. Staff with fewest pending bookings
-     *           2. If equal, sort alphabetically by full name
+     * Automatically assign booking to staff using the in-memory assignment engine
+     * Default policy (LEAST_LOADED): 1. Staff with fewest pending bookings
+     *                                2. If equal, sort alphabetically by full name
+     * Selection is O(log n) and does not query per-staff workloads.
      * @param bookingId Booking ID
      * @return Updated booking with assigned staff
      */
@@ -440,34 +476,160 @@ public class BookingService {
         Booking booking = bookingRepository.findByIdWithRelations(bookingId)
                 .orElseThrow(() -> new RuntimeException("Booking not found"));
 
-        List<User> allStaff = userService.findAllStaff();
-        
-        if (allStaff.isEmpty()) {
-            throw new RuntimeException("No staff members available for assignment");
-        }
-
-        // Get pending booking count for each staff
-        User selectedStaff = allStaff.stream()
-                .map(staff -> {
-                    long pendingCount = bookingRepository.countPendingBookingsByStaffId(staff.getId());
-                    return new java.util.AbstractMap.SimpleEntry<>(staff, pendingCount);
-                })
-                .min((a, b) -> {
-                    // First compare by pending count (ascending)
-                    int countCompare = Long.compare(a.getValue(), b.getValue());
-                    if (countCompare != 0) {
-                        return countCompare;
-                    }
-                    // If equal, compare by full name alphabetically
-                    return a.getKey().getFullName().compareToIgnoreCase(b.getKey().getFullName());
-                })
-                .map(java.util.Map.Entry::getKey)
-                .orElseThrow(() -> new RuntimeException("No staff available"));
-
-        booking.setAssignedStaff(selectedStaff);
+        Long previousStaffId = assignedStaffId(booking);
+        Long staffId = staffAssignmentEngine.reserveStaff(pickupLocationId(booking));
+        if (previousStaffId != null && booking.getStatus() == BookingStatus.PENDING) {
+            staffAssignmentEngine.onResolved(previousStaffId, pickupLocationId(booking));
+        }
+
+        booking.setAssignedStaff(entityManager.getReference(User.class, staffId));
         return bookingRepository.save(booking);
     }
 
+    /**
+     * Approve a chunk of pending bookings in one transaction (bulk approval)
+     * Bookings, their documents and existing contracts are loaded with one query each,
+     * contracts and notifications are saved together and each vehicle is synced once.
+     * Bookings that fail validation are skipped and reported in the result.
+     * @param bookingIds Booking IDs to approve
+     * @param staffUser Staff user performing the action
+     * @param requiredStaffId If not null, only bookings assigned to this staff member can be approved
+     * @return Approved and skipped booking IDs
+     */
+    public BulkActionResultDTO approveBookings(List<Long> bookingIds, User staffUser, Long requiredStaffId) {
+        BulkActionResultDTO result = new BulkActionResultDTO();
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Booking> bookingsById = bookingRepository.findAllByIdWithRelations(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+        Map<Long, List<BookingDocument>> documentsByBooking = bookingDocumentRepository.findByBookingIdsWithDocuments(ids)
+                .stream()
+                .collect(Collectors.groupingBy(bd -> bd.getId().getBookingId()));
+
+        List<Booking> approved = new ArrayList<>();
+        for (Long id : ids) {
+            Booking booking = bookingsById.get(id);
+            String error;
+            if (booking == null) {
+                error = "Booking not found";
+            } else if (booking.getStatus() != BookingStatus.PENDING) {
+                error = "Only pending bookings can be approved";
+            } else if (requiredStaffId != null && !requiredStaffId.equals(assignedStaffId(booking))) {
+                error = "Bạn không có quyền duyệt đơn đặt này";
+            } else {
+                error = documentApprovalError(documentsByBooking.getOrDefault(id, List.of()));
+            }
+
+            if (error != null) {
+                result.addFailure(id, error);
+                continue;
+            }
+            booking.setStatus(BookingStatus.APPROVED);
+            approved.add(booking);
+            result.addSuccess(id);
+        }
+
+        if (approved.isEmpty()) {
+            return result;
+        }
+
+        bookingRepository.saveAll(approved);
+        for (Booking booking : approved) {
+            staffAssignmentEngine.onResolved(assignedStaffId(booking), pickupLocationId(booking));
+        }
+
+        vehicleService.syncVehicleStatuses(approved.stream().map(b -> b.getVehicle().getId()).toList());
+        contractService.createContractsFromBookings(approved, staffUser);
+
+        try {
+            notificationService.createBookingApprovalNotifications(approved);
+        } catch (Exception e) {
+            // Log error but don't fail the approval process
+            System.err.println("Failed to send approval notifications: " + e.getMessage());
+        }
+
+        return result;
+    }
+
+    /**
+     * Assign a chunk of bookings to one staff member in one transaction (bulk assignment)
+     * @param bookingIds Booking IDs to assign
+     * @param staffId Staff user ID to assign
+     * @return Assigned and skipped booking IDs
+     */
+    public BulkActionResultDTO assignBookingsToStaff(List<Long> bookingIds, Long staffId) {
+        User staff = userService.getUserById(staffId)
+                .orElseThrow(() -> new RuntimeException("Staff not found"));
+
+        if (staff.getRole() != User.UserRole.STAFF) {
+            throw new RuntimeException("User is not a staff member");
+        }
+
+        BulkActionResultDTO result = new BulkActionResultDTO();
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Booking> bookingsById = bookingRepository.findAllByIdWithRelations(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+        for (Long id : ids) {
+            Booking booking = bookingsById.get(id);
+            if (booking == null) {
+                result.addFailure(id, "Booking not found");
+                continue;
+            }
+
+            Long previousStaffId = assignedStaffId(booking);
+            if (booking.getStatus() == BookingStatus.PENDING && !staffId.equals(previousStaffId)) {
+                staffAssignmentEngine.onAssigned(previousStaffId, staffId, pickupLocationId(booking));
+            }
+            booking.setAssignedStaff(staff);
+            result.addSuccess(id);
+        }
+
+        bookingRepository.saveAll(bookingsById.values());
+        return result;
+    }
+
+    /**
+     * Automatically assign a chunk of bookings in one transaction (bulk auto-assignment)
+     * Each booking goes through the assignment engine, so the chunk is spread across staff.
+     * @param bookingIds Booking IDs to assign
+     * @return Assigned and skipped booking IDs
+     */
+    public BulkActionResultDTO autoAssignBookingsToStaff(List<Long> bookingIds) {
+        BulkActionResultDTO result = new BulkActionResultDTO();
+        Set<Long> ids = new LinkedHashSet<>(bookingIds);
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Booking> bookingsById = bookingRepository.findAllByIdWithRelations(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, b -> b));
+        for (Long id : ids) {
+            Booking booking = bookingsById.get(id);
+            if (booking == null) {
+                result.addFailure(id, "Booking not found");
+                continue;
+            }
+
+            Long previousStaffId = assignedStaffId(booking);
+            Long staffId = staffAssignmentEngine.reserveStaff(pickupLocationId(booking));
+            if (previousStaffId != null && booking.getStatus() == BookingStatus.PENDING) {
+                staffAssignmentEngine.onResolved(previousStaffId, pickupLocationId(booking));
+            }
+            booking.setAssignedStaff(entityManager.getReference(User.class, staffId));
+            result.addSuccess(id);
+        }
+
+        bookingRepository.saveAll(bookingsById.values());
+        return result;
+    }
+
     /**
      * Get bookings assigned to a specific staff member
      */
@@ -497,4 +659,28 @@ public class BookingService {
                 .filter(b -> b.getAssignedStaff() == null && b.getStatus() == BookingStatus.PENDING)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Check that a booking has documents attached and all of them are approved
+     * @return error message, or null if the documents are fine
+     */
+    private static String documentApprovalError(List<BookingDocument> bookingDocuments) {
+        if (bookingDocuments.isEmpty()) {
+            return "Booking must have at least one document attached";
+        }
+        boolean allDocumentsApproved = bookingDocuments.stream()
+                .allMatch(bd -> bd.getDocument().getStatus() == UserDocument.DocumentStatus.Approved);
+        if (!allDocumentsApproved) {
+            return "All documents must be approved before booking can be approved";
+        }
+        return null;
+    }
+
+    private static Long assignedStaffId(Booking booking) {
+        return booking.getAssignedStaff() != null ? booking.getAssignedStaff().getId() : null;
+    }
+
+    private static Long pickupLocationId(Booking booking) {
+        return booking.getPickupLocation() != null ? booking.getPickupLocation().getId() : null;
+    }
 }
@@ -0,0 +1,365 @@
+package com.carrental.service;
+
+import com.carrental.model.Contract;
+import com.carrental.repository.ContractRepository;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Background export of every contract created in a date range, as a ZIP of PDFs or one merged PDF
+ * Contracts are loaded in chunks and rendered in parallel on a bounded pool through ContractPdfCache
+ * (shared fonts, and contracts already on disk are not rendered again); the output is appended in
+ * creation order as each PDF is ready and written straight to a file, so memory stays flat however
+ * long the range. Jobs are kept in memory and their progress is polled by the admin contracts page.
+ */
+@Service
+public class ContractBulkExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractBulkExportService.class);
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private ContractPdfCache contractPdfCache;
+
+    @Value("${contract.export.dir:pdf-cache/exports}")
+    private String exportDir;
+
+    @Value("${contract.export.render-threads:4}")
+    private int renderThreads;
+
+    @Value("${contract.export.chunk-size:50}")
+    private int chunkSize;
+
+    @Value("${contract.export.retention-minutes:120}")
+    private long retentionMinutes;
+
+    public enum Format {
+        ZIP,    // One PDF per contract
+        PDF     // All contracts merged into one document
+    }
+
+    public enum JobStatus {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * State of one export, updated by the job thread and read by the progress endpoint
+     */
+    public static class ExportJob {
+        private final String id;
+        private final Format format;
+        private final LocalDate fromDate;
+        private final LocalDate toDate;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicInteger done = new AtomicInteger();
+        private volatile int total;
+        private volatile JobStatus status = JobStatus.RUNNING;
+        private volatile String error;
+        private volatile Path file;
+        private volatile LocalDateTime finishedAt;
+
+        ExportJob(String id, Format format, LocalDate fromDate, LocalDate toDate) {
+            this.id = id;
+            this.format = format;
+            this.fromDate = fromDate;
+            this.toDate = toDate;
+        }
+
+        public String getId() { return id; }
+        public Format getFormat() { return format; }
+        public LocalDate getFromDate() { return fromDate; }
+        public LocalDate getToDate() { return toDate; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+        public int getDone() { return done.get(); }
+        public int getTotal() { return total; }
+        public JobStatus getStatus() { return status; }
+        public String getError() { return error; }
+        public Path getFile() { return file; }
+
+        public int getPercent() {
+            int count = total;
+            return count == 0 ? (status == JobStatus.RUNNING ? 0 : 100) : done.get() * 100 / count;
+        }
+
+        public String getFileName() {
+            return "contracts-" + fromDate + "_" + toDate + (format == Format.ZIP ? ".zip" : ".pdf");
+        }
+    }
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private Path root;
+    private ExecutorService renderPool;
+    private ExecutorService jobRunner;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(exportDir).toAbsolutePath();
+        Files.createDirectories(root);
+        // Jobs live in memory only, files left by a previous run can no longer be downloaded
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        renderPool = Executors.newFixedThreadPool(Math.max(1, renderThreads), r -> {
+            Thread thread = new Thread(r, "contract-export-render-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // One export assembled at a time; later requests queue behind it
+        jobRunner = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "contract-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        renderPool.shutdownNow();
+    }
+
+    /**
+     * Queue an export of the contracts created from fromDate to toDate (both inclusive)
+     */
+    public ExportJob start(LocalDate fromDate, LocalDate toDate, Format format) {
+        if (fromDate == null || toDate == null || fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("Khoảng thời gian không hợp lệ");
+        }
+        ExportJob job = new ExportJob(UUID.randomUUID().toString(), format, fromDate, toDate);
+        jobs.put(job.getId(), job);
+        jobRunner.execute(() -> run(job));
+        return job;
+    }
+
+    public Optional<ExportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Forget finished jobs older than the retention period and delete their files
+     */
+    @Scheduled(fixedDelayString = "${contract.export.cleanup-interval-ms:600000}")
+    public void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.status == JobStatus.RUNNING || job.finishedAt == null || job.finishedAt.isAfter(cutoff)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    private void run(ExportJob job) {
+        Path part = null;
+        try {
+            List<Long> ids = contractRepository.findIdsCreatedBetween(
+                    job.fromDate.atStartOfDay(), job.toDate.plusDays(1).atStartOfDay());
+            if (ids.isEmpty()) {
+                fail(job, "Không có hợp đồng nào trong khoảng thời gian đã chọn");
+                return;
+            }
+            job.total = ids.size();
+
+            part = Files.createTempFile(root, job.id, ".part");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(part));
+                 ExportWriter writer = job.format == Format.ZIP ? new ZipExportWriter(out) : new MergedPdfWriter(out)) {
+                for (int from = 0; from < ids.size(); from += chunkSize) {
+                    writeChunk(job, ids.subList(from, Math.min(from + chunkSize, ids.size())), writer);
+                }
+            }
+
+            Path file = root.resolve(job.id + (job.format == Format.ZIP ? ".zip" : ".pdf"));
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+            job.file = file;
+            job.finishedAt = LocalDateTime.now();
+            job.status = JobStatus.COMPLETED;
+            log.info("Contract export {} completed: {} contracts ({} to {})", job.id, job.total, job.fromDate, job.toDate);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(job, "Xuất hợp đồng bị dừng");
+        } catch (Exception e) {
+            log.error("Contract export {} failed", job.id, e);
+            fail(job, "Xuất hợp đồng thất bại: " + e.getMessage());
+        } finally {
+            deleteQuietly(part);
+        }
+    }
+
+    private void writeChunk(ExportJob job, List<Long> ids, ExportWriter writer)
+            throws IOException, InterruptedException, ExecutionException {
+        Map<Long, Contract> contracts = contractRepository.findForPdfByIdIn(ids).stream()
+                .collect(Collectors.toMap(Contract::getId, Function.identity()));
+
+        List<Contract> ordered = new ArrayList<>(ids.size());
+        List<Future<ContractPdfCache.CachedPdf>> rendered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Contract contract = contracts.get(id);
+            if (contract == null) {
+                // Deleted since the ID list was read
+                job.done.incrementAndGet();
+                continue;
+            }
+            ordered.add(contract);
+            rendered.add(renderPool.submit(() -> contractPdfCache.get(contract)));
+        }
+
+        // Appended in creation order while later contracts are still rendering
+        for (int i = 0; i < ordered.size(); i++) {
+            Contract contract = ordered.get(i);
+            try (InputStream pdf = openRendered(contract, rendered.get(i).get())) {
+                writer.add(contract, pdf);
+            }
+            job.done.incrementAndGet();
+        }
+    }
+
+    /**
+     * Open a rendered PDF; if the contract changed meanwhile and the cache deleted the file,
+     * take the current one from the cache instead of failing the whole export
+     */
+    private InputStream openRendered(Contract contract, ContractPdfCache.CachedPdf pdf) throws IOException {
+        try {
+            return Files.newInputStream(pdf.file());
+        } catch (NoSuchFileException e) {
+            log.debug("Cached PDF of contract {} was replaced during export, fetching it again", contract.getId());
+            return contractPdfCache.open(contract).stream();
+        }
+    }
+
+    private void fail(ExportJob job, String message) {
+        job.error = message;
+        job.finishedAt = LocalDateTime.now();
+        job.status = JobStatus.FAILED;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Cannot delete export file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private interface ExportWriter extends AutoCloseable {
+        void add(Contract contract, InputStream pdf) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * One entry per contract, copied from the cached file
+     */
+    private static class ZipExportWriter implements ExportWriter {
+        private final ZipOutputStream zip;
+
+        ZipExportWriter(OutputStream out) {
+            zip = new ZipOutputStream(out);
+            // PDF streams are already compressed
+            zip.setLevel(Deflater.BEST_SPEED);
+        }
+
+        @Override
+        public void add(Contract contract, InputStream pdf) throws IOException {
+            zip.putNextEntry(new ZipEntry("contract-" + contract.getContractNumber() + ".pdf"));
+            pdf.transferTo(zip);
+            zip.closeEntry();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Finish the archive only; the caller owns the underlying stream
+            zip.finish();
+        }
+    }
+
+    /**
+     * Pages of every contract copied into one document; each source is released once copied
+     */
+    private static class MergedPdfWriter implements ExportWriter {
+        private final Document document = new Document();
+        private final PdfCopy copy;
+
+        MergedPdfWriter(OutputStream out) throws IOException {
+            try {
+                copy = new PdfCopy(document, out);
+            } catch (DocumentException e) {
+                throw new IOException("Cannot start merged PDF", e);
+            }
+            copy.setCloseStream(false);
+            document.open();
+        }
+
+        @Override
+        public void add(Contract contract, InputStream pdf) throws IOException {
+            PdfReader reader = new PdfReader(pdf);
+            try {
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                }
+                copy.freeReader(reader);
+            } catch (DocumentException e) {
+                throw new IOException("Cannot merge contract " + contract.getContractNumber(), e);
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            document.close();
+        }
+    }
+}
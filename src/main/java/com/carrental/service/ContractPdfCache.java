@@ -0,0 +1,141 @@
+package com.carrental.service;
+
+import com.carrental.model.Contract;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Disk cache of rendered contract PDFs
+ * Each contract has its own directory holding one file named by ContractPdfService.contentKey,
+ * so a file never changes once written: any change to what the PDF shows gives a new key and the
+ * old file is removed when the new one is stored. Repeat downloads are plain file sends, and the
+ * key is used as the ETag.
+ * The directory is outside the static /images/** mapping on purpose (contracts hold personal data).
+ */
+@Service
+public class ContractPdfCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractPdfCache.class);
+
+    @Autowired
+    private ContractPdfService contractPdfService;
+
+    @Value("${contract.pdf.cache-dir:pdf-cache/contracts}")
+    private String cacheDir;
+
+    private Path root;
+
+    /**
+     * A stored PDF: the file, its content key (ETag) and when it was rendered
+     */
+    public record CachedPdf(Path file, String key, long lastModified) {
+    }
+
+    /**
+     * A stored PDF opened for sending; the stream stays readable even if the file is deleted meanwhile
+     */
+    public record OpenedPdf(InputStream stream, long length, String key, long lastModified) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(cacheDir).toAbsolutePath();
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Return the stored PDF for the contract's current content, rendering it first if needed
+     */
+    public CachedPdf get(Contract contract) throws IOException {
+        String key = contractPdfService.contentKey(contract);
+        Path dir = contractDir(contract.getId());
+        Path file = dir.resolve(key + ".pdf");
+        if (!Files.exists(file)) {
+            store(contract, dir, file);
+        }
+        return new CachedPdf(file, key, Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /**
+     * Return the stored PDF for the contract's current content, already opened
+     * A concurrent store or invalidate may delete the file between get and open; it is then
+     * rendered again. Once open, deleting the file no longer affects the reader.
+     */
+    public OpenedPdf open(Contract contract) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            CachedPdf pdf = get(contract);
+            FileChannel channel;
+            try {
+                channel = FileChannel.open(pdf.file());
+            } catch (NoSuchFileException e) {
+                if (attempt >= 3) {
+                    throw e;
+                }
+                continue;
+            }
+            return new OpenedPdf(Channels.newInputStream(channel), channel.size(), pdf.key(), pdf.lastModified());
+        }
+    }
+
+    /**
+     * Drop every stored PDF of a contract
+     * Stale files are never served (their key no longer matches), this only frees the disk space.
+     */
+    public void invalidate(Long contractId) {
+        try {
+            deleteFiles(contractDir(contractId), null);
+        } catch (IOException e) {
+            log.warn("Cannot clear cached PDFs of contract {}: {}", contractId, e.getMessage());
+        }
+    }
+
+    private void store(Contract contract, Path dir, Path file) throws IOException {
+        Files.createDirectories(dir);
+        // Rendered next to the target and moved in place, so readers never see a partial file;
+        // two requests racing on the same key both write identical content
+        Path tmp = Files.createTempFile(dir, "render-", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                contractPdfService.writeContractPdf(contract, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        deleteFiles(dir, file);
+    }
+
+    private void deleteFiles(Path dir, Path keep) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*.pdf")) {
+            for (Path stale : files) {
+                if (!stale.equals(keep)) {
+                    Files.deleteIfExists(stale);
+                }
+            }
+        }
+    }
+
+    private Path contractDir(Long contractId) {
+        return root.resolve(String.valueOf(contractId));
+    }
+}
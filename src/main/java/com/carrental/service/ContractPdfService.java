@@ -0,0 +1,198 @@
+package com.carrental.service;
+
+import com.carrental.model.Contract;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Font;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Renders the contract PDF for staff and customer exports
+ * The bundled DejaVu Sans fonts (full Vietnamese coverage) are parsed once at startup and the
+ * BaseFont/Font instances are shared by every export; only the glyphs a document uses are embedded.
+ */
+@Service
+public class ContractPdfService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContractPdfService.class);
+
+    private static final String REGULAR_FONT = "fonts/DejaVuSans.ttf";
+    private static final String BOLD_FONT = "fonts/DejaVuSans-Bold.ttf";
+
+    // Bump whenever the layout below changes so cached PDFs are rendered again
+    private static final String LAYOUT_VERSION = "1";
+
+    private Font titleFont;
+    private Font sectionFont;
+    private Font textFont;
+
+    @PostConstruct
+    public void init() {
+        BaseFont regular = loadFont(REGULAR_FONT);
+        BaseFont bold = loadFont(BOLD_FONT);
+        titleFont = new Font(bold, 16);
+        sectionFont = new Font(bold, 12);
+        textFont = new Font(regular, 11);
+    }
+
+    /**
+     * Render a contract summary into a byte array
+     */
+    public byte[] generateContractPdf(Contract contract) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeContractPdf(contract, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Render a contract summary into an output stream, page content written as it is laid out
+     * (the stream is not closed)
+     */
+    public void writeContractPdf(Contract contract, OutputStream out) throws IOException {
+        try {
+            renderContract(contract, out);
+        } catch (DocumentException e) {
+            throw new IOException("Cannot render contract " + contract.getContractNumber(), e);
+        }
+    }
+
+    /**
+     * Hash of everything the rendered document shows (plus the layout version)
+     * Two contract states with the same key produce the same PDF, so the key doubles as the
+     * cache file name and ETag. Keep in sync with renderContract.
+     */
+    public String contentKey(Contract contract) {
+        StringBuilder content = new StringBuilder(LAYOUT_VERSION);
+        appendKey(content, contract.getId());
+        appendKey(content, contract.getContractNumber());
+        appendKey(content, contract.getStatus());
+        appendKey(content, contract.getCreatedAt());
+        appendKey(content, contract.getCustomer().getFullName());
+        appendKey(content, contract.getCustomer().getEmail());
+        appendKey(content, contract.getCustomer().getPhone());
+        appendKey(content, contract.getBooking() != null ? contract.getBooking().getId() : null);
+        appendKey(content, contract.getStartDate());
+        appendKey(content, contract.getEndDate());
+        appendKey(content, contract.getVehicle().getModel().getBrand().getBrandName());
+        appendKey(content, contract.getVehicle().getModel().getModelName());
+        appendKey(content, contract.getVehicle().getLicensePlate());
+        appendKey(content, formatCurrency(contract.getDailyRate()));
+        appendKey(content, contract.getTotalDays());
+        appendKey(content, formatCurrency(contract.getDepositAmount()));
+        appendKey(content, formatCurrency(contract.getTotalRentalFee()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void appendKey(StringBuilder content, Object value) {
+        // Unit separator keeps adjacent fields from running into each other
+        content.append('\u001f').append(value == null ? "" : value.toString());
+    }
+
+    private void renderContract(Contract contract, OutputStream out) throws DocumentException {
+        Document document = new Document(PageSize.A4, 36, 36, 36, 36);
+        PdfWriter writer = PdfWriter.getInstance(document, out);
+        writer.setCloseStream(false);
+        document.open();
+
+        document.add(new Paragraph("HỢP ĐỒNG THUÊ XE", titleFont));
+        document.add(new Paragraph("Mã hợp đồng: " + safe(contract.getContractNumber()), textFont));
+        document.add(new Paragraph("Trạng thái: " + contract.getStatus(), textFont));
+        document.add(new Paragraph("Ngày tạo: " + safe(contract.getCreatedAt()), textFont));
+        document.add(Paragraph.getInstance("\n"));
+
+        // Customer info table - use contract data instead of booking to avoid null issues
+        document.add(new Paragraph("Thông tin khách hàng", sectionFont));
+        PdfPTable table = new PdfPTable(2);
+        table.setWidthPercentage(100);
+        addRow(table, "Họ tên", safe(contract.getCustomer().getFullName()));
+        addRow(table, "Email", safe(contract.getCustomer().getEmail()));
+        addRow(table, "Số điện thoại", safe(contract.getCustomer().getPhone()));
+        // Only show booking ID if booking exists
+        if (contract.getBooking() != null) {
+            addRow(table, "Mã đơn đặt", "#" + contract.getBooking().getId());
+        }
+        addRow(table, "Thời gian thuê", safe(contract.getStartDate()) + " → " + safe(contract.getEndDate()));
+        document.add(table);
+
+        document.add(Paragraph.getInstance("\n"));
+        document.add(new Paragraph("Thông tin xe", sectionFont));
+        PdfPTable vehicleTable = new PdfPTable(2);
+        vehicleTable.setWidthPercentage(100);
+        addRow(vehicleTable, "Xe", safe(contract.getVehicle().getModel().getBrand().getBrandName()) + " " + safe(contract.getVehicle().getModel().getModelName()));
+        addRow(vehicleTable, "Biển số", safe(contract.getVehicle().getLicensePlate()));
+        document.add(vehicleTable);
+
+        document.add(Paragraph.getInstance("\n"));
+        document.add(new Paragraph("Thanh toán", sectionFont));
+        PdfPTable paymentTable = new PdfPTable(2);
+        paymentTable.setWidthPercentage(100);
+        addRow(paymentTable, "Giá thuê / ngày", formatCurrency(contract.getDailyRate()));
+        addRow(paymentTable, "Số ngày thuê", safe(contract.getTotalDays()) + " ngày");
+        addRow(paymentTable, "Tiền cọc", formatCurrency(contract.getDepositAmount()));
+        addRow(paymentTable, "Tổng tiền thuê", formatCurrency(contract.getTotalRentalFee()));
+        document.add(paymentTable);
+
+        document.close();
+    }
+
+    private void addRow(PdfPTable table, String label, String value) {
+        PdfPCell cell1 = new PdfPCell(new Phrase(label, textFont));
+        PdfPCell cell2 = new PdfPCell(new Phrase(value, textFont));
+        cell1.setBorderWidth(0.2f);
+        cell2.setBorderWidth(0.2f);
+        table.addCell(cell1);
+        table.addCell(cell2);
+    }
+
+    private String safe(Object obj) {
+        return obj == null ? "---" : obj.toString();
+    }
+
+    private String formatCurrency(BigDecimal amount) {
+        if (amount == null) return "---";
+        return String.format("%,.0f ₫", amount.doubleValue());
+    }
+
+    /**
+     * Parse a bundled TrueType font (Identity-H, embedded); Helvetica if it cannot be read
+     */
+    private static BaseFont loadFont(String resource) {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            byte[] ttf = in.readAllBytes();
+            return BaseFont.createFont(resource, BaseFont.IDENTITY_H, BaseFont.EMBEDDED, true, ttf, null);
+        } catch (IOException | DocumentException e) {
+            log.error("Cannot load PDF font {}, Vietnamese text will not render correctly", resource, e);
+            try {
+                return BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+            } catch (IOException | DocumentException fallbackError) {
+                throw new IllegalStateException("Cannot load any PDF font", fallbackError);
+            }
+        }
+    }
+}
@@ -2,18 +2,24 @@ package com.carrental.service;
 
 import com.carrental.model.Booking;
 import com.carrental.model.Contract;
+import com.carrental.model.Payment;
 import com.carrental.model.User;
+import com.carrental.repository.BookingRepository;
 import com.carrental.repository.ContractRepository;
+import com.carrental.repository.PaymentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -25,6 +31,24 @@ public class ContractService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private ReservationHoldService reservationHoldService;
+
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private ContractPdfCache contractPdfCache;
+
     // Fixed deposit amount for all cars: 50 million VND
     private static final BigDecimal FIXED_DEPOSIT_AMOUNT = new BigDecimal("50000000");
 
@@ -66,6 +90,56 @@ public class ContractService {
             throw new RuntimeException("Contract already exists for this booking");
         }
 
+        Contract savedContract = contractRepository.save(buildContractFromBooking(booking, staff));
+
+        // Send notification to customer about contract creation
+        try {
+            notificationService.createContractCreatedNotification(
+                booking.getCustomer().getId(),
+                savedContract.getContractNumber(),
+                savedContract.getDepositAmount()
+            );
+        } catch (Exception e) {
+            System.err.println("Failed to send contract created notification: " + e.getMessage());
+        }
+
+        return savedContract;
+    }
+
+    /**
+     * Create contracts for several approved bookings at once (bulk approval)
+     * Existing contracts are checked with a single query and bookings that already
+     * have one are skipped; new contracts and notifications are saved together.
+     * @param bookings Approved bookings (relations already loaded)
+     * @param staff The staff member creating the contracts
+     * @return Created contracts with PENDING_PAYMENT status
+     */
+    public List<Contract> createContractsFromBookings(List<Booking> bookings, User staff) {
+        if (bookings.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> withContract = new HashSet<>(contractRepository.findBookingIdsWithContract(
+                bookings.stream().map(Booking::getId).toList()));
+
+        List<Contract> contracts = bookings.stream()
+                .filter(b -> b.getStatus() == Booking.BookingStatus.APPROVED && !withContract.contains(b.getId()))
+                .map(b -> buildContractFromBooking(b, staff))
+                .toList();
+        List<Contract> savedContracts = contractRepository.saveAll(contracts);
+
+        try {
+            notificationService.createContractCreatedNotifications(savedContracts);
+        } catch (Exception e) {
+            System.err.println("Failed to send contract created notifications: " + e.getMessage());
+        }
+
+        return savedContracts;
+    }
+
+    /**
+     * Build (unsaved) PENDING_PAYMENT contract for an approved booking
+     */
+    private Contract buildContractFromBooking(Booking booking, User staff) {
         // Calculate total rental fee
         BigDecimal dailyRate = booking.getVehicle().getDailyRate();
         BigDecimal totalRentalFee = dailyRate.multiply(new BigDecimal(booking.getTotalDays()));
@@ -108,21 +182,7 @@ public class ContractService {
         contract.setTotalRentalFee(totalRentalFee);
         contract.setDepositAmount(depositAmount); // Dynamic deposit: max(50M, total_rental_fee * 1.1)
         contract.setStatus(Contract.ContractStatus.PENDING_PAYMENT); // Waiting for deposit payment
-
-        Contract savedContract = contractRepository.save(contract);
-
-        // Send notification to customer about contract creation
-        try {
-            notificationService.createContractCreatedNotification(
-                booking.getCustomer().getId(),
-                savedContract.getContractNumber(),
-                depositAmount
-            );
-        } catch (Exception e) {
-            System.err.println("Failed to send contract created notification: " + e.getMessage());
-        }
-
-        return savedContract;
+        return contract;
     }
 
     public Contract createContract(Contract contract) {
@@ -138,6 +198,8 @@ public class ContractService {
         Contract.ContractStatus oldStatus = contract.getStatus();
         contract.setStatus(status);
         Contract savedContract = contractRepository.save(contract);
+        // The status is printed on the PDF, so the stored copy is outdated
+        contractPdfCache.invalidate(id);
 
         // Send notifications based on status change
         try {
@@ -164,22 +226,75 @@ public class ContractService {
         return savedContract;
     }
 
+    /**
+     * Cancel one batch of PENDING_PAYMENT contracts created before the cutoff
+     * Contracts whose customer still holds the vehicle (deposit payment in progress) are skipped.
+     * The booking is cancelled too so the vehicle is released for other customers.
+     * @param afterId only contracts with a larger ID are examined (keyset paging)
+     * @return ID of the last contract examined, or null when there is nothing left
+     */
+    public Long expireStalePendingPaymentContracts(LocalDateTime cutoff, Long afterId, int batchSize) {
+        List<Contract> batch = contractRepository.findByStatusCreatedBefore(
+                Contract.ContractStatus.PENDING_PAYMENT, cutoff, afterId, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return null;
+        }
+
+        for (Contract contract : batch) {
+            Long vehicleId = contract.getVehicle().getId();
+            if (reservationHoldService.hasActiveHold(vehicleId, contract.getCustomer().getId())) {
+                continue;
+            }
+
+            contract.setStatus(Contract.ContractStatus.CANCELLED);
+            contractRepository.save(contract);
+
+            paymentRepository.findByContractAndStatus(contract, Payment.PaymentStatus.PENDING)
+                    .ifPresent(payment -> {
+                        payment.setStatus(Payment.PaymentStatus.CANCELLED);
+                        paymentRepository.save(payment);
+                    });
+
+            if (contract.getBooking() != null) {
+                bookingRepository.updateBookingStatus(contract.getBooking().getId(),
+                        Booking.BookingStatus.CANCELLED.getValue());
+            }
+
+            vehicleService.syncVehicleStatus(vehicleId);
+
+            try {
+                notificationService.createContractCancelledNotification(
+                    contract.getCustomer().getId(),
+                    contract.getContractNumber(),
+                    "Hợp đồng đã bị hủy do quá hạn thanh toán cọc"
+                );
+            } catch (Exception e) {
+                System.err.println("Failed to send contract expired notification: " + e.getMessage());
+            }
+        }
+
+        return batch.get(batch.size() - 1).getId();
+    }
+
     /**
      * Get contracts by customer
      */
     public List<Contract> getContractsByCustomer(Long customerId) {
-        return contractRepository.findAll().stream()
-                .filter(c -> c.getCustomer() != null && c.getCustomer().getId().equals(customerId))
-                .toList();
+        return contractRepository.findByCustomerId(customerId);
+    }
+
+    /**
+     * Get contracts of a customer with a given status
+     */
+    public List<Contract> getContractsByCustomerAndStatus(Long customerId, Contract.ContractStatus status) {
+        return contractRepository.findByCustomerIdAndStatus(customerId, status);
     }
 
     /**
      * Get contracts by status
      */
     public List<Contract> getContractsByStatus(Contract.ContractStatus status) {
-        return contractRepository.findAll().stream()
-                .filter(c -> c.getStatus() == status)
-                .toList();
+        return contractRepository.findByStatus(status);
     }
 
     /**
@@ -207,9 +322,7 @@ public class ContractService {
      * Get contracts by staff ID and status (non-paginated) - contract.staff_id
      */
     public List<Contract> getContractsByStaffIdAndStatus(Long staffId, Contract.ContractStatus status) {
-        return contractRepository.findAll().stream()
-                .filter(c -> c.getStaff().getId().equals(staffId) && c.getStatus() == status)
-                .toList();
+        return contractRepository.findByStaffIdAndStatus(staffId, status);
     }
 
     /**
@@ -245,18 +358,18 @@ public class ContractService {
 
     /**
      * Generate unique contract number
-     * Format: HD-YYYYMMDD-XXXXXX (max 50 chars)
-     * Example: HD-20251219-A1B2C3
+     * Format: HD-YYYYMMDD-NNNNNNN (max 50 chars)
+     * Example: HD-20251219-0000123
      */
     private String generateContractNumber() {
         // Use date format YYYYMMDD instead of timestamp to keep it shorter
         java.time.LocalDate today = java.time.LocalDate.now();
         String dateStr = today.format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
         
-        // Use shorter random string (6 chars instead of 8)
-        String randomStr = UUID.randomUUID().toString().substring(0, 6).toUpperCase().replace("-", "");
+        // 7-digit sequence number: never clashes with the old 6-character random suffixes
+        String sequenceStr = String.format("%07d", numberSequenceService.next(NumberSequenceService.Sequence.CONTRACT));
         
-        // Format: HD-YYYYMMDD-XXXXXX (total: 3 + 1 + 8 + 1 + 6 = 19 chars, well under 50 limit)
-        return "HD-" + dateStr + "-" + randomStr;
+        // Format: HD-YYYYMMDD-NNNNNNN (total: 3 + 1 + 8 + 1 + 7 = 20 chars, well under 50 limit)
+        return "HD-" + dateStr + "-" + sequenceStr;
     }
 }
@@ -0,0 +1,143 @@
+package com.carrental.service;
+
+import com.carrental.model.DepositHold;
+import com.carrental.model.DepositHold.DepositStatus;
+import com.carrental.repository.DepositHoldRepository;
+import com.carrental.util.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves deposit holds from HOLDING to READY when their hold_end_date passes
+ * Every HOLDING hold is a timer in an in-memory hierarchical timing wheel, loaded once at
+ * startup and fed by ReturnService as holds are created; a single thread advances the wheel
+ * every tick, so there is no periodic query. Matured holds are switched to READY in one
+ * transaction (rows locked, so with several instances only one moves and notifies each hold)
+ * and the responsible staff are notified.
+ */
+@Service
+public class DepositMaturityScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(DepositMaturityScheduler.class);
+
+    @Autowired
+    private DepositHoldRepository depositHoldRepository;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${deposit.maturity.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${deposit.maturity.wheel-size:64}")
+    private int wheelSize;
+
+    @Value("${deposit.maturity.levels:4}")
+    private int levels;
+
+    private HierarchicalTimingWheel<Long> wheel;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void init() {
+        wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, levels, System.currentTimeMillis());
+    }
+
+    /**
+     * Load HOLDING holds from the database and start ticking
+     * Holds already past their end date fire on the first tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Object[]> holding = depositHoldRepository.findIdAndHoldEndDateByStatus(DepositStatus.HOLDING);
+        for (Object[] row : holding) {
+            wheel.schedule((Long) row[0], toEpochMillis((LocalDateTime) row[1]));
+        }
+        log.info("Deposit maturity wheel loaded with {} holds", holding.size());
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "deposit-maturity");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * Add a new hold to the wheel once the current transaction commits
+     * (a hold saved in a transaction that rolls back never matures)
+     */
+    public void schedule(Long holdId, LocalDateTime holdEndDate) {
+        Runnable add = () -> wheel.schedule(holdId, toEpochMillis(holdEndDate));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add.run();
+            }
+        });
+    }
+
+    private void tick() {
+        try {
+            List<Long> due = wheel.advance(System.currentTimeMillis());
+            if (!due.isEmpty()) {
+                markReady(due);
+            }
+        } catch (RuntimeException e) {
+            // Keep ticking; holds that failed to update are still picked up by the deposit pages
+            log.error("Deposit maturity tick failed", e);
+        }
+    }
+
+    private void markReady(List<Long> holdIds) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        List<DepositHold> matured = transaction.execute(status -> {
+            List<DepositHold> holds = depositHoldRepository.findForUpdateByIdInAndStatus(holdIds, DepositStatus.HOLDING);
+            if (holds.isEmpty()) {
+                return holds;
+            }
+            holds.forEach(hold -> hold.setStatus(DepositStatus.READY));
+            notificationService.createDepositReadyNotifications(holds);
+            return holds;
+        });
+        if (matured != null && !matured.isEmpty()) {
+            log.info("{} deposit holds matured and are ready for refund", matured.size());
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -2,12 +2,19 @@ package com.carrental.service;
 
 import com.carrental.model.DepositHold;
 import com.carrental.model.DepositHold.DepositStatus;
+import com.carrental.model.DepositHoldSummaryDTO;
 import com.carrental.repository.DepositHoldRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -73,12 +80,7 @@ public class DepositService {
      * @return List of deposit holds for contracts whose bookings are assigned to the staff
      */
     public List<DepositHold> getDepositsByStaffId(Long assignedStaffId) {
-        return depositHoldRepository.findAll().stream()
-                .filter(deposit -> deposit.getContract() != null 
-                        && deposit.getContract().getBooking() != null
-                        && deposit.getContract().getBooking().getAssignedStaff() != null
-                        && deposit.getContract().getBooking().getAssignedStaff().getId().equals(assignedStaffId))
-                .toList();
+        return depositHoldRepository.findByBookingAssignedStaffId(assignedStaffId);
     }
 
     /**
@@ -89,12 +91,7 @@ public class DepositService {
      * @return List of deposit holds for contracts whose bookings are assigned to the staff with specific status
      */
     public List<DepositHold> getDepositsByStaffIdAndStatus(Long assignedStaffId, DepositStatus status) {
-        return depositHoldRepository.findByStatus(status).stream()
-                .filter(deposit -> deposit.getContract() != null 
-                        && deposit.getContract().getBooking() != null
-                        && deposit.getContract().getBooking().getAssignedStaff() != null
-                        && deposit.getContract().getBooking().getAssignedStaff().getId().equals(assignedStaffId))
-                .toList();
+        return depositHoldRepository.findByBookingAssignedStaffIdAndStatus(assignedStaffId, status);
     }
 
     /**
@@ -104,6 +101,43 @@ public class DepositService {
         return depositHoldRepository.findById(id);
     }
 
+    /**
+     * Summary rows (amounts, cached fines, refund state) for the listed holds, keyed by hold ID
+     */
+    public Map<Long, DepositHoldSummaryDTO> getHoldSummaries(Collection<Long> holdIds) {
+        if (holdIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, DepositHoldSummaryDTO> summaries = new HashMap<>();
+        for (DepositHoldSummaryDTO summary : depositHoldRepository.findSummariesByIdIn(holdIds)) {
+            summaries.put(summary.getHoldId(), summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * Update the status of several deposits in one statement
+     */
+    @Transactional
+    public int updateDepositStatuses(Collection<Long> holdIds, DepositStatus status) {
+        if (holdIds.isEmpty()) {
+            return 0;
+        }
+        return depositHoldRepository.updateStatusByIdIn(holdIds, status);
+    }
+
+    /**
+     * Compute the cached fine total of holds that do not have one yet (rows from before the column)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void fillMissingTotalFines() {
+        int updated = depositHoldRepository.fillMissingTotalFines();
+        if (updated > 0) {
+            System.out.println("Computed cached fine totals for " + updated + " deposit holds");
+        }
+    }
+
     /**
      * Update deposit status
      */
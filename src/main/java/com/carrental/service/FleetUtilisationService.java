@@ -0,0 +1,194 @@
+package com.carrental.service;
+
+import com.carrental.model.FleetUtilisation;
+import com.carrental.model.FleetUtilisation.Granularity;
+import com.carrental.model.FleetUtilisationPointDTO;
+import com.carrental.repository.ContractRepository;
+import com.carrental.repository.FleetUtilisationRepository;
+import com.carrental.repository.VehicleRepository;
+import com.carrental.util.OccupancySweep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Fleet utilisation time series: rented vehicles per day and per hour, by location and category
+ * Rental intervals of ACTIVE/COMPLETED contracts are swept into hourly buckets (OccupancySweep)
+ * and rolled up into days; totals per location, per category and for the whole fleet are swept as
+ * groups of their own so their peaks are exact. The nightly refresh only rebuilds the last
+ * lookback-days (contracts ending or cancelled late still land in the series); the first run
+ * backfills from the earliest rental. Hourly buckets are kept for hourly-retention-days.
+ * Vehicles are grouped by their current location and category.
+ */
+@Service
+public class FleetUtilisationService {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetUtilisationService.class);
+
+    private static final long MINUTES_PER_HOUR = 60;
+    private static final int HOURS_PER_DAY = 24;
+
+    @Autowired
+    private FleetUtilisationRepository fleetUtilisationRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${fleet.utilisation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${fleet.utilisation.lookback-days:7}")
+    private int lookbackDays;
+
+    @Value("${fleet.utilisation.hourly-retention-days:90}")
+    private int hourlyRetentionDays;
+
+    // Periods up to this long are shown hour by hour on the reports page
+    @Value("${fleet.utilisation.hourly-view-max-days:2}")
+    private int hourlyViewMaxDays;
+
+    /**
+     * Series key: a location and category, or null for "all"
+     */
+    private record FleetGroup(Long locationId, String category) {
+    }
+
+    /**
+     * Build the series on first start (empty table)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (enabled && fleetUtilisationRepository.findLastBucketStart(Granularity.DAY) == null) {
+            refresh();
+        }
+    }
+
+    @Scheduled(cron = "${fleet.utilisation.cron:0 30 1 * * *}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * Rebuild the buckets from the last stored day minus lookback-days through the end of today
+     * @return number of buckets stored
+     */
+    public synchronized int refresh() {
+        LocalDate today = LocalDate.now();
+        LocalDateTime lastDay = fleetUtilisationRepository.findLastBucketStart(Granularity.DAY);
+        LocalDate fromDate;
+        if (lastDay != null) {
+            fromDate = lastDay.toLocalDate().minusDays(lookbackDays);
+        } else {
+            LocalDateTime earliest = contractRepository.findEarliestRentalStart();
+            if (earliest == null) {
+                return 0;
+            }
+            fromDate = earliest.toLocalDate();
+        }
+        LocalDateTime from = fromDate.atStartOfDay();
+        LocalDateTime to = today.plusDays(1).atStartOfDay();
+        LocalDateTime hourlyFrom = today.minusDays(hourlyRetentionDays).atStartOfDay();
+
+        List<OccupancySweep.Interval<FleetGroup>> intervals = new ArrayList<>();
+        for (Object[] row : contractRepository.findFleetRentalIntervals(from, to)) {
+            long vehicleId = (Long) row[0];
+            Long locationId = (Long) row[1];
+            String category = (String) row[2];
+            long start = toMinutes((LocalDateTime) row[3]);
+            long end = toMinutes((LocalDateTime) row[4]);
+            intervals.add(new OccupancySweep.Interval<>(new FleetGroup(locationId, category), vehicleId, start, end));
+            intervals.add(new OccupancySweep.Interval<>(new FleetGroup(locationId, null), vehicleId, start, end));
+            intervals.add(new OccupancySweep.Interval<>(new FleetGroup(null, category), vehicleId, start, end));
+            intervals.add(new OccupancySweep.Interval<>(new FleetGroup(null, null), vehicleId, start, end));
+        }
+
+        Map<FleetGroup, List<OccupancySweep.Bucket>> hourly =
+                OccupancySweep.sweep(intervals, toMinutes(from), toMinutes(to), MINUTES_PER_HOUR);
+
+        List<FleetUtilisation> rows = new ArrayList<>();
+        hourly.forEach((group, buckets) -> {
+            // Days: occupied minutes summed and peak taken over their hours
+            Map<Integer, long[]> days = new TreeMap<>();
+            for (OccupancySweep.Bucket bucket : buckets) {
+                LocalDateTime hour = from.plusHours(bucket.index());
+                if (!hour.isBefore(hourlyFrom)) {
+                    rows.add(new FleetUtilisation(Granularity.HOUR, hour, group.locationId(), group.category(),
+                            bucket.occupiedMinutes(), bucket.peak()));
+                }
+                long[] day = days.computeIfAbsent(bucket.index() / HOURS_PER_DAY, d -> new long[2]);
+                day[0] += bucket.occupiedMinutes();
+                day[1] = Math.max(day[1], bucket.peak());
+            }
+            days.forEach((day, totals) -> rows.add(new FleetUtilisation(Granularity.DAY, from.plusDays(day),
+                    group.locationId(), group.category(), totals[0], (int) totals[1])));
+        });
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            fleetUtilisationRepository.deleteBucketsBetween(from, to);
+            fleetUtilisationRepository.deleteBucketsBefore(Granularity.HOUR, hourlyFrom);
+            fleetUtilisationRepository.saveAll(rows);
+        });
+        log.info("Fleet utilisation rebuilt from {} to {}: {} rentals, {} buckets", fromDate, today,
+                intervals.size() / 4, rows.size());
+        return rows.size();
+    }
+
+    /**
+     * Utilisation series for the reports page, hourly for short periods and daily otherwise
+     * Buckets without rentals are filled in with zero.
+     */
+    public List<FleetUtilisationPointDTO> getSeries(LocalDateTime startDate, LocalDateTime endDate,
+                                                    Long locationId, String category) {
+        Granularity granularity = Duration.between(startDate, endDate).toDays() < hourlyViewMaxDays
+                ? Granularity.HOUR : Granularity.DAY;
+        LocalDateTime from = startDate.truncatedTo(granularity == Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+
+        Map<LocalDateTime, FleetUtilisation> stored = new HashMap<>();
+        for (FleetUtilisation bucket : fleetUtilisationRepository.findSeries(granularity, from, endDate, locationId, category)) {
+            stored.put(bucket.getBucketStart(), bucket);
+        }
+        long fleetSize = vehicleRepository.countFleet(locationId, category);
+
+        List<FleetUtilisationPointDTO> series = new ArrayList<>();
+        for (LocalDateTime bucketStart = from; bucketStart.isBefore(endDate);
+             bucketStart = bucketStart.plusMinutes(granularity.getMinutes())) {
+            FleetUtilisation bucket = stored.get(bucketStart);
+            series.add(new FleetUtilisationPointDTO(bucketStart, granularity,
+                    bucket != null ? bucket.getOccupiedMinutes() : 0L,
+                    bucket != null ? bucket.getPeakOccupied() : 0,
+                    fleetSize));
+        }
+        return series;
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        // Local wall-clock minutes; only differences and bucket offsets are used
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
@@ -0,0 +1,355 @@
+package com.carrental.service;
+
+import com.carrental.model.LedgerCheckpoint;
+import com.carrental.model.LedgerContractBalance;
+import com.carrental.model.LedgerDailyTotal;
+import com.carrental.model.LedgerEntry;
+import com.carrental.model.Payment;
+import com.carrental.model.Refund;
+import com.carrental.repository.LedgerCheckpointRepository;
+import com.carrental.repository.LedgerContractBalanceRepository;
+import com.carrental.repository.LedgerDailyTotalRepository;
+import com.carrental.repository.LedgerEntryRepository;
+import com.carrental.repository.PaymentRepository;
+import com.carrental.repository.RefundRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only double-entry payment ledger
+ * Every completed money movement (deposit received, bill paid, deposit refunded) is posted
+ * once as a balanced journal in the same transaction as the payment change. A snapshot job
+ * folds new entries into per-contract balances and per-day totals, so reads combine one
+ * snapshot lookup with the few entries posted since the last run.
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerService.class);
+
+    private static final String SNAPSHOT_CHECKPOINT = "SNAPSHOT";
+    private static final String BACKFILL_CHECKPOINT = "BACKFILL";
+    private static final int PAGE_SIZE = 500;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private LedgerDailyTotalRepository dailyTotalRepository;
+
+    @Autowired
+    private LedgerContractBalanceRepository contractBalanceRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private RefundRepository refundRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Entries newer than this are left for the next run, so rows from transactions that
+    // were still open (lower IDs committed later) are not skipped by the checkpoint
+    @Value("${ledger.snapshot.lag-seconds:120}")
+    private long snapshotLagSeconds;
+
+    /**
+     * Debit and credit totals of an account for one day
+     */
+    public record DailyTotal(BigDecimal debit, BigDecimal credit) {
+
+        public BigDecimal turnover() {
+            return debit.add(credit);
+        }
+
+        DailyTotal plus(BigDecimal moreDebit, BigDecimal moreCredit) {
+            return new DailyTotal(debit.add(moreDebit), credit.add(moreCredit));
+        }
+    }
+
+    // ===== Posting =====
+
+    /**
+     * Post the journal for a payment that has just been completed
+     * DEPOSIT: cash in, deposit held for the customer
+     * RENTAL: cash in, rental revenue
+     * REFUND: deposit returned in cash
+     */
+    @Transactional
+    public void recordPaymentCompleted(Payment payment) {
+        BigDecimal amount = payment.getAmount();
+        Map<LedgerEntry.Account, BigDecimal> lines = new EnumMap<>(LedgerEntry.Account.class);
+        switch (payment.getPaymentType()) {
+            case DEPOSIT -> {
+                lines.put(LedgerEntry.Account.CASH, amount);
+                lines.put(LedgerEntry.Account.CUSTOMER_DEPOSITS, amount.negate());
+            }
+            case RENTAL -> {
+                lines.put(LedgerEntry.Account.CASH, amount);
+                lines.put(LedgerEntry.Account.RENTAL_REVENUE, amount.negate());
+            }
+            case REFUND -> {
+                lines.put(LedgerEntry.Account.CUSTOMER_DEPOSITS, amount);
+                lines.put(LedgerEntry.Account.CASH, amount.negate());
+            }
+        }
+        post(journalKey(payment), payment, payment.getPaymentType() + " payment " + payment.getId(), lines);
+    }
+
+    /**
+     * Post the journal for a deposit refund: the whole deposit is released, the refunded part
+     * is paid out in cash and the rest (return deductions, traffic fines) is kept
+     */
+    @Transactional
+    public void recordDepositRefund(Refund refund, Payment refundPayment) {
+        BigDecimal deposit = refund.getOriginalDeposit();
+        BigDecimal paidOut = refundPayment.getAmount();
+        Map<LedgerEntry.Account, BigDecimal> lines = new EnumMap<>(LedgerEntry.Account.class);
+        lines.put(LedgerEntry.Account.CUSTOMER_DEPOSITS, deposit);
+        lines.put(LedgerEntry.Account.CASH, paidOut.negate());
+        lines.put(LedgerEntry.Account.DEPOSIT_DEDUCTIONS, paidOut.subtract(deposit));
+        post(journalKey(refundPayment), refundPayment, "Deposit refund " + refund.getId(), lines);
+    }
+
+    private void post(String journalKey, Payment payment, String description,
+                      Map<LedgerEntry.Account, BigDecimal> lines) {
+        BigDecimal sum = lines.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (sum.signum() != 0) {
+            throw new IllegalStateException("Unbalanced ledger journal " + journalKey + ": " + lines);
+        }
+        if (ledgerEntryRepository.existsByJournalKey(journalKey)) {
+            return; // Already posted
+        }
+
+        LocalDate businessDate = payment.getPaymentDate() != null
+                ? payment.getPaymentDate().toLocalDate() : LocalDate.now();
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<LedgerEntry.Account, BigDecimal> line : lines.entrySet()) {
+            if (line.getValue().signum() == 0) {
+                continue;
+            }
+            LedgerEntry entry = new LedgerEntry();
+            entry.setJournalKey(journalKey);
+            entry.setAccount(line.getKey());
+            entry.setAmount(line.getValue());
+            entry.setContractId(payment.getContract().getId());
+            entry.setPaymentId(payment.getId());
+            entry.setBusinessDate(businessDate);
+            entry.setDescription(description);
+            entry.setCreatedAt(now);
+            ledgerEntryRepository.save(entry);
+        }
+    }
+
+    private static String journalKey(Payment payment) {
+        return "PAYMENT-" + payment.getId();
+    }
+
+    // ===== Reads =====
+
+    /**
+     * Current balance per account for a contract (debit positive, credit negative)
+     * Snapshot rows plus entries posted after the snapshot checkpoint; both are read in one
+     * transaction so a concurrent snapshot run is not counted twice.
+     */
+    @Transactional(readOnly = true)
+    public Map<LedgerEntry.Account, BigDecimal> getContractBalances(Long contractId) {
+        long checkpoint = snapshotCheckpoint();
+        Map<LedgerEntry.Account, BigDecimal> balances = new EnumMap<>(LedgerEntry.Account.class);
+        for (LedgerContractBalance balance : contractBalanceRepository.findByContractId(contractId)) {
+            balances.put(balance.getAccount(), balance.getBalance());
+        }
+        for (Object[] row : ledgerEntryRepository.sumByAccountForContractAfter(contractId, checkpoint)) {
+            balances.merge((LedgerEntry.Account) row[0], (BigDecimal) row[1], BigDecimal::add);
+        }
+        return balances;
+    }
+
+    /**
+     * Debit/credit totals of an account per day in [fromDate, toDate] (days without entries are omitted)
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, DailyTotal> getDailyTotals(LedgerEntry.Account account, LocalDate fromDate, LocalDate toDate) {
+        long checkpoint = snapshotCheckpoint();
+        Map<LocalDate, DailyTotal> totals = new TreeMap<>();
+        for (LedgerDailyTotal total : dailyTotalRepository
+                .findByAccountAndBusinessDateBetweenOrderByBusinessDateAsc(account, fromDate, toDate)) {
+            totals.put(total.getBusinessDate(), new DailyTotal(total.getDebitTotal(), total.getCreditTotal()));
+        }
+        for (Object[] row : ledgerEntryRepository.sumDailyAfter(account, checkpoint, fromDate, toDate)) {
+            LocalDate day = (LocalDate) row[0];
+            DailyTotal current = totals.getOrDefault(day, new DailyTotal(BigDecimal.ZERO, BigDecimal.ZERO));
+            totals.put(day, current.plus((BigDecimal) row[1], (BigDecimal) row[2]));
+        }
+        return totals;
+    }
+
+    private long snapshotCheckpoint() {
+        return checkpointRepository.findById(SNAPSHOT_CHECKPOINT)
+                .map(LedgerCheckpoint::getLastEntryId)
+                .orElse(0L);
+    }
+
+    // ===== Snapshots =====
+
+    /**
+     * Fold entries posted since the last run into the contract and daily snapshots
+     * Each page is applied together with the checkpoint in one transaction (checkpoint row
+     * locked), so a page is never counted twice, even with several instances.
+     */
+    @Scheduled(fixedDelayString = "${ledger.snapshot.interval-ms:300000}",
+               initialDelayString = "${ledger.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int folded = 0;
+        Integer pageSize;
+        do {
+            pageSize = transaction.execute(status -> foldNextPage());
+            folded += pageSize != null ? pageSize : 0;
+        } while (pageSize != null && pageSize == PAGE_SIZE);
+        if (folded > 0) {
+            log.info("Ledger snapshot updated with {} entries", folded);
+        }
+    }
+
+    private int foldNextPage() {
+        LedgerCheckpoint checkpoint = checkpointRepository.findForUpdate(SNAPSHOT_CHECKPOINT)
+                .orElseGet(() -> checkpointRepository.saveAndFlush(new LedgerCheckpoint(SNAPSHOT_CHECKPOINT, 0L)));
+        List<LedgerEntry> entries = ledgerEntryRepository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(
+                checkpoint.getLastEntryId(), LocalDateTime.now().minusSeconds(snapshotLagSeconds),
+                PageRequest.of(0, PAGE_SIZE));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        Map<ContractAccount, BigDecimal> contractDeltas = new HashMap<>();
+        Map<DayAccount, DailyTotal> dailyDeltas = new HashMap<>();
+        for (LedgerEntry entry : entries) {
+            if (entry.getContractId() != null) {
+                contractDeltas.merge(new ContractAccount(entry.getContractId(), entry.getAccount()),
+                        entry.getAmount(), BigDecimal::add);
+            }
+            BigDecimal debit = entry.getAmount().signum() > 0 ? entry.getAmount() : BigDecimal.ZERO;
+            BigDecimal credit = entry.getAmount().signum() < 0 ? entry.getAmount().negate() : BigDecimal.ZERO;
+            dailyDeltas.merge(new DayAccount(entry.getBusinessDate(), entry.getAccount()),
+                    new DailyTotal(debit, credit), (a, b) -> a.plus(b.debit(), b.credit()));
+        }
+
+        contractDeltas.forEach((key, delta) -> {
+            LedgerContractBalance balance = contractBalanceRepository
+                    .findByContractIdAndAccount(key.contractId(), key.account())
+                    .orElseGet(() -> {
+                        LedgerContractBalance created = new LedgerContractBalance();
+                        created.setContractId(key.contractId());
+                        created.setAccount(key.account());
+                        created.setBalance(BigDecimal.ZERO);
+                        return created;
+                    });
+            balance.setBalance(balance.getBalance().add(delta));
+            contractBalanceRepository.save(balance);
+        });
+
+        dailyDeltas.forEach((key, delta) -> {
+            LedgerDailyTotal total = dailyTotalRepository
+                    .findByBusinessDateAndAccount(key.businessDate(), key.account())
+                    .orElseGet(() -> {
+                        LedgerDailyTotal created = new LedgerDailyTotal();
+                        created.setBusinessDate(key.businessDate());
+                        created.setAccount(key.account());
+                        created.setDebitTotal(BigDecimal.ZERO);
+                        created.setCreditTotal(BigDecimal.ZERO);
+                        return created;
+                    });
+            total.setDebitTotal(total.getDebitTotal().add(delta.debit()));
+            total.setCreditTotal(total.getCreditTotal().add(delta.credit()));
+            dailyTotalRepository.save(total);
+        });
+
+        checkpoint.setLastEntryId(entries.get(entries.size() - 1).getId());
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+        return entries.size();
+    }
+
+    // ===== Backfill =====
+
+    /**
+     * Post journals for payments completed before the ledger existed (runs once)
+     * Refund payments of contracts with a deposit refund record are posted as deposit
+     * refunds, so the kept part of the deposit is recorded as well.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (checkpointRepository.existsById(BACKFILL_CHECKPOINT)) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long afterId = 0L;
+        int posted = 0;
+        try {
+            while (true) {
+                long cursor = afterId;
+                List<Payment> payments = transaction.execute(status -> {
+                    List<Payment> page = paymentRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                            Payment.PaymentStatus.COMPLETED, cursor, PageRequest.of(0, PAGE_SIZE));
+                    for (Payment payment : page) {
+                        postHistorical(payment);
+                    }
+                    return page;
+                });
+                if (payments == null || payments.isEmpty()) {
+                    break;
+                }
+                posted += payments.size();
+                afterId = payments.get(payments.size() - 1).getId();
+            }
+            checkpointRepository.save(new LedgerCheckpoint(BACKFILL_CHECKPOINT, afterId));
+            log.info("Ledger backfill finished: {} completed payments checked", posted);
+        } catch (RuntimeException e) {
+            log.error("Ledger backfill failed after payment {}, will retry on next startup", afterId, e);
+        }
+    }
+
+    private void postHistorical(Payment payment) {
+        if (payment.getAmount() == null || payment.getPaymentType() == null) {
+            return;
+        }
+        if (payment.getPaymentType() == Payment.PaymentType.REFUND) {
+            List<Refund> refunds = refundRepository.findByContractId(payment.getContract().getId());
+            if (!refunds.isEmpty() && refunds.get(0).getOriginalDeposit() != null) {
+                recordDepositRefund(refunds.get(0), payment);
+                return;
+            }
+        }
+        recordPaymentCompleted(payment);
+    }
+
+    private record ContractAccount(Long contractId, LedgerEntry.Account account) {
+    }
+
+    private record DayAccount(LocalDate businessDate, LedgerEntry.Account account) {
+    }
+}
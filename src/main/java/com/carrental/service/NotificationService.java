@@ -1,6 +1,10 @@
 package com.carrental.service;
 
+import com.carrental.model.Booking;
+import com.carrental.model.Contract;
+import com.carrental.model.DepositHold;
 import com.carrental.model.Notification;
+import com.carrental.model.Refund;
 import com.carrental.model.User;
 import com.carrental.repository.NotificationRepository;
 import com.carrental.repository.UserRepository;
@@ -22,6 +26,10 @@ public class NotificationService {
     @Autowired
     private UserRepository userRepository;
 
+    private static final String BOOKING_APPROVED_TITLE = "Đơn đặt xe đã được duyệt";
+    private static final String CONTRACT_CREATED_TITLE = "Hợp đồng đã được tạo";
+    private static final String REFUND_COMPLETED_TITLE = "Đã hoàn tiền cọc thành công";
+
     /**
      * Create notification for user
      */
@@ -30,14 +38,17 @@ public class NotificationService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
 
+        return notificationRepository.save(newNotification(user, title, message));
+    }
+
+    private Notification newNotification(User user, String title, String message) {
         Notification notification = new Notification();
         notification.setUser(user);
         notification.setTitle(title);
         notification.setMessage(message);
         notification.setIsRead(false);
         notification.setCreatedAt(LocalDateTime.now());
-
-        return notificationRepository.save(notification);
+        return notification;
     }
 
     /**
@@ -116,16 +127,30 @@ public class NotificationService {
      */
     @Transactional
     public Notification createBookingApprovalNotification(Long userId, Long bookingId, BigDecimal depositAmount) {
-        String title = "Đơn đặt xe đã được duyệt";
-        String message = String.format(
+        return createNotification(userId, BOOKING_APPROVED_TITLE, bookingApprovalMessage(bookingId, depositAmount));
+    }
+
+    /**
+     * Create booking approval notifications for several bookings in one batch (bulk approval)
+     * Uses the already-loaded customers instead of looking each user up again
+     */
+    @Transactional
+    public List<Notification> createBookingApprovalNotifications(List<Booking> bookings) {
+        List<Notification> notifications = bookings.stream()
+                .map(b -> newNotification(b.getCustomer(), BOOKING_APPROVED_TITLE,
+                        bookingApprovalMessage(b.getId(), b.getVehicle().getDepositAmount())))
+                .toList();
+        return notificationRepository.saveAll(notifications);
+    }
+
+    private String bookingApprovalMessage(Long bookingId, BigDecimal depositAmount) {
+        return String.format(
             "Đơn đặt xe #%d của bạn đã được duyệt thành công!\n\n" +
             "Vui lòng chuyển tiền cọc: %s VND để hoàn tất thủ tục.\n\n" +
             "Sau khi thanh toán cọc, hợp đồng sẽ được kích hoạt và bạn có thể nhận xe theo lịch đã đặt.",
             bookingId,
             formatCurrency(depositAmount)
         );
-
-        return createNotification(userId, title, message);
     }
 
     /**
@@ -156,15 +181,29 @@ public class NotificationService {
      */
     @Transactional
     public Notification createContractCreatedNotification(Long userId, String contractNumber, BigDecimal depositAmount) {
-        String title = "Hợp đồng đã được tạo";
-        String message = String.format(
+        return createNotification(userId, CONTRACT_CREATED_TITLE, contractCreatedMessage(contractNumber, depositAmount));
+    }
+
+    /**
+     * Create contract created notifications for several contracts in one batch (bulk approval)
+     */
+    @Transactional
+    public List<Notification> createContractCreatedNotifications(List<Contract> contracts) {
+        List<Notification> notifications = contracts.stream()
+                .map(c -> newNotification(c.getCustomer(), CONTRACT_CREATED_TITLE,
+                        contractCreatedMessage(c.getContractNumber(), c.getDepositAmount())))
+                .toList();
+        return notificationRepository.saveAll(notifications);
+    }
+
+    private String contractCreatedMessage(String contractNumber, BigDecimal depositAmount) {
+        return String.format(
             "Hợp đồng %s đã được tạo thành công!\n\n" +
             "Vui lòng thanh toán tiền cọc: %s VND để kích hoạt hợp đồng.\n\n" +
             "Sau khi thanh toán, bạn có thể nhận xe theo lịch đã đặt.",
             contractNumber,
             formatCurrency(depositAmount)
         );
-        return createNotification(userId, title, message);
     }
 
     /**
@@ -301,6 +340,29 @@ public class NotificationService {
 
     // ========== REFUND NOTIFICATIONS ==========
     
+    /**
+     * Notify staff that deposit holds have matured and can be refunded
+     * Goes to the staff member the booking is assigned to, or the contract's staff if none
+     */
+    @Transactional
+    public List<Notification> createDepositReadyNotifications(List<DepositHold> depositHolds) {
+        List<Notification> notifications = depositHolds.stream()
+                .map(d -> {
+                    Contract contract = d.getContract();
+                    User staff = contract.getBooking() != null && contract.getBooking().getAssignedStaff() != null
+                            ? contract.getBooking().getAssignedStaff()
+                            : contract.getStaff();
+                    return newNotification(staff, "Tiền cọc sẵn sàng hoàn trả", String.format(
+                        "Tiền cọc của hợp đồng %s đã hết thời gian giữ và sẵn sàng hoàn trả.\n\n" +
+                        "Số tiền cọc: %s VND\n\n" +
+                        "Vui lòng kiểm tra vi phạm giao thông và xử lý hoàn tiền cho khách hàng.",
+                        contract.getContractNumber(),
+                        formatCurrency(d.getDepositAmount())));
+                })
+                .toList();
+        return notificationRepository.saveAll(notifications);
+    }
+
     /**
      * Create notification when refund is initiated
      */
@@ -322,8 +384,24 @@ public class NotificationService {
      */
     @Transactional
     public Notification createRefundCompletedNotification(Long userId, String contractNumber, BigDecimal refundAmount, String method) {
-        String title = "Đã hoàn tiền cọc thành công";
-        String message = String.format(
+        return createNotification(userId, REFUND_COMPLETED_TITLE, refundCompletedMessage(contractNumber, refundAmount, method));
+    }
+
+    /**
+     * Create refund completed notifications for several refunds in one batch (batch refund job)
+     */
+    @Transactional
+    public List<Notification> createRefundCompletedNotifications(List<Refund> refunds) {
+        List<Notification> notifications = refunds.stream()
+                .map(r -> newNotification(r.getCustomer(), REFUND_COMPLETED_TITLE,
+                        refundCompletedMessage(r.getContract().getContractNumber(), r.getRefundAmount(),
+                                r.getRefundMethod().toString())))
+                .toList();
+        return notificationRepository.saveAll(notifications);
+    }
+
+    private String refundCompletedMessage(String contractNumber, BigDecimal refundAmount, String method) {
+        return String.format(
             "Tiền cọc cho hợp đồng %s đã được hoàn lại.\n\n" +
             "Số tiền: %s VND\n" +
             "Phương thức: %s\n\n" +
@@ -332,7 +410,6 @@ public class NotificationService {
             formatCurrency(refundAmount),
             method.equals("TRANSFER") ? "Chuyển khoản" : "Tiền mặt"
         );
-        return createNotification(userId, title, message);
     }
 
     /**
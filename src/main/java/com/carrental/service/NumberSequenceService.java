@@ -0,0 +1,123 @@
+package com.carrental.service;
+
+import com.carrental.model.NumberSequence;
+import com.carrental.repository.NumberSequenceRepository;
+import com.carrental.repository.SupportTicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Collision-free generator for business numbers (bills, contracts, support tickets)
+ * Each sequence is a row in number_sequences. An instance reserves a block of values
+ * in its own short transaction (row locked with SELECT ... FOR UPDATE) and then hands
+ * them out from memory, so most numbers cost no database round trip. Values are unique
+ * across instances and increasing within one instance; values left in a block at
+ * shutdown are skipped, never reused.
+ */
+@Service
+public class NumberSequenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(NumberSequenceService.class);
+
+    public enum Sequence {
+        BILL, CONTRACT, TICKET
+    }
+
+    @Autowired
+    private NumberSequenceRepository numberSequenceRepository;
+
+    @Autowired
+    private SupportTicketRepository supportTicketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${number.sequence.block-size:50}")
+    private int blockSize;
+
+    private final Map<Sequence, Segment> segments = new EnumMap<>(Sequence.class);
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Next value of a sequence
+     * Reserves a new block first when the cached one is used up.
+     */
+    public long next(Sequence sequence) {
+        lock.lock();
+        try {
+            Segment segment = segments.get(sequence);
+            if (segment == null || segment.next >= segment.limit) {
+                segment = allocateBlock(sequence);
+                segments.put(sequence, segment);
+            }
+            return segment.next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reserve the next block in a separate transaction, so it stays reserved even if the
+     * caller's transaction rolls back (otherwise another instance could get the same values)
+     */
+    private Segment allocateBlock(Sequence sequence) {
+        int size = Math.max(1, blockSize);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                Long start = requiresNew.execute(status -> {
+                    NumberSequence row = numberSequenceRepository.findForUpdate(sequence.name())
+                            .orElseGet(() -> numberSequenceRepository.saveAndFlush(
+                                    new NumberSequence(sequence.name(), initialValue(sequence))));
+                    long first = row.getNextValue();
+                    row.setNextValue(first + size);
+                    return first;
+                });
+                log.debug("Reserved {} numbers {}..{}", sequence, start, start + size - 1);
+                return new Segment(start, start + size);
+            } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+                // Another instance created the row at the same time; lock it on the next attempt
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * First value of a sequence that does not exist yet
+     * Ticket numbers used to be count()+1, which never exceeds the highest ticket ID,
+     * so starting above it cannot repeat a legacy number. Bill and contract numbers use
+     * a different width than the old random suffixes, so they start at 1.
+     */
+    private long initialValue(Sequence sequence) {
+        if (sequence == Sequence.TICKET) {
+            return supportTicketRepository.findMaxId() + 1;
+        }
+        return 1L;
+    }
+
+    private static final class Segment {
+        private long next;
+        private final long limit;
+
+        Segment(long next, long limit) {
+            this.next = next;
+            this.limit = limit;
+        }
+    }
+}
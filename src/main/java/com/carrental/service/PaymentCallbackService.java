@@ -0,0 +1,162 @@
+package com.carrental.service;
+
+import com.carrental.model.Contract;
+import com.carrental.model.Payment;
+import com.carrental.repository.PaymentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Applies payment gateway (VNPay) results to payments and contracts
+ * Idempotent and safe under concurrency: the payment status is changed with a
+ * compare-and-set UPDATE, so when the same callback arrives several times
+ * (browser retry, IPN duplicate) only the first one changes the payment and
+ * the contract; the others are reported as duplicates without side effects.
+ */
+@Service
+public class PaymentCallbackService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentCallbackService.class);
+
+    private static final DateTimeFormatter GATEWAY_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    // A success may still arrive after a failure was recorded (e.g. a forged or early failed callback)
+    private static final Set<Payment.PaymentStatus> SUCCESS_FROM = EnumSet.of(
+            Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING, Payment.PaymentStatus.FAILED);
+
+    // A failure never overrides a completed or cancelled payment
+    private static final Set<Payment.PaymentStatus> FAILURE_FROM = EnumSet.of(
+            Payment.PaymentStatus.PENDING, Payment.PaymentStatus.PROCESSING);
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ContractService contractService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    public enum Outcome {
+        APPLIED,    // this call changed the payment
+        DUPLICATE,  // payment was already settled by an earlier call
+        NOT_FOUND   // no payment with this transaction reference
+    }
+
+    /**
+     * Result reported by the gateway (fields as received, not URL encoded)
+     */
+    public record GatewayResult(String transactionRef, String responseCode, String transactionStatus,
+                                String transactionNo, String bankCode, String cardType,
+                                String payDate, String secureHash) {
+
+        public boolean isSuccess() {
+            return "00".equals(responseCode) && "00".equals(transactionStatus);
+        }
+    }
+
+    /**
+     * @param payment Payment after processing (null when not found)
+     */
+    public record CallbackResult(Outcome outcome, Payment payment) {
+    }
+
+    /**
+     * Apply a gateway result with a valid signature
+     * On the first successful result the contract is activated (deposit) or completed (rental bill)
+     * in the same transaction, so a failure there leaves the payment pending for a retry.
+     */
+    @Transactional
+    public CallbackResult processGatewayResult(GatewayResult result) {
+        int updated;
+        if (result.isSuccess()) {
+            updated = paymentRepository.applyGatewayResult(result.transactionRef(), SUCCESS_FROM,
+                    Payment.PaymentStatus.COMPLETED, parsePaymentDate(result.payDate()), result.transactionNo(),
+                    result.responseCode(), result.transactionStatus(), result.bankCode(), result.cardType(),
+                    result.payDate(), result.secureHash());
+        } else {
+            updated = paymentRepository.applyGatewayResult(result.transactionRef(), FAILURE_FROM,
+                    Payment.PaymentStatus.FAILED, null, null,
+                    result.responseCode(), result.transactionStatus(), result.bankCode(), result.cardType(),
+                    result.payDate(), result.secureHash());
+        }
+
+        Optional<Payment> paymentOpt = paymentRepository.findByTransactionRef(result.transactionRef());
+        if (paymentOpt.isEmpty()) {
+            return new CallbackResult(Outcome.NOT_FOUND, null);
+        }
+        Payment payment = paymentOpt.get();
+
+        if (updated == 0) {
+            log.info("Duplicate gateway callback ignored for transactionRef={}, current status={}",
+                    result.transactionRef(), payment.getStatus());
+            return new CallbackResult(Outcome.DUPLICATE, payment);
+        }
+
+        if (result.isSuccess()) {
+            ledgerService.recordPaymentCompleted(payment);
+            Long contractId = payment.getContract().getId();
+            if (payment.getPaymentType() == Payment.PaymentType.DEPOSIT) {
+                contractService.updateContractStatus(contractId, Contract.ContractStatus.ACTIVE);
+            } else if (payment.getPaymentType() == Payment.PaymentType.RENTAL) {
+                contractService.updateContractStatus(contractId, Contract.ContractStatus.COMPLETED);
+            }
+        }
+        return new CallbackResult(Outcome.APPLIED, payment);
+    }
+
+    /**
+     * Apply several gateway results in one transaction (used by the reconciliation job)
+     */
+    @Transactional
+    public List<CallbackResult> processGatewayResults(List<GatewayResult> results) {
+        List<CallbackResult> callbackResults = new ArrayList<>(results.size());
+        for (GatewayResult result : results) {
+            callbackResults.add(processGatewayResult(result));
+        }
+        return callbackResults;
+    }
+
+    /**
+     * Mark a payment as failed after a callback with an invalid signature
+     * Only pending payments are touched; a settled payment is never changed by an unsigned request.
+     */
+    @Transactional
+    public void rejectInvalidSignature(String transactionRef) {
+        paymentRepository.updateStatusIfIn(transactionRef, FAILURE_FROM, Payment.PaymentStatus.FAILED);
+    }
+
+    /**
+     * Find a payment by its gateway transaction reference
+     */
+    @Transactional(readOnly = true)
+    public Optional<Payment> findByTransactionRef(String transactionRef) {
+        return paymentRepository.findByTransactionRef(transactionRef);
+    }
+
+    /**
+     * Parse payment date from gateway format (yyyyMMddHHmmss) to LocalDateTime
+     */
+    private LocalDateTime parsePaymentDate(String payDate) {
+        if (payDate == null || payDate.isEmpty()) {
+            return LocalDateTime.now();
+        }
+        try {
+            return LocalDateTime.parse(payDate, GATEWAY_DATE_FORMAT);
+        } catch (Exception e) {
+            log.warn("Failed to parse payment date {}, fallback to now()", payDate, e);
+            return LocalDateTime.now();
+        }
+    }
+}
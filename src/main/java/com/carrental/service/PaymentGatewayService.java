@@ -1,6 +1,7 @@
 package com.carrental.service;
 
 import com.carrental.config.PaymentGatewayConfig;
+import com.carrental.config.VnPayRequestBuilder;
 import com.carrental.model.Contract;
 import com.carrental.model.Payment;
 import com.carrental.repository.PaymentRepository;
@@ -10,9 +11,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -23,7 +21,7 @@ import java.util.*;
 public class PaymentGatewayService {
 
     @Autowired
-    private PaymentGatewayConfig gatewayConfig;
+    private VnPayRequestBuilder vnPayRequestBuilder;
 
     @Autowired
     private PaymentRepository paymentRepository;
@@ -31,6 +29,9 @@ public class PaymentGatewayService {
     @Autowired
     private ContractService contractService;
 
+    @Autowired
+    private ReservationHoldService reservationHoldService;
+
     /**
      * Initiate deposit payment for a contract
      * Creates a pending payment record and generates payment gateway URL
@@ -61,74 +62,15 @@ public class PaymentGatewayService {
             }
         }
 
-        // Payment gateway parameters
-        String version = gatewayConfig.getVersion();
-        String command = "pay";
-        String orderType = "other";
-
         // Amount in VND cents (multiply by 100 for payment gateway format)
         // Deposit amount is 50,000,000 VND
         long amount = contract.getDepositAmount().multiply(new BigDecimal("100")).longValue();
 
         // Generate unique transaction reference: DEPOSIT{contractId}_{random8digits}
         String transactionRef = "DEPOSIT" + contractId + "_" + PaymentGatewayConfig.getRandomNumber(8);
-        String ipAddress = PaymentGatewayConfig.getIpAddress(request);
-        String merchantCode = gatewayConfig.getMerchantCode();
-
-        // Build payment gateway parameters
-        Map<String, String> params = new HashMap<>();
-        params.put("vnp_Version", version);
-        params.put("vnp_Command", command);
-        params.put("vnp_TmnCode", merchantCode);
-        params.put("vnp_Amount", String.valueOf(amount));
-        params.put("vnp_CurrCode", "VND");
-        params.put("vnp_TxnRef", transactionRef);
-        params.put("vnp_OrderInfo", "Thanh toan coc hop dong #" + contractId);
-        params.put("vnp_OrderType", orderType);
-        params.put("vnp_Locale", "vn");
-        params.put("vnp_ReturnUrl", getReturnUrl(request));
-        params.put("vnp_IpAddr", ipAddress);
-
-        // Set expiry time (15 minutes)
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Etc/GMT+7"));
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMddHHmmss");
-        String createDate = formatter.format(calendar.getTime());
-        params.put("vnp_CreateDate", createDate);
-
-        calendar.add(Calendar.MINUTE, 15);
-        String expireDate = formatter.format(calendar.getTime());
-        params.put("vnp_ExpireDate", expireDate);
-
-        // Build query string and hash
-        List<String> fieldNames = new ArrayList<>(params.keySet());
-        Collections.sort(fieldNames);
-
-        List<String> hashDataList = new ArrayList<>();
-        List<String> queryList = new ArrayList<>();
-
-        for (String fieldName : fieldNames) {
-            String fieldValue = params.get(fieldName);
-            if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                try {
-                    // Build hash data (URL encoded)
-                    hashDataList.add(fieldName + "=" + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8.toString()));
-                    // Build query (URL encoded)
-                    queryList.add(URLEncoder.encode(fieldName, StandardCharsets.UTF_8.toString())
-                            + "="
-                            + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8.toString()));
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to encode payment parameters", e);
-                }
-            }
-        }
-
-        String hashData = String.join("&", hashDataList);
-        String queryUrl = String.join("&", queryList);
-
-        // Generate secure hash
-        String secureHash = PaymentGatewayConfig.hmacSHA512(gatewayConfig.getSecretKey(), hashData);
-        queryUrl += "&vnp_SecureHash=" + secureHash;
-        String paymentUrl = gatewayConfig.getGatewayUrl() + "?" + queryUrl;
+        String paymentUrl = vnPayRequestBuilder.buildPaymentUrl(new VnPayRequestBuilder.PaymentRequest(
+                transactionRef, amount, "Thanh toan coc hop dong #" + contractId, "other",
+                getReturnUrl(request), PaymentGatewayConfig.getIpAddress(request)));
 
         // Create or update payment record
         Payment payment;
@@ -147,6 +89,18 @@ public class PaymentGatewayService {
         payment.setPaymentUrl(paymentUrl);
         paymentRepository.save(payment);
 
+        // Keep the vehicle held for the payment window so the sweeper does not expire the contract mid-payment
+        try {
+            Long vehicleId = contract.getVehicle().getId();
+            if (!reservationHoldService.hasConflictingHold(vehicleId, contract.getStartDate(),
+                    contract.getEndDate(), contract.getCustomer().getId())) {
+                reservationHoldService.placeHold(vehicleId, contract.getCustomer(),
+                        contract.getStartDate(), contract.getEndDate(), VnPayRequestBuilder.EXPIRE_MINUTES);
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to hold vehicle during deposit payment: " + e.getMessage());
+        }
+
         return paymentUrl;
     }
 
@@ -181,71 +135,15 @@ public class PaymentGatewayService {
             return payment.getPaymentUrl();
         }
 
-        // Payment gateway parameters
-        String version = gatewayConfig.getVersion();
-        String command = "pay";
-        String orderType = "billpayment";
-
         // Amount in VND cents
         long amount = payment.getAmount().multiply(new BigDecimal("100")).longValue();
 
         // Generate unique transaction reference: BILL{contractId}_{random8digits}
         String transactionRef = "BILL" + contractId + "_" + PaymentGatewayConfig.getRandomNumber(8);
-        String ipAddress = PaymentGatewayConfig.getIpAddress(request);
-        String merchantCode = gatewayConfig.getMerchantCode();
-
-        // Build payment gateway parameters
-        Map<String, String> params = new HashMap<>();
-        params.put("vnp_Version", version);
-        params.put("vnp_Command", command);
-        params.put("vnp_TmnCode", merchantCode);
-        params.put("vnp_Amount", String.valueOf(amount));
-        params.put("vnp_CurrCode", "VND");
-        params.put("vnp_TxnRef", transactionRef);
-        params.put("vnp_OrderInfo", "Thanh toan hoa don " + (payment.getBillNumber() != null ? payment.getBillNumber() : ("#" + contractId)));
-        params.put("vnp_OrderType", orderType);
-        params.put("vnp_Locale", "vn");
-        params.put("vnp_ReturnUrl", getReturnUrl(request));
-        params.put("vnp_IpAddr", ipAddress);
-
-        // Set expiry time (15 minutes)
-        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Etc/GMT+7"));
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMddHHmmss");
-        String createDate = formatter.format(calendar.getTime());
-        params.put("vnp_CreateDate", createDate);
-
-        calendar.add(Calendar.MINUTE, 15);
-        String expireDate = formatter.format(calendar.getTime());
-        params.put("vnp_ExpireDate", expireDate);
-
-        // Build query string and hash
-        List<String> fieldNames = new ArrayList<>(params.keySet());
-        Collections.sort(fieldNames);
-
-        List<String> hashDataList = new ArrayList<>();
-        List<String> queryList = new ArrayList<>();
-
-        for (String fieldName : fieldNames) {
-            String fieldValue = params.get(fieldName);
-            if ((fieldValue != null) && (fieldValue.length() > 0)) {
-                try {
-                    hashDataList.add(fieldName + "=" + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8.toString()));
-                    queryList.add(URLEncoder.encode(fieldName, StandardCharsets.UTF_8.toString())
-                            + "="
-                            + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8.toString()));
-                } catch (Exception e) {
-                    throw new RuntimeException("Failed to encode payment parameters", e);
-                }
-            }
-        }
-
-        String hashData = String.join("&", hashDataList);
-        String queryUrl = String.join("&", queryList);
-
-        // Generate secure hash
-        String secureHash = PaymentGatewayConfig.hmacSHA512(gatewayConfig.getSecretKey(), hashData);
-        queryUrl += "&vnp_SecureHash=" + secureHash;
-        String paymentUrl = gatewayConfig.getGatewayUrl() + "?" + queryUrl;
+        String orderInfo = "Thanh toan hoa don " + (payment.getBillNumber() != null ? payment.getBillNumber() : ("#" + contractId));
+        String paymentUrl = vnPayRequestBuilder.buildPaymentUrl(new VnPayRequestBuilder.PaymentRequest(
+                transactionRef, amount, orderInfo, "billpayment",
+                getReturnUrl(request), PaymentGatewayConfig.getIpAddress(request)));
 
         // Update payment record with gateway info
         payment.setTransactionRef(transactionRef);
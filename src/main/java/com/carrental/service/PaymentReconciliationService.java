@@ -0,0 +1,298 @@
+package com.carrental.service;
+
+import com.carrental.config.VnPayRequestBuilder;
+import com.carrental.model.Payment;
+import com.carrental.model.StalePaymentDTO;
+import com.carrental.repository.PaymentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reconciles stale PENDING online payments with the gateway
+ * Covers payments whose browser callback and IPN were both lost: pages through pending
+ * payments not touched for a while, queries their status in parallel (bounded by the
+ * worker count and a request rate limit), and applies the results in one transaction per page.
+ * Results go through PaymentCallbackService, so a callback arriving at the same time is harmless.
+ */
+@Service
+public class PaymentReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciliationService.class);
+
+    private static final Pattern CREATE_DATE_PARAM = Pattern.compile("[?&]vnp_CreateDate=(\\d{14})");
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private VnPayQueryClient vnPayQueryClient;
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Value("${payment.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${payment.reconcile.stale-minutes:30}")
+    private long staleMinutes;
+
+    @Value("${payment.reconcile.abandon-after-hours:24}")
+    private long abandonAfterHours;
+
+    @Value("${payment.reconcile.page-size:100}")
+    private int pageSize;
+
+    @Value("${payment.reconcile.concurrency:4}")
+    private int concurrency;
+
+    @Value("${payment.reconcile.max-requests-per-second:5}")
+    private double maxRequestsPerSecond;
+
+    private ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Counts from one reconciliation run
+     */
+    public record Summary(int checked, int completed, int failed, int unchanged, int errors) {
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "payment-reconcile-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.reconcile.interval-ms:900000}",
+               initialDelayString = "${payment.reconcile.initial-delay-ms:120000}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Run one reconciliation pass over all stale pending payments
+     * Returns immediately with empty counts if a pass is already running.
+     */
+    public Summary reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Payment reconciliation already running, skipped");
+            return new Summary(0, 0, 0, 0, 0);
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime staleCutoff = now.minusMinutes(staleMinutes);
+            LocalDateTime abandonCutoff = now.minusHours(abandonAfterHours);
+            RateLimiter rateLimiter = new RateLimiter(maxRequestsPerSecond);
+
+            int checked = 0, completed = 0, failed = 0, unchanged = 0, errors = 0;
+            Long afterId = 0L;
+            List<StalePaymentDTO> page;
+            do {
+                page = paymentRepository.findStalePendingPayments(staleCutoff, afterId, PageRequest.of(0, Math.max(1, pageSize)));
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1).getPaymentId();
+
+                List<PaymentCallbackService.GatewayResult> updates = new ArrayList<>();
+                for (QueryOutcome outcome : queryAll(page, rateLimiter)) {
+                    checked++;
+                    if (outcome.result() == null) {
+                        errors++;
+                        continue;
+                    }
+                    PaymentCallbackService.GatewayResult update = toGatewayResult(outcome.payment(), outcome.result(), abandonCutoff);
+                    if (update == null) {
+                        unchanged++;
+                    } else {
+                        updates.add(update);
+                    }
+                }
+
+                for (PaymentCallbackService.CallbackResult result : apply(updates)) {
+                    if (result.outcome() != PaymentCallbackService.Outcome.APPLIED) {
+                        unchanged++;
+                    } else if (result.payment().getStatus() == Payment.PaymentStatus.COMPLETED) {
+                        completed++;
+                    } else {
+                        failed++;
+                    }
+                }
+            } while (page.size() >= pageSize);
+
+            Summary summary = new Summary(checked, completed, failed, unchanged, errors);
+            if (checked > 0) {
+                log.info("Payment reconciliation finished: {}", summary);
+            }
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Query the gateway for a page of payments in parallel
+     */
+    private List<QueryOutcome> queryAll(List<StalePaymentDTO> payments, RateLimiter rateLimiter) {
+        List<Future<VnPayQueryClient.QueryResult>> futures = new ArrayList<>(payments.size());
+        for (StalePaymentDTO payment : payments) {
+            futures.add(executor.submit(() -> {
+                rateLimiter.acquire();
+                return vnPayQueryClient.query(payment.getTransactionRef(), transactionDate(payment));
+            }));
+        }
+
+        List<QueryOutcome> outcomes = new ArrayList<>(payments.size());
+        for (int i = 0; i < payments.size(); i++) {
+            StalePaymentDTO payment = payments.get(i);
+            VnPayQueryClient.QueryResult result = null;
+            try {
+                result = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                throw new RuntimeException("Payment reconciliation interrupted", e);
+            } catch (ExecutionException e) {
+                log.warn("Gateway query failed for transactionRef={}: {}",
+                        payment.getTransactionRef(), e.getCause().getMessage());
+            }
+            outcomes.add(new QueryOutcome(payment, result));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Apply a page of results in one transaction; if that fails, apply them one by one
+     * so a single bad row does not block the rest of the page
+     */
+    private List<PaymentCallbackService.CallbackResult> apply(List<PaymentCallbackService.GatewayResult> updates) {
+        if (updates.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return paymentCallbackService.processGatewayResults(updates);
+        } catch (RuntimeException e) {
+            log.warn("Batch reconciliation update failed, retrying one by one: {}", e.getMessage());
+        }
+
+        List<PaymentCallbackService.CallbackResult> results = new ArrayList<>();
+        for (PaymentCallbackService.GatewayResult update : updates) {
+            try {
+                results.add(paymentCallbackService.processGatewayResult(update));
+            } catch (RuntimeException e) {
+                log.error("Reconciliation update failed for transactionRef={}", update.transactionRef(), e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Map the gateway status to a result to apply, or null to leave the payment pending
+     * A paid transaction whose amount differs from the payment is left pending.
+     * Payments still unpaid after abandon-after-hours are failed only for deposits: a failed
+     * deposit is simply replaced by a new one on the next attempt, while a bill must stay
+     * PENDING for the customer to pay it.
+     */
+    private PaymentCallbackService.GatewayResult toGatewayResult(StalePaymentDTO payment,
+                                                                 VnPayQueryClient.QueryResult result,
+                                                                 LocalDateTime abandonCutoff) {
+        boolean abandoned = payment.getPaymentType() == Payment.PaymentType.DEPOSIT
+                && payment.getUpdatedAt() != null
+                && payment.getUpdatedAt().isBefore(abandonCutoff);
+
+        if (result.isFound() && "00".equals(result.transactionStatus()) && !result.hasAmount(payment.getAmount())) {
+            // Same check as the IPN: never complete a payment for a different amount
+            log.warn("Gateway amount mismatch for transactionRef={}: received {}, expected {}; left pending",
+                    payment.getTransactionRef(), result.amount(), payment.getAmount());
+            return null;
+        }
+
+        boolean settle;
+        if (result.isFound()) {
+            settle = "00".equals(result.transactionStatus())        // paid
+                    || "02".equals(result.transactionStatus())      // failed at the gateway
+                    || ("01".equals(result.transactionStatus()) && abandoned);
+        } else {
+            settle = result.isNotFound() && abandoned;
+        }
+        if (!settle) {
+            return null;
+        }
+        return new PaymentCallbackService.GatewayResult(payment.getTransactionRef(), result.responseCode(),
+                result.transactionStatus(), result.transactionNo(), result.bankCode(), null,
+                result.payDate(), result.secureHash());
+    }
+
+    /**
+     * vnp_CreateDate sent with the payment URL (required by the query API), or the last update time
+     */
+    private static String transactionDate(StalePaymentDTO payment) {
+        if (payment.getPaymentUrl() != null) {
+            Matcher matcher = CREATE_DATE_PARAM.matcher(payment.getPaymentUrl());
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        LocalDateTime fallback = payment.getUpdatedAt() != null ? payment.getUpdatedAt() : LocalDateTime.now();
+        return VnPayRequestBuilder.GATEWAY_DATE_FORMAT.format(fallback);
+    }
+
+    private record QueryOutcome(StalePaymentDTO payment, VnPayQueryClient.QueryResult result) {
+    }
+
+    /**
+     * Spaces requests evenly to stay under the gateway rate limit (shared by all query threads)
+     */
+    private static final class RateLimiter {
+        private final long intervalNanos;
+        private long nextSlot = System.nanoTime();
+
+        RateLimiter(double permitsPerSecond) {
+            this.intervalNanos = permitsPerSecond > 0 ? (long) (1_000_000_000L / permitsPerSecond) : 0L;
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long slot = Math.max(now, nextSlot);
+                nextSlot = slot + intervalNanos;
+                waitNanos = slot - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+    }
+}
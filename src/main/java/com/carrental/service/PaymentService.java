@@ -26,6 +26,12 @@ public class PaymentService {
     @Autowired
     private ContractService contractService;
 
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
     public List<Payment> getAllPayments() {
         return paymentRepository.findAll();
     }
@@ -47,15 +53,17 @@ public class PaymentService {
     public Payment updatePaymentStatus(Long id, PaymentStatus status) {
         Payment payment = paymentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Payment not found"));
+        PaymentStatus oldStatus = payment.getStatus();
         payment.setStatus(status);
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        if (status == PaymentStatus.COMPLETED && oldStatus != PaymentStatus.COMPLETED) {
+            ledgerService.recordPaymentCompleted(savedPayment);
+        }
+        return savedPayment;
     }
 
     public Payment processPayment(Long id, String transactionId) {
-        Payment payment = paymentRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Payment not found"));
-        payment.setStatus(PaymentStatus.COMPLETED);
-        return paymentRepository.save(payment);
+        return updatePaymentStatus(id, PaymentStatus.COMPLETED);
     }
 
     /**
@@ -148,6 +156,7 @@ public class PaymentService {
         payment.setPaymentDate(LocalDateTime.now());
 
         Payment savedPayment = paymentRepository.save(payment);
+        ledgerService.recordPaymentCompleted(savedPayment);
 
         // When rental payment is processed manually, mark contract as completed
         if (contract.getStatus() != Contract.ContractStatus.COMPLETED) {
@@ -269,20 +278,12 @@ public class PaymentService {
     }
 
     /**
-     * Generate unique bill number (format: BILL-YYYYMMDD-XXXX)
+     * Generate unique bill number (format: BILL-YYYYMMDD-NNNNNN)
+     * The suffix comes from the bill number sequence, so no uniqueness lookup is needed
      */
     private String generateBillNumber() {
         String datePrefix = LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String randomSuffix = String.format("%04d", (int)(Math.random() * 10000));
-        String billNumber = "BILL-" + datePrefix + "-" + randomSuffix;
-        
-        // Ensure uniqueness
-        while (paymentRepository.findByBillNumber(billNumber).isPresent()) {
-            randomSuffix = String.format("%04d", (int)(Math.random() * 10000));
-            billNumber = "BILL-" + datePrefix + "-" + randomSuffix;
-        }
-        
-        return billNumber;
+        return "BILL-" + datePrefix + "-" + String.format("%06d", numberSequenceService.next(NumberSequenceService.Sequence.BILL));
     }
 
     /**
@@ -0,0 +1,175 @@
+package com.carrental.service;
+
+import com.carrental.model.PaymentSettlementTask;
+import com.carrental.repository.PaymentSettlementTaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable in-process work queue for settling gateway results received via IPN
+ * A task row is stored before the IPN is acknowledged; worker threads then apply
+ * the payment/contract transition through PaymentCallbackService, retrying with
+ * a linear backoff. Pending tasks are re-queued at startup, so an acknowledged
+ * IPN is never lost by a restart. Settlement is idempotent, so a task that runs
+ * twice (or races the browser return callback) has no extra effect.
+ */
+@Service
+public class PaymentSettlementQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentSettlementQueue.class);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private PaymentSettlementTaskRepository taskRepository;
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Value("${payment.settlement.workers:2}")
+    private int workerCount;
+
+    @Value("${payment.settlement.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.settlement.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "payment-settlement-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    /**
+     * Re-queue tasks left pending by the previous run and start the workers
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<Long> pendingIds = taskRepository.findIdsByStatus(PaymentSettlementTask.TaskStatus.PENDING);
+        queue.addAll(pendingIds);
+
+        running = true;
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            Thread worker = new Thread(this::runWorker, "payment-settlement-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Payment settlement queue started: {} workers, {} pending tasks re-queued", workers.size(), pendingIds.size());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        retryScheduler.shutdownNow();
+        workers.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Store a gateway result and queue it for settlement
+     * Returns once the task is persisted, so the caller may acknowledge the gateway.
+     */
+    public PaymentSettlementTask submit(PaymentCallbackService.GatewayResult result) {
+        PaymentSettlementTask task = new PaymentSettlementTask();
+        task.setTransactionRef(result.transactionRef());
+        task.setResponseCode(result.responseCode());
+        task.setTransactionStatus(result.transactionStatus());
+        task.setTransactionNo(result.transactionNo());
+        task.setBankCode(result.bankCode());
+        task.setCardType(result.cardType());
+        task.setPayDate(result.payDate());
+        task.setSecureHash(result.secureHash());
+        task.setStatus(PaymentSettlementTask.TaskStatus.PENDING);
+        task.setAttempts(0);
+        task.setCreatedAt(LocalDateTime.now());
+        task = taskRepository.save(task);
+
+        queue.offer(task.getId());
+        return task;
+    }
+
+    /**
+     * Number of tasks waiting in memory for a worker
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private void runWorker() {
+        while (running) {
+            try {
+                process(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Payment settlement worker error", e);
+            }
+        }
+    }
+
+    private void process(Long taskId) {
+        PaymentSettlementTask task = taskRepository.findById(taskId).orElse(null);
+        if (task == null || task.getStatus() != PaymentSettlementTask.TaskStatus.PENDING) {
+            return;
+        }
+
+        try {
+            PaymentCallbackService.CallbackResult result = paymentCallbackService.processGatewayResult(
+                    new PaymentCallbackService.GatewayResult(task.getTransactionRef(), task.getResponseCode(),
+                            task.getTransactionStatus(), task.getTransactionNo(), task.getBankCode(),
+                            task.getCardType(), task.getPayDate(), task.getSecureHash()));
+
+            task.setAttempts(task.getAttempts() + 1);
+            task.setStatus(PaymentSettlementTask.TaskStatus.DONE);
+            task.setProcessedAt(LocalDateTime.now());
+            taskRepository.save(task);
+            log.info("Settled IPN task {} for transactionRef={}, outcome={}",
+                    taskId, task.getTransactionRef(), result.outcome());
+        } catch (Exception e) {
+            int attempts = task.getAttempts() + 1;
+            task.setAttempts(attempts);
+            task.setLastError(truncate(e.getMessage()));
+            if (attempts >= maxAttempts) {
+                task.setStatus(PaymentSettlementTask.TaskStatus.FAILED);
+                task.setProcessedAt(LocalDateTime.now());
+                log.error("IPN task {} for transactionRef={} failed after {} attempts",
+                        taskId, task.getTransactionRef(), attempts, e);
+            } else {
+                log.warn("IPN task {} for transactionRef={} failed (attempt {}), retrying: {}",
+                        taskId, task.getTransactionRef(), attempts, e.getMessage());
+            }
+            taskRepository.save(task);
+
+            if (task.getStatus() == PaymentSettlementTask.TaskStatus.PENDING && running) {
+                retryScheduler.schedule(() -> queue.offer(taskId), retryDelayMs * attempts, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
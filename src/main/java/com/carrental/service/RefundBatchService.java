@@ -0,0 +1,157 @@
+package com.carrental.service;
+
+import com.carrental.model.Refund;
+import com.carrental.model.Refund.RefundMethod;
+import com.carrental.repository.DepositHoldRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Scheduled refund of matured deposit holds
+ * Pages through due holds by ID (keyset) and refunds each page in one transaction through
+ * RefundService.processRefunds. If a page fails (e.g. a staff member refunded one of its holds
+ * at the same time), its holds are retried one by one so the rest still go through.
+ * Customer notifications are written on a background thread after the page has committed.
+ */
+@Service
+public class RefundBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefundBatchService.class);
+
+    @Autowired
+    private DepositHoldRepository depositHoldRepository;
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Value("${refund.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${refund.batch.page-size:100}")
+    private int pageSize;
+
+    @Value("${refund.batch.method:TRANSFER}")
+    private RefundMethod refundMethod;
+
+    private ExecutorService notificationExecutor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * Counts from one batch run
+     */
+    public record Summary(int refunded, int skipped) {
+    }
+
+    @PostConstruct
+    public void init() {
+        notificationExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "refund-notifications");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notificationExecutor.shutdown();
+    }
+
+    @Scheduled(cron = "${refund.batch.cron:0 0 2 * * *}")
+    public void scheduledRefund() {
+        if (enabled) {
+            processDueRefunds();
+        }
+    }
+
+    /**
+     * Refund every hold that is due now
+     * Returns immediately with empty counts if a run is already in progress.
+     */
+    public Summary processDueRefunds() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Batch refund already running, skipped");
+            return new Summary(0, 0);
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int size = Math.max(1, pageSize);
+            int refunded = 0, skipped = 0;
+            Long afterId = 0L;
+            List<Long> page;
+            do {
+                page = depositHoldRepository.findIdsDueForRefund(now, afterId, PageRequest.of(0, size));
+                if (page.isEmpty()) {
+                    break;
+                }
+                afterId = page.get(page.size() - 1);
+
+                List<Refund> refunds = refundPage(page);
+                refunded += refunds.size();
+                skipped += page.size() - refunds.size();
+                notifyCustomers(refunds);
+            } while (page.size() >= size);
+
+            Summary summary = new Summary(refunded, skipped);
+            if (refunded > 0 || skipped > 0) {
+                log.info("Batch refund finished: {}", summary);
+            }
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Refund a page in one transaction; if that fails, refund its holds one by one
+     */
+    private List<Refund> refundPage(List<Long> holdIds) {
+        try {
+            return refundService.processRefunds(holdIds, refundMethod);
+        } catch (RuntimeException e) {
+            log.warn("Batch refund page failed, retrying one by one: {}", e.getMessage());
+        }
+
+        List<Refund> refunds = new ArrayList<>();
+        for (Long holdId : holdIds) {
+            try {
+                refunds.addAll(refundService.processRefunds(List.of(holdId), refundMethod));
+            } catch (RuntimeException e) {
+                log.error("Batch refund failed for deposit hold {}", holdId, e);
+            }
+        }
+        return refunds;
+    }
+
+    /**
+     * Queue customer notifications for committed refunds; a failure only affects the notifications
+     */
+    private void notifyCustomers(List<Refund> refunds) {
+        if (refunds.isEmpty()) {
+            return;
+        }
+        notificationExecutor.execute(() -> {
+            try {
+                notificationService.createRefundCompletedNotifications(refunds);
+            } catch (RuntimeException e) {
+                log.error("Failed to send {} refund notifications", refunds.size(), e);
+            }
+        });
+    }
+}
@@ -10,8 +10,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class RefundService {
@@ -31,6 +36,9 @@ public class RefundService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private LedgerService ledgerService;
+
     /**
      * Process deposit refund
      */
@@ -51,32 +59,10 @@ public class RefundService {
             throw new IllegalStateException("Refund already processed for this deposit hold");
         }
 
-        // Calculate refund amount
-        BigDecimal originalDeposit = depositHold.getDepositAmount();
-        BigDecimal deductedAtReturn = depositHold.getDeductedAtReturn();
-        BigDecimal trafficFines = violationRepository.sumFineAmountByDepositHoldId(holdId);
-        
-        BigDecimal refundAmount = originalDeposit
-                .subtract(deductedAtReturn)
-                .subtract(trafficFines);
-
-        // Ensure refund amount is not negative
-        if (refundAmount.compareTo(BigDecimal.ZERO) < 0) {
-            refundAmount = BigDecimal.ZERO;
-        }
-
         // Create refund record
-        Refund refund = new Refund();
-        refund.setDepositHold(depositHold);
-        refund.setContract(depositHold.getContract());
-        refund.setCustomer(depositHold.getContract().getCustomer());
-        refund.setOriginalDeposit(originalDeposit);
-        refund.setDeductedAtReturn(deductedAtReturn);
-        refund.setTrafficFines(trafficFines);
-        refund.setRefundAmount(refundAmount);
-        refund.setRefundMethod(refundMethod);
+        BigDecimal trafficFines = violationRepository.sumFineAmountByDepositHoldId(holdId);
+        Refund refund = newRefund(depositHold, trafficFines, refundMethod);
         refund.setStatus(RefundStatus.PENDING);
-        refund.setProcessedAt(LocalDateTime.now());
 
         Refund savedRefund = refundRepository.save(refund);
 
@@ -84,8 +70,10 @@ public class RefundService {
         depositHold.setStatus(DepositHold.DepositStatus.REFUNDED);
         depositHoldRepository.save(depositHold);
 
-        // Create refund payment record
-        createRefundPayment(depositHold.getContract(), savedRefund, refundAmount, refundMethod);
+        // Create refund payment record and post it to the ledger
+        Payment refundPayment = paymentRepository.save(
+                newRefundPayment(depositHold.getContract(), savedRefund.getRefundAmount(), refundMethod));
+        ledgerService.recordDepositRefund(savedRefund, refundPayment);
 
         // Send notification to customer
         sendRefundNotification(depositHold.getContract().getCustomer(), savedRefund);
@@ -95,6 +83,60 @@ public class RefundService {
         return refundRepository.save(savedRefund);
     }
 
+    /**
+     * Refund several due deposit holds in one transaction (batch refund job)
+     * Holds, existing refunds and fine totals are each read with one query for the whole list;
+     * refunds and refund payments are saved with saveAll. Holds that are not due or already
+     * have a refund are skipped. Notifications are left to the caller, to be sent after commit.
+     * @return the refunds created
+     */
+    @Transactional
+    public List<Refund> processRefunds(List<Long> holdIds, RefundMethod refundMethod) {
+        if (holdIds.isEmpty()) {
+            return List.of();
+        }
+        List<DepositHold> depositHolds = depositHoldRepository.findWithContractByIdIn(holdIds);
+        Set<Long> alreadyRefunded = new HashSet<>(refundRepository.findDepositHoldIdsWithRefund(holdIds));
+        Map<Long, BigDecimal> finesByHold = new HashMap<>();
+        for (Object[] row : violationRepository.sumFineAmountByDepositHoldIds(holdIds)) {
+            finesByHold.put((Long) row[0], (BigDecimal) row[1]);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Refund> refunds = new ArrayList<>();
+        List<Payment> refundPayments = new ArrayList<>();
+        for (DepositHold depositHold : depositHolds) {
+            if (alreadyRefunded.contains(depositHold.getId()) || !isDueForRefund(depositHold, now)) {
+                continue;
+            }
+            Refund refund = newRefund(depositHold,
+                    finesByHold.getOrDefault(depositHold.getId(), BigDecimal.ZERO), refundMethod);
+            refund.setStatus(RefundStatus.COMPLETED);
+            refunds.add(refund);
+            refundPayments.add(newRefundPayment(depositHold.getContract(), refund.getRefundAmount(), refundMethod));
+
+            // Managed entity: flushed with the other updates at commit
+            depositHold.setStatus(DepositHold.DepositStatus.REFUNDED);
+        }
+
+        refundRepository.saveAll(refunds);
+        paymentRepository.saveAll(refundPayments);
+        for (int i = 0; i < refunds.size(); i++) {
+            ledgerService.recordDepositRefund(refunds.get(i), refundPayments.get(i));
+        }
+        return refunds;
+    }
+
+    /**
+     * READY, or still HOLDING but past the hold end date (not yet switched by the deposit pages)
+     */
+    private boolean isDueForRefund(DepositHold depositHold, LocalDateTime now) {
+        return depositHold.getStatus() == DepositHold.DepositStatus.READY
+                || (depositHold.getStatus() == DepositHold.DepositStatus.HOLDING
+                    && depositHold.getHoldEndDate() != null
+                    && now.isAfter(depositHold.getHoldEndDate()));
+    }
+
     /**
      * Get refunds by status
      */
@@ -118,7 +160,9 @@ public class RefundService {
 
         BigDecimal originalDeposit = depositHold.getDepositAmount();
         BigDecimal deductedAtReturn = depositHold.getDeductedAtReturn();
-        BigDecimal trafficFines = violationRepository.sumFineAmountByDepositHoldId(holdId);
+        BigDecimal trafficFines = depositHold.getTotalFines() != null
+                ? depositHold.getTotalFines()
+                : violationRepository.sumFineAmountByDepositHoldId(holdId);
         
         BigDecimal refundAmount = originalDeposit
                 .subtract(deductedAtReturn)
@@ -128,9 +172,37 @@ public class RefundService {
     }
 
     /**
-     * Create refund payment record
+     * Build the refund record: deposit minus return deductions and traffic fines, never negative
+     */
+    private Refund newRefund(DepositHold depositHold, BigDecimal trafficFines, RefundMethod refundMethod) {
+        BigDecimal originalDeposit = depositHold.getDepositAmount();
+        BigDecimal deductedAtReturn = depositHold.getDeductedAtReturn();
+        BigDecimal refundAmount = originalDeposit
+                .subtract(deductedAtReturn)
+                .subtract(trafficFines);
+
+        // Ensure refund amount is not negative
+        if (refundAmount.compareTo(BigDecimal.ZERO) < 0) {
+            refundAmount = BigDecimal.ZERO;
+        }
+
+        Refund refund = new Refund();
+        refund.setDepositHold(depositHold);
+        refund.setContract(depositHold.getContract());
+        refund.setCustomer(depositHold.getContract().getCustomer());
+        refund.setOriginalDeposit(originalDeposit);
+        refund.setDeductedAtReturn(deductedAtReturn);
+        refund.setTrafficFines(trafficFines);
+        refund.setRefundAmount(refundAmount);
+        refund.setRefundMethod(refundMethod);
+        refund.setProcessedAt(LocalDateTime.now());
+        return refund;
+    }
+
+    /**
+     * Build refund payment record
      */
-    private void createRefundPayment(Contract contract, Refund refund, BigDecimal amount, RefundMethod method) {
+    private Payment newRefundPayment(Contract contract, BigDecimal amount, RefundMethod method) {
         Payment payment = new Payment();
         payment.setContract(contract);
         payment.setPaymentType(Payment.PaymentType.REFUND);
@@ -147,8 +219,7 @@ public class RefundService {
         
         payment.setStatus(Payment.PaymentStatus.COMPLETED);
         payment.setPaymentDate(LocalDateTime.now());
-        
-        paymentRepository.save(payment);
+        return payment;
     }
 
     /**
@@ -0,0 +1,180 @@
+package com.carrental.service;
+
+import com.carrental.model.ContractExportRowDTO;
+import com.carrental.model.PaymentExportRowDTO;
+import com.carrental.model.VehicleUsageDTO;
+import com.carrental.repository.ContractRepository;
+import com.carrental.repository.PaymentRepository;
+import com.carrental.util.CsvTableWriter;
+import com.carrental.util.TableWriter;
+import com.carrental.util.XlsxTableWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Report data export (UC22) as CSV or XLSX
+ * Payments and contracts are streamed from the database row by row and written straight to the
+ * output, so a year of transactions is exported with the same memory as a day. Vehicle usage is
+ * one aggregated row per vehicle and comes from ReportService.
+ */
+@Service
+public class ReportExportService {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final List<String> PAYMENT_COLUMNS = List.of(
+            "Mã thanh toán", "Số hóa đơn", "Mã giao dịch", "Mã hợp đồng", "Khách hàng",
+            "Loại", "Phương thức", "Trạng thái", "Số tiền", "Ngày thanh toán");
+
+    private static final List<String> CONTRACT_COLUMNS = List.of(
+            "Mã", "Mã hợp đồng", "Trạng thái", "Khách hàng", "Email", "Biển số", "Hãng", "Mẫu xe",
+            "Ngày bắt đầu", "Ngày kết thúc", "Số ngày", "Giá thuê / ngày", "Tổng tiền thuê", "Tiền cọc", "Ngày tạo");
+
+    private static final List<String> USAGE_COLUMNS = List.of(
+            "Mã xe", "Biển số", "Hãng", "Mẫu xe", "Loại xe", "Số lượt thuê", "Tổng ngày thuê",
+            "Doanh thu", "Tỷ lệ sử dụng (%)", "Trạng thái hiện tại");
+
+    public enum Dataset {
+        PAYMENTS("payments"),
+        CONTRACTS("contracts"),
+        USAGE("vehicle-usage");
+
+        private final String fileName;
+
+        Dataset(String fileName) {
+            this.fileName = fileName;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    public enum Format {
+        CSV("csv", "text/csv;charset=UTF-8"),
+        XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+        private final String extension;
+        private final String contentType;
+
+        Format(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private ReportService reportService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Write one dataset for a date range to the output stream (left open)
+     */
+    public void export(Dataset dataset, Format format, LocalDateTime startDate, LocalDateTime endDate,
+                       OutputStream out) throws IOException {
+        try (TableWriter writer = format == Format.XLSX
+                ? new XlsxTableWriter(out, dataset.getFileName())
+                : new CsvTableWriter(out)) {
+            switch (dataset) {
+                case PAYMENTS -> {
+                    writer.writeHeader(PAYMENT_COLUMNS);
+                    streamRows(() -> paymentRepository.streamForExport(startDate, endDate), writer,
+                            this::paymentCells);
+                }
+                case CONTRACTS -> {
+                    writer.writeHeader(CONTRACT_COLUMNS);
+                    streamRows(() -> contractRepository.streamForExport(startDate, endDate), writer,
+                            this::contractCells);
+                }
+                case USAGE -> {
+                    writer.writeHeader(USAGE_COLUMNS);
+                    for (VehicleUsageDTO usage : reportService.generateVehicleUsageReport(startDate, endDate)) {
+                        writer.writeRow(usageCells(usage));
+                    }
+                }
+            }
+        }
+    }
+
+    private <T> void streamRows(Supplier<Stream<T>> query, TableWriter writer,
+                                Function<T, List<?>> toCells) throws IOException {
+        // Streaming queries need an open connection for as long as rows are read
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    rows.forEach(row -> {
+                        try {
+                            writer.writeRow(toCells.apply(row));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client closed the download
+            throw e.getCause();
+        }
+    }
+
+    private List<?> paymentCells(PaymentExportRowDTO row) {
+        return Arrays.asList(
+                row.getPaymentId(), row.getBillNumber(), row.getTransactionRef(), row.getContractNumber(),
+                row.getCustomerName(), name(row.getPaymentType()), name(row.getPaymentMethod()),
+                name(row.getStatus()), row.getAmount(), format(row.getPaymentDate()));
+    }
+
+    private List<?> contractCells(ContractExportRowDTO row) {
+        return Arrays.asList(
+                row.getContractId(), row.getContractNumber(), name(row.getStatus()), row.getCustomerName(),
+                row.getCustomerEmail(), row.getLicensePlate(), row.getBrandName(), row.getModelName(),
+                format(row.getStartDate()), format(row.getEndDate()), row.getTotalDays(), row.getDailyRate(),
+                row.getTotalRentalFee(), row.getDepositAmount(), format(row.getCreatedAt()));
+    }
+
+    private List<?> usageCells(VehicleUsageDTO usage) {
+        return Arrays.asList(
+                usage.getVehicleId(), usage.getLicensePlate(), usage.getBrandName(), usage.getModelName(),
+                usage.getCategory(), usage.getRentalCount(), usage.getTotalDaysRented(), usage.getTotalRevenue(),
+                usage.getUtilizationRate(), usage.getCurrentStatus());
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime == null ? null : dateTime.format(DATE_TIME);
+    }
+}
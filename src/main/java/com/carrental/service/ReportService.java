@@ -3,6 +3,7 @@ package com.carrental.service;
 import com.carrental.model.*;
 import com.carrental.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -34,6 +35,14 @@ public class ReportService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private LedgerService ledgerService;
+    
+    @Value("${report.usage.clip-to-period:false}")
+    private boolean clipUsageToPeriod;
+    
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    
     /**
      * Generate revenue report for a date range
      */
@@ -90,88 +99,64 @@ public class ReportService {
     
     /**
      * Calculate daily revenue for trend charts
+     * Read from the ledger's daily cash totals (money received + refunded, i.e. every completed
+     * payment as before) instead of loading each payment in the range. Buckets are whole days.
      */
     private Map<String, BigDecimal> calculateDailyRevenue(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Payment> payments = paymentRepository.findCompletedPaymentsInRange(startDate, endDate);
         Map<String, BigDecimal> dailyRevenue = new LinkedHashMap<>();
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
-        // Group payments by date
-        Map<String, List<Payment>> paymentsByDate = payments.stream()
-            .collect(Collectors.groupingBy(p -> p.getPaymentDate().format(formatter)));
-        
-        // Calculate revenue for each date
-        for (Map.Entry<String, List<Payment>> entry : paymentsByDate.entrySet()) {
-            BigDecimal dayRevenue = entry.getValue().stream()
-                .map(Payment::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            dailyRevenue.put(entry.getKey(), dayRevenue);
-        }
+        ledgerService.getDailyTotals(LedgerEntry.Account.CASH, startDate.toLocalDate(), endDate.toLocalDate())
+            .forEach((day, total) -> dailyRevenue.put(day.format(formatter), total.turnover()));
         
         return dailyRevenue;
     }
     
     /**
      * Generate vehicle usage report for a date range
+     * Contract count, rental days and revenue are aggregated per vehicle by the database.
+     * With report.usage.clip-to-period, rental days count only the part of each rental inside the range.
      */
     public List<VehicleUsageDTO> generateVehicleUsageReport(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Contract> contracts = contractRepository.findActiveAndCompletedContractsWithVehicle(startDate, endDate);
-        
-        // Group contracts by vehicle
-        Map<Long, List<Contract>> contractsByVehicle = contracts.stream()
-            .collect(Collectors.groupingBy(c -> c.getVehicle().getId()));
+        List<VehicleUsageDTO> usageList = contractRepository.findVehicleUsage(startDate, endDate);
         
-        List<VehicleUsageDTO> usageList = new ArrayList<>();
+        if (clipUsageToPeriod && !usageList.isEmpty()) {
+            Map<Long, Long> clippedDays = countClippedRentalDays(startDate, endDate);
+            usageList.forEach(dto -> dto.setTotalDaysRented(clippedDays.getOrDefault(dto.getVehicleId(), 0L)));
+        }
         
-        for (Map.Entry<Long, List<Contract>> entry : contractsByVehicle.entrySet()) {
-            Long vehicleId = entry.getKey();
-            List<Contract> vehicleContracts = entry.getValue();
-            
-            if (vehicleContracts.isEmpty()) continue;
-            
-            Vehicle vehicle = vehicleContracts.get(0).getVehicle();
-            
-            // Calculate statistics
-            Long rentalCount = (long) vehicleContracts.size();
-            Long totalDaysRented = vehicleContracts.stream()
-                .mapToLong(Contract::getTotalDays)
-                .sum();
-            BigDecimal totalRevenue = vehicleContracts.stream()
-                .map(Contract::getTotalRentalFee)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // Calculate utilization rate
-            long daysBetween = ChronoUnit.DAYS.between(startDate, endDate);
+        // Calculate utilization rate
+        long daysBetween = ChronoUnit.DAYS.between(startDate, endDate);
+        for (VehicleUsageDTO dto : usageList) {
             BigDecimal utilizationRate = BigDecimal.ZERO;
             if (daysBetween > 0) {
-                utilizationRate = BigDecimal.valueOf(totalDaysRented)
+                utilizationRate = BigDecimal.valueOf(dto.getTotalDaysRented())
                     .divide(BigDecimal.valueOf(daysBetween), 4, RoundingMode.HALF_UP)
                     .multiply(BigDecimal.valueOf(100));
             }
-            
-            VehicleUsageDTO dto = new VehicleUsageDTO(
-                vehicleId,
-                vehicle.getLicensePlate(),
-                vehicle.getModel().getBrand().getBrandName(),
-                vehicle.getModel().getModelName(),
-                vehicle.getModel().getCategory(),
-                rentalCount,
-                totalDaysRented,
-                totalRevenue
-            );
             dto.setUtilizationRate(utilizationRate);
-            dto.setCurrentStatus(vehicle.getStatus().name());
-            
-            usageList.add(dto);
         }
         
-        // Sort by total revenue descending
-        usageList.sort((a, b) -> b.getTotalRevenue().compareTo(a.getTotalRevenue()));
-        
         return usageList;
     }
     
+    /**
+     * Rented days per vehicle counting only the overlap of each rental with [startDate, endDate]
+     * (a started day counts as a full day); intervals are summed in parallel
+     */
+    private Map<Long, Long> countClippedRentalDays(LocalDateTime startDate, LocalDateTime endDate) {
+        return contractRepository.findRentalIntervalsOverlapping(startDate, endDate).parallelStream()
+            .collect(Collectors.groupingByConcurrent(
+                row -> (Long) row[0],
+                Collectors.summingLong(row -> {
+                    LocalDateTime from = ((LocalDateTime) row[1]).isBefore(startDate) ? startDate : (LocalDateTime) row[1];
+                    LocalDateTime to = ((LocalDateTime) row[2]).isAfter(endDate) ? endDate : (LocalDateTime) row[2];
+                    long minutes = ChronoUnit.MINUTES.between(from, to);
+                    return minutes <= 0 ? 0 : (minutes + MINUTES_PER_DAY - 1) / MINUTES_PER_DAY;
+                })));
+    }
+    
     /**
      * Generate customer statistics report
      */
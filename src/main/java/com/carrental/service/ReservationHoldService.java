@@ -0,0 +1,260 @@
+package com.carrental.service;
+
+import com.carrental.model.ReservationHold;
+import com.carrental.model.User;
+import com.carrental.model.Vehicle;
+import com.carrental.repository.ReservationHoldRepository;
+import com.carrental.repository.VehicleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Short-lived reservation holds on vehicles
+ * Holds are kept in an in-memory index (per vehicle) for lock-free availability checks
+ * and mirrored to the reservation_holds table so they survive a restart.
+ */
+@Service
+public class ReservationHoldService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationHoldService.class);
+
+    @Autowired
+    private ReservationHoldRepository reservationHoldRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Value("${reservation.hold.ttl-minutes:15}")
+    private long holdTtlMinutes;
+
+    // vehicleId -> immutable snapshot of holds on that vehicle (replaced atomically on every change)
+    private final Map<Long, List<HoldEntry>> holdsByVehicle = new ConcurrentHashMap<>();
+
+    /**
+     * Rebuild the in-memory index from the database at startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadActiveHolds() {
+        List<ReservationHold> holds = reservationHoldRepository.findUnexpired(LocalDateTime.now());
+        holdsByVehicle.clear();
+        for (ReservationHold hold : holds) {
+            HoldEntry entry = new HoldEntry(hold.getCustomer().getId(), hold.getStartDate(),
+                    hold.getEndDate(), hold.getExpiresAt());
+            holdsByVehicle.merge(hold.getVehicle().getId(), List.of(entry), (existing, added) -> {
+                List<HoldEntry> merged = new ArrayList<>(existing);
+                merged.addAll(added);
+                return List.copyOf(merged);
+            });
+        }
+        log.info("Loaded {} active reservation holds", holds.size());
+    }
+
+    /**
+     * Place (or refresh) a hold for the customer using the default TTL
+     */
+    @Transactional
+    public ReservationHold placeHold(Long vehicleId, User customer, LocalDateTime startDate, LocalDateTime endDate) {
+        return placeHold(vehicleId, customer, startDate, endDate, holdTtlMinutes);
+    }
+
+    /**
+     * Place (or refresh) a hold for the customer on a vehicle and date range
+     * Replaces any previous hold of the same customer on that vehicle.
+     * The index is updated right away so a concurrent hold by another customer sees it, and is
+     * restored if the surrounding transaction rolls back.
+     * @throws RuntimeException if another customer already holds an overlapping range
+     */
+    @Transactional
+    public ReservationHold placeHold(Long vehicleId, User customer, LocalDateTime startDate,
+                                     LocalDateTime endDate, long ttlMinutes) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new RuntimeException("Invalid hold date range");
+        }
+        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new RuntimeException("Vehicle not found"));
+
+        LocalDateTime now = LocalDateTime.now();
+        HoldEntry entry = new HoldEntry(customer.getId(), startDate, endDate, now.plusMinutes(ttlMinutes));
+
+        // Check and insert atomically for this vehicle
+        AtomicReference<HoldEntry> replaced = new AtomicReference<>();
+        holdsByVehicle.compute(vehicleId, (id, current) -> {
+            List<HoldEntry> updated = new ArrayList<>();
+            if (current != null) {
+                for (HoldEntry existing : current) {
+                    if (existing.isExpired(now)) {
+                        continue;
+                    }
+                    if (existing.customerId().equals(customer.getId())) {
+                        replaced.set(existing);
+                        continue;
+                    }
+                    if (existing.overlaps(startDate, endDate)) {
+                        throw new RuntimeException("Xe đang được khách hàng khác giữ chỗ cho khoảng thời gian này");
+                    }
+                    updated.add(existing);
+                }
+            }
+            updated.add(entry);
+            return List.copyOf(updated);
+        });
+
+        afterCompletion(null, () -> restoreIndex(vehicleId, entry, replaced.get()));
+
+        reservationHoldRepository.deleteByVehicleIdAndCustomerId(vehicleId, customer.getId());
+
+        ReservationHold hold = new ReservationHold();
+        hold.setVehicle(vehicle);
+        hold.setCustomer(customer);
+        hold.setStartDate(startDate);
+        hold.setEndDate(endDate);
+        hold.setExpiresAt(entry.expiresAt());
+        hold.setCreatedAt(now);
+        return reservationHoldRepository.save(hold);
+    }
+
+    /**
+     * Release the hold a customer has on a vehicle (e.g. once the booking is created)
+     */
+    @Transactional
+    public void releaseHold(Long vehicleId, Long customerId) {
+        reservationHoldRepository.deleteByVehicleIdAndCustomerId(vehicleId, customerId);
+        // Kept in memory until the delete commits, so a rolled-back booking keeps its hold
+        afterCompletion(() -> removeFromIndex(vehicleId, customerId), null);
+    }
+
+    /**
+     * Check whether another customer holds an overlapping range on the vehicle
+     * Served entirely from memory.
+     * @param excludeCustomerId customer whose own hold should be ignored (may be null)
+     */
+    public boolean hasConflictingHold(Long vehicleId, LocalDateTime startDate, LocalDateTime endDate,
+                                      Long excludeCustomerId) {
+        List<HoldEntry> holds = holdsByVehicle.get(vehicleId);
+        if (holds == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (HoldEntry hold : holds) {
+            if (hold.isExpired(now) || hold.customerId().equals(excludeCustomerId)) {
+                continue;
+            }
+            if (hold.overlaps(startDate, endDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether the customer currently holds the vehicle
+     */
+    public boolean hasActiveHold(Long vehicleId, Long customerId) {
+        List<HoldEntry> holds = holdsByVehicle.get(vehicleId);
+        if (holds == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return holds.stream().anyMatch(h -> !h.isExpired(now) && h.customerId().equals(customerId));
+    }
+
+    /**
+     * Drop expired holds from memory and delete them from the table in one statement
+     * @return number of rows deleted
+     */
+    @Transactional
+    public int purgeExpiredHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long vehicleId : holdsByVehicle.keySet()) {
+            holdsByVehicle.computeIfPresent(vehicleId, (id, current) -> {
+                List<HoldEntry> remaining = current.stream().filter(h -> !h.isExpired(now)).toList();
+                return remaining.isEmpty() ? null : remaining;
+            });
+        }
+        return reservationHoldRepository.deleteExpired(now);
+    }
+
+    public long getHoldTtlMinutes() {
+        return holdTtlMinutes;
+    }
+
+    private void removeFromIndex(Long vehicleId, Long customerId) {
+        holdsByVehicle.computeIfPresent(vehicleId, (id, current) -> {
+            List<HoldEntry> remaining = current.stream()
+                    .filter(h -> !h.customerId().equals(customerId))
+                    .toList();
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    /**
+     * Undo a hold placed in a transaction that rolled back: drop it and put back the
+     * customer's previous hold it replaced (if any)
+     */
+    private void restoreIndex(Long vehicleId, HoldEntry placed, HoldEntry previous) {
+        holdsByVehicle.compute(vehicleId, (id, current) -> {
+            List<HoldEntry> restored = new ArrayList<>();
+            if (current != null) {
+                current.stream().filter(h -> !h.equals(placed)).forEach(restored::add);
+            }
+            if (previous != null && !previous.isExpired(LocalDateTime.now())) {
+                restored.add(previous);
+            }
+            return restored.isEmpty() ? null : List.copyOf(restored);
+        });
+    }
+
+    /**
+     * Run onCommit after the current transaction commits (or immediately if there is none),
+     * and onRollback if it rolls back
+     */
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Runnable action = status == STATUS_COMMITTED ? onCommit : onRollback;
+                if (action != null) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * In-memory view of a hold
+     */
+    private record HoldEntry(Long customerId, LocalDateTime startDate, LocalDateTime endDate,
+                             LocalDateTime expiresAt) {
+
+        boolean isExpired(LocalDateTime now) {
+            return !expiresAt.isAfter(now);
+        }
+
+        // Same overlap rule as the booking/contract availability queries
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return !startDate.isAfter(end) && !endDate.isBefore(start);
+        }
+    }
+}
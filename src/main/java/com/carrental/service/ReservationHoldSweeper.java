@@ -0,0 +1,55 @@
+package com.carrental.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Background job that frees inventory blocked by abandoned reservations
+ * 1. Deletes expired reservation holds
+ * 2. Cancels PENDING_PAYMENT contracts whose deposit was never paid, in batches
+ *    (each batch runs in its own transaction)
+ */
+@Component
+public class ReservationHoldSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationHoldSweeper.class);
+
+    @Autowired
+    private ReservationHoldService reservationHoldService;
+
+    @Autowired
+    private ContractService contractService;
+
+    @Value("${reservation.pending-payment.ttl-hours:24}")
+    private long pendingPaymentTtlHours;
+
+    @Value("${reservation.sweep.batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${reservation.sweep.interval-ms:60000}")
+    public void sweep() {
+        try {
+            int expiredHolds = reservationHoldService.purgeExpiredHolds();
+
+            LocalDateTime cutoff = LocalDateTime.now().minusHours(pendingPaymentTtlHours);
+            Long lastId = 0L;
+            int batches = 0;
+            while ((lastId = contractService.expireStalePendingPaymentContracts(cutoff, lastId, batchSize)) != null) {
+                batches++;
+            }
+
+            if (expiredHolds > 0 || batches > 0) {
+                log.info("Reservation sweep: {} expired holds removed, {} contract batches examined",
+                        expiredHolds, batches);
+            }
+        } catch (Exception e) {
+            log.error("Reservation sweep failed", e);
+        }
+    }
+}
@@ -37,6 +37,9 @@ public class ReturnService {
     @Autowired
     private DepositHoldRepository depositHoldRepository;
 
+    @Autowired
+    private DepositMaturityScheduler depositMaturityScheduler;
+
     @Autowired
     private SystemSettingsRepository systemSettingsRepository;
 
@@ -459,6 +462,7 @@ public class ReturnService {
         System.out.println("===========================");
 
         depositHoldRepository.save(depositHold);
+        depositMaturityScheduler.schedule(depositHold.getId(), depositHold.getHoldEndDate());
     }
 
     /**
@@ -0,0 +1,307 @@
+package com.carrental.service;
+
+import com.carrental.model.User;
+import com.carrental.repository.BookingRepository;
+import com.carrental.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory load-balancing engine for assigning pending bookings to staff
+ * Keeps every active staff member in a min-heap ordered by pending workload
+ * (ties broken by full name), so picking a staff member is O(log n) with no queries.
+ * Workloads are updated when bookings are assigned, approved, rejected or cancelled,
+ * and rebuilt from the database at startup and periodically to correct any drift.
+ */
+@Service
+public class StaffAssignmentEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(StaffAssignmentEngine.class);
+
+    /**
+     * Assignment policies
+     * LEAST_LOADED: staff with fewest pending bookings (then by name)
+     * ROUND_ROBIN: rotate through active staff in ID order
+     * LOCATION_AFFINITY: prefer staff already handling the same pickup location,
+     *                    as long as they are not much busier than the least-loaded staff
+     */
+    public enum Policy {
+        LEAST_LOADED, ROUND_ROBIN, LOCATION_AFFINITY
+    }
+
+    // How many more pending bookings an affinity match may have than the least-loaded staff
+    private static final int AFFINITY_SLACK = 2;
+
+    private static final Comparator<StaffLoad> LOAD_ORDER = Comparator
+            .comparingInt(StaffLoad::pending)
+            .thenComparing(StaffLoad::fullName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(StaffLoad::staffId);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Value("${booking.assignment.policy:LEAST_LOADED}")
+    private Policy policy;
+
+    // All state below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, StaffLoad> loadsByStaff = new HashMap<>();
+    private final TreeSet<StaffLoad> heap = new TreeSet<>(LOAD_ORDER);
+    private final TreeSet<Long> staffIds = new TreeSet<>();
+    // pickupLocationId -> (staffId -> pending bookings at that location)
+    private final Map<Long, Map<Long, Integer>> locationLoads = new HashMap<>();
+    private long roundRobinCursor = 0L;
+
+    /**
+     * Rebuild workloads from the database
+     * One query for active staff and one grouped count query for pending bookings
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${booking.assignment.resync-interval-ms:3600000}",
+               initialDelayString = "${booking.assignment.resync-interval-ms:3600000}")
+    public void rebuild() {
+        List<User> staffMembers = userRepository.findByRoleAndStatus(User.UserRole.STAFF, User.UserStatus.ACTIVE);
+        List<Object[]> pendingCounts = bookingRepository.countPendingBookingsByStaffAndPickupLocation();
+
+        lock.lock();
+        try {
+            loadsByStaff.clear();
+            heap.clear();
+            staffIds.clear();
+            locationLoads.clear();
+            for (User staff : staffMembers) {
+                put(new StaffLoad(staff.getId(), staff.getFullName(), 0));
+            }
+            for (Object[] row : pendingCounts) {
+                Long staffId = (Long) row[0];
+                Long locationId = (Long) row[1];
+                int count = ((Number) row[2]).intValue();
+                StaffLoad current = loadsByStaff.get(staffId);
+                if (current != null) {
+                    heap.remove(current);
+                    put(current.withPending(current.pending() + count));
+                    locationLoads.computeIfAbsent(locationId, id -> new HashMap<>()).merge(staffId, count, Integer::sum);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.info("Staff assignment engine rebuilt: {} active staff, policy={}", staffMembers.size(), policy);
+    }
+
+    /**
+     * Pick a staff member for a new pending booking and count it against them right away
+     * (so concurrent assignments spread out). The count is rolled back if the surrounding
+     * transaction does not commit.
+     * @param pickupLocationId pickup location of the booking (used by LOCATION_AFFINITY)
+     * @return selected staff ID
+     */
+    public Long reserveStaff(Long pickupLocationId) {
+        Long staffId;
+        lock.lock();
+        try {
+            if (heap.isEmpty()) {
+                throw new RuntimeException("No staff members available for assignment");
+            }
+            staffId = switch (policy) {
+                case ROUND_ROBIN -> selectRoundRobin();
+                case LOCATION_AFFINITY -> selectByLocation(pickupLocationId);
+                default -> heap.first().staffId();
+            };
+            adjust(staffId, pickupLocationId, 1);
+        } finally {
+            lock.unlock();
+        }
+
+        Long selected = staffId;
+        afterCompletion(null, () -> adjustLocked(selected, pickupLocationId, -1));
+        return selected;
+    }
+
+    /**
+     * Record a manual (re)assignment of a pending booking, applied after commit
+     * @param previousStaffId staff the booking was assigned to before (may be null)
+     */
+    public void onAssigned(Long previousStaffId, Long staffId, Long pickupLocationId) {
+        afterCompletion(() -> {
+            if (previousStaffId != null) {
+                adjustLocked(previousStaffId, pickupLocationId, -1);
+            }
+            adjustLocked(staffId, pickupLocationId, 1);
+        }, null);
+    }
+
+    /**
+     * Record that a pending booking left the queue (approved, rejected or cancelled), applied after commit
+     */
+    public void onResolved(Long staffId, Long pickupLocationId) {
+        if (staffId == null) {
+            return;
+        }
+        afterCompletion(() -> adjustLocked(staffId, pickupLocationId, -1), null);
+    }
+
+    /**
+     * Add a staff member (new or re-activated) to the pool
+     */
+    public void registerStaff(User staff, long pendingCount) {
+        lock.lock();
+        try {
+            StaffLoad current = loadsByStaff.get(staff.getId());
+            if (current != null) {
+                heap.remove(current);
+            }
+            put(new StaffLoad(staff.getId(), staff.getFullName(), (int) pendingCount));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a staff member (deactivated or deleted) from the pool
+     */
+    public void removeStaff(Long staffId) {
+        lock.lock();
+        try {
+            StaffLoad current = loadsByStaff.remove(staffId);
+            if (current != null) {
+                heap.remove(current);
+            }
+            staffIds.remove(staffId);
+            locationLoads.values().forEach(counts -> counts.remove(staffId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Current pending booking count per active staff member
+     */
+    public Map<Long, Integer> getPendingCounts() {
+        lock.lock();
+        try {
+            Map<Long, Integer> counts = new HashMap<>();
+            loadsByStaff.forEach((id, load) -> counts.put(id, load.pending()));
+            return counts;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    // ===== Selection (lock held) =====
+
+    private Long selectRoundRobin() {
+        Long next = staffIds.higher(roundRobinCursor);
+        if (next == null) {
+            next = staffIds.first();
+        }
+        roundRobinCursor = next;
+        return next;
+    }
+
+    private Long selectByLocation(Long pickupLocationId) {
+        StaffLoad leastLoaded = heap.first();
+        Map<Long, Integer> atLocation = pickupLocationId != null ? locationLoads.get(pickupLocationId) : null;
+        if (atLocation == null || atLocation.isEmpty()) {
+            return leastLoaded.staffId();
+        }
+
+        StaffLoad best = null;
+        for (Long staffId : atLocation.keySet()) {
+            StaffLoad load = loadsByStaff.get(staffId);
+            if (load != null && (best == null || LOAD_ORDER.compare(load, best) < 0)) {
+                best = load;
+            }
+        }
+        if (best != null && best.pending() <= leastLoaded.pending() + AFFINITY_SLACK) {
+            return best.staffId();
+        }
+        return leastLoaded.staffId();
+    }
+
+    // ===== Heap maintenance =====
+
+    private void adjustLocked(Long staffId, Long pickupLocationId, int delta) {
+        lock.lock();
+        try {
+            adjust(staffId, pickupLocationId, delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(Long staffId, Long pickupLocationId, int delta) {
+        StaffLoad current = loadsByStaff.get(staffId);
+        if (current == null) {
+            return; // Staff is not in the pool (e.g. inactive)
+        }
+        heap.remove(current);
+        put(current.withPending(Math.max(0, current.pending() + delta)));
+
+        if (pickupLocationId != null) {
+            Map<Long, Integer> counts = locationLoads.computeIfAbsent(pickupLocationId, id -> new HashMap<>());
+            int updated = counts.getOrDefault(staffId, 0) + delta;
+            if (updated > 0) {
+                counts.put(staffId, updated);
+            } else {
+                counts.remove(staffId);
+            }
+        }
+    }
+
+    private void put(StaffLoad load) {
+        loadsByStaff.put(load.staffId(), load);
+        heap.add(load);
+        staffIds.add(load.staffId());
+    }
+
+    /**
+     * Run onCommit after the current transaction commits (or immediately if there is none),
+     * and onRollback if it rolls back
+     */
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Runnable action = status == STATUS_COMMITTED ? onCommit : onRollback;
+                if (action != null) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private record StaffLoad(Long staffId, String fullName, int pending) {
+        StaffLoad withPending(int newPending) {
+            return new StaffLoad(staffId, fullName, newPending);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.carrental.service;
+
+import com.carrental.model.SupportChatMessageDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Live support chat: one in-memory topic per ticket with the open Server-Sent Event streams
+ * of everyone viewing the conversation (customer, staff, admin)
+ * Messages are published by SupportService once the reply has committed and written to the
+ * streams by a single dispatcher thread, so a post never waits on the viewers' connections and
+ * each stream receives events in order. Tickets nobody is viewing have no topic and publishing
+ * to them is free. Topics live in this application instance only; a viewer whose stream drops
+ * gets the messages missed meanwhile replayed on reconnect (Last-Event-ID, see SupportService).
+ */
+@Service
+public class SupportChatHub {
+
+    private static final Logger log = LoggerFactory.getLogger(SupportChatHub.class);
+
+    @Value("${support.chat.stream-timeout-minutes:30}")
+    private long streamTimeoutMinutes;
+
+    private final Map<Long, Set<SseEmitter>> topics = new ConcurrentHashMap<>();
+    private ExecutorService dispatcher;
+
+    @PostConstruct
+    public void start() {
+        dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "support-chat");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        topics.values().forEach(streams -> streams.forEach(SseEmitter::complete));
+        topics.clear();
+    }
+
+    /**
+     * Open a stream on a ticket's topic
+     */
+    public SseEmitter subscribe(Long ticketId) {
+        // Browsers reconnect on their own when the stream times out
+        SseEmitter emitter = new SseEmitter(Duration.ofMinutes(streamTimeoutMinutes).toMillis());
+        emitter.onCompletion(() -> unsubscribe(ticketId, emitter));
+        emitter.onTimeout(() -> unsubscribe(ticketId, emitter));
+        emitter.onError(e -> unsubscribe(ticketId, emitter));
+
+        topics.compute(ticketId, (id, streams) -> {
+            Set<SseEmitter> topic = streams != null ? streams : ConcurrentHashMap.newKeySet();
+            topic.add(emitter);
+            return topic;
+        });
+        return emitter;
+    }
+
+    /**
+     * Send messages to one stream only (replay after a reconnect)
+     */
+    public void replay(Long ticketId, SseEmitter emitter, List<SupportChatMessageDTO> messages) {
+        if (!messages.isEmpty()) {
+            dispatch(() -> messages.forEach(message -> send(ticketId, emitter, message)));
+        }
+    }
+
+    /**
+     * Push a message to everyone viewing the ticket
+     */
+    public void publish(Long ticketId, SupportChatMessageDTO message) {
+        Set<SseEmitter> streams = topics.get(ticketId);
+        if (streams == null) {
+            return;
+        }
+        dispatch(() -> streams.forEach(emitter -> send(ticketId, emitter, message)));
+    }
+
+    /**
+     * Comment line on every stream so proxies keep idle connections open and dead ones are dropped
+     */
+    @Scheduled(fixedDelayString = "${support.chat.heartbeat-ms:25000}")
+    public void heartbeat() {
+        if (topics.isEmpty()) {
+            return;
+        }
+        dispatch(() -> topics.forEach((ticketId, streams) -> streams.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                drop(ticketId, emitter);
+            }
+        })));
+    }
+
+    private void send(Long ticketId, SseEmitter emitter, SupportChatMessageDTO message) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(message.getId()))
+                    .name("message")
+                    .data(message, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Viewer went away (closed tab, network); the browser reconnects if it is still there
+            drop(ticketId, emitter);
+        }
+    }
+
+    private void drop(Long ticketId, SseEmitter emitter) {
+        unsubscribe(ticketId, emitter);
+        emitter.completeWithError(new IOException("Support chat stream closed"));
+    }
+
+    private void unsubscribe(Long ticketId, SseEmitter emitter) {
+        topics.computeIfPresent(ticketId, (id, streams) -> {
+            streams.remove(emitter);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    private void dispatch(Runnable task) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            log.debug("Support chat dispatch rejected", e);
+        }
+    }
+}
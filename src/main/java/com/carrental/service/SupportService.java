@@ -1,5 +1,7 @@
 package com.carrental.service;
 
+import com.carrental.model.KeysetPage;
+import com.carrental.model.SupportChatMessageDTO;
 import com.carrental.model.SupportMessage;
 import com.carrental.model.SupportTicket;
 import com.carrental.model.SupportTicket.TicketStatus;
@@ -8,17 +10,28 @@ import com.carrental.repository.SupportMessageRepository;
 import com.carrental.repository.SupportTicketRepository;
 import com.carrental.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class SupportService {
 
+    private static final DateTimeFormatter CHAT_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    private static final List<TicketStatus> OPEN_STATUSES = List.of(TicketStatus.OPEN, TicketStatus.IN_PROGRESS);
+
     @Autowired
     private SupportTicketRepository supportTicketRepository;
     
@@ -31,11 +44,40 @@ public class SupportService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private NumberSequenceService numberSequenceService;
+
+    @Autowired
+    private SupportChatHub supportChatHub;
+
+    @Autowired
+    private TicketRoutingEngine ticketRoutingEngine;
+
+    @Value("${support.tickets.page-size:20}")
+    private int ticketPageSize;
+
+    @Value("${support.messages.page-size:30}")
+    private int messagePageSize;
+
     /**
-     * Get all tickets sorted by newest first (for staff/admin)
+     * One page of tickets for staff/admin, newest first
+     * @param status null for all statuses
+     * @param assigneeId null for any assignee
+     * @param unassigned only tickets not assigned to anyone
+     * @param before created time of the cursor from the previous page, null for the first page
+     * @param beforeId ticket ID of the cursor from the previous page
      */
-    public List<SupportTicket> getAllTickets() {
-        return supportTicketRepository.findAllByOrderByCreatedAtDesc();
+    public KeysetPage<SupportTicket> getTicketPage(TicketStatus status, Long assigneeId, boolean unassigned,
+                                                   LocalDateTime before, Long beforeId) {
+        // One extra row tells whether there is a next page
+        List<SupportTicket> rows = supportTicketRepository.findPage(status, assigneeId, unassigned,
+                before, beforeId, PageRequest.of(0, ticketPageSize + 1));
+        if (rows.size() <= ticketPageSize) {
+            return new KeysetPage<>(rows, null, null);
+        }
+        List<SupportTicket> tickets = rows.subList(0, ticketPageSize);
+        SupportTicket last = tickets.get(ticketPageSize - 1);
+        return new KeysetPage<>(tickets, last.getCreatedAt(), last.getId());
     }
 
     /**
@@ -73,12 +115,12 @@ public class SupportService {
     private String generateTicketNumber() {
         String year = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy"));
         
-        // Count existing tickets this year to get next number
+        // Next value of the ticket number sequence (safe under concurrent ticket creation)
         String prefix = "TK-" + year + "-";
-        long count = supportTicketRepository.count() + 1;
+        long next = numberSequenceService.next(NumberSequenceService.Sequence.TICKET);
         
-        // Format with leading zeros (4 digits)
-        String number = String.format("%04d", count);
+        // Format with leading zeros (at least 4 digits)
+        String number = String.format("%04d", next);
         
         return prefix + number;
     }
@@ -94,6 +136,12 @@ public class SupportService {
         
         // Set initial status
         ticket.setStatus(TicketStatus.OPEN);
+
+        // Route to a staff member by open workload and category skill (left unassigned if none is active)
+        Long staffId = ticketRoutingEngine.reserveStaff(ticket.getCategory());
+        if (staffId != null) {
+            ticket.setAssignedTo(userRepository.getReferenceById(staffId));
+        }
         
         // Save ticket
         SupportTicket savedTicket = supportTicketRepository.save(ticket);
@@ -128,6 +176,17 @@ public class SupportService {
 
         SupportTicket savedTicket = supportTicketRepository.save(ticket);
 
+        // Keep the assignee's open/resolved counts in the routing engine in step
+        if (ticket.getAssignedTo() != null) {
+            boolean wasOpen = TicketRoutingEngine.isOpen(oldStatus);
+            boolean isOpen = TicketRoutingEngine.isOpen(status);
+            if (wasOpen && !isOpen) {
+                ticketRoutingEngine.onClosed(ticket.getAssignedTo().getId(), ticket.getCategory());
+            } else if (!wasOpen && isOpen) {
+                ticketRoutingEngine.onReopened(ticket.getAssignedTo().getId());
+            }
+        }
+
         // Send notification when ticket is resolved
         if (status == TicketStatus.RESOLVED && oldStatus != TicketStatus.RESOLVED && ticket.getCustomer() != null) {
             try {
@@ -154,6 +213,7 @@ public class SupportService {
         User staff = userRepository.findById(staffId)
                 .orElseThrow(() -> new RuntimeException("Staff not found"));
         
+        Long previousStaffId = ticket.getAssignedTo() != null ? ticket.getAssignedTo().getId() : null;
         ticket.setAssignedTo(staff);
         
         // Auto-update status to IN_PROGRESS when assigned
@@ -163,6 +223,10 @@ public class SupportService {
 
         SupportTicket savedTicket = supportTicketRepository.save(ticket);
 
+        if (TicketRoutingEngine.isOpen(savedTicket.getStatus()) && !staffId.equals(previousStaffId)) {
+            ticketRoutingEngine.onAssigned(previousStaffId, staffId);
+        }
+
         // Send notification to customer about ticket assignment
         if (ticket.getCustomer() != null) {
             try {
@@ -180,10 +244,62 @@ public class SupportService {
     }
     
     /**
-     * Get all messages for a ticket
+     * Re-route the open tickets of a staff member who left the routing pool (deactivated)
+     * Tickets nobody can take are left unassigned until routeUnassignedTickets runs.
+     * @return number of tickets moved
      */
-    public List<SupportMessage> getMessages(Long ticketId) {
-        return supportMessageRepository.findByTicketIdOrderByCreatedAtAsc(ticketId);
+    @Transactional
+    public int reassignOpenTickets(Long staffId) {
+        if (!ticketRoutingEngine.isEnabled()) {
+            return 0;
+        }
+        List<SupportTicket> tickets = supportTicketRepository.findByAssignedToIdAndStatusIn(staffId, OPEN_STATUSES);
+        for (SupportTicket ticket : tickets) {
+            Long nextStaffId = ticketRoutingEngine.reserveStaff(ticket.getCategory());
+            ticket.setAssignedTo(nextStaffId != null ? userRepository.getReferenceById(nextStaffId) : null);
+        }
+        supportTicketRepository.saveAll(tickets);
+        return tickets.size();
+    }
+
+    /**
+     * Route open tickets that have no assignee (created while no staff was active, or left
+     * by a deactivated or deleted staff member), oldest first
+     * @return number of tickets assigned
+     */
+    @Transactional
+    public int routeUnassignedTickets() {
+        if (!ticketRoutingEngine.isEnabled()) {
+            return 0;
+        }
+        List<SupportTicket> routed = new ArrayList<>();
+        for (SupportTicket ticket : supportTicketRepository.findByAssignedToIsNullAndStatusInOrderByCreatedAtAsc(OPEN_STATUSES)) {
+            Long staffId = ticketRoutingEngine.reserveStaff(ticket.getCategory());
+            if (staffId == null) {
+                break;
+            }
+            ticket.setAssignedTo(userRepository.getReferenceById(staffId));
+            routed.add(ticket);
+        }
+        supportTicketRepository.saveAll(routed);
+        return routed.size();
+    }
+
+    /**
+     * Latest conversation messages of a ticket, or the ones before a cursor ("load older messages")
+     * Items are returned oldest first for display; the cursor points at the oldest item.
+     */
+    public KeysetPage<SupportMessage> getMessagePage(Long ticketId, LocalDateTime before, Long beforeId) {
+        List<SupportMessage> rows = supportMessageRepository.findConversationPage(ticketId, before, beforeId,
+                PageRequest.of(0, messagePageSize + 1));
+        boolean hasMore = rows.size() > messagePageSize;
+        List<SupportMessage> messages = new ArrayList<>(hasMore ? rows.subList(0, messagePageSize) : rows);
+        Collections.reverse(messages);
+        if (!hasMore) {
+            return new KeysetPage<>(messages, null, null);
+        }
+        SupportMessage oldest = messages.get(0);
+        return new KeysetPage<>(messages, oldest.getCreatedAt(), oldest.getId());
     }
     
     /**
@@ -204,6 +320,15 @@ public class SupportService {
         
         SupportMessage savedMessage = supportMessageRepository.save(message);
 
+        // Push to the live chat only once the reply is committed (a rolled-back reply is never shown)
+        SupportChatMessageDTO chatMessage = toChatMessage(savedMessage);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                supportChatHub.publish(ticketId, chatMessage);
+            }
+        });
+
         // If sender is staff/admin and ticket has a customer, send notification
         if (ticket.getCustomer() != null && 
             (sender.getRole() == User.UserRole.STAFF || sender.getRole() == User.UserRole.ADMIN)) {
@@ -220,6 +345,42 @@ public class SupportService {
         return savedMessage;
     }
     
+    /**
+     * Open the live chat stream of a ticket
+     * @param afterId ID of the last message the viewer has (the newest one rendered on the page, or
+     *                the last event received before a reconnect); every newer message is replayed
+     *                in pages of messagePageSize. Null replays nothing.
+     */
+    public SseEmitter openChatStream(Long ticketId, Long afterId) {
+        // Subscribe before reading the backlog so nothing committed in between is lost (duplicates are ignored by the page)
+        SseEmitter emitter = supportChatHub.subscribe(ticketId);
+        if (afterId != null) {
+            List<SupportChatMessageDTO> missed = new ArrayList<>();
+            Long cursor = afterId;
+            List<SupportMessage> page;
+            do {
+                page = supportMessageRepository.findByTicketIdAndIdGreaterThanAndRatingIsNullOrderByIdAsc(
+                        ticketId, cursor, PageRequest.of(0, messagePageSize));
+                page.forEach(message -> missed.add(toChatMessage(message)));
+                if (!page.isEmpty()) {
+                    cursor = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() >= messagePageSize);
+            supportChatHub.replay(ticketId, emitter, missed);
+        }
+        return emitter;
+    }
+
+    /**
+     * Live chat form of a message
+     */
+    public SupportChatMessageDTO toChatMessage(SupportMessage message) {
+        // created_at is filled in by the database; a message saved in this request does not have it loaded yet
+        LocalDateTime createdAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+        return new SupportChatMessageDTO(message.getId(), message.getSender().getFullName(),
+                message.getMessageText(), createdAt.format(CHAT_TIME_FORMAT));
+    }
+
     /**
      * UC21: Rate support ticket
      * Customer can rate a resolved/closed ticket
@@ -0,0 +1,325 @@
+package com.carrental.service;
+
+import com.carrental.model.SupportTicket.Category;
+import com.carrental.model.SupportTicket.TicketStatus;
+import com.carrental.model.User;
+import com.carrental.repository.SupportTicketRepository;
+import com.carrental.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory routing engine assigning new support tickets to staff by load and skill
+ * Every active staff member has an open-ticket count (OPEN/IN_PROGRESS assigned to them) and a
+ * per-category count of tickets they have resolved. A staff member with at least skill-threshold
+ * resolved tickets in a category is treated as skilled in it and may carry skill-slack more open
+ * tickets than a non-skilled colleague before the colleague is preferred. One ordered set per
+ * category keeps staff sorted by that score, so routing a ticket is O(log n) with no queries.
+ * Counts follow ticket creation, assignment and status changes, and are rebuilt from the
+ * database at startup and periodically to correct any drift.
+ */
+@Service
+public class TicketRoutingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketRoutingEngine.class);
+
+    private static final Comparator<Candidate> ROUTING_ORDER = Comparator
+            .comparingInt(Candidate::score)
+            .thenComparingInt(Candidate::open)
+            .thenComparing(Candidate::fullName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Candidate::staffId);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SupportTicketRepository supportTicketRepository;
+
+    @Value("${support.routing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${support.routing.skill-threshold:3}")
+    private int skillThreshold;
+
+    @Value("${support.routing.skill-slack:2}")
+    private int skillSlack;
+
+    // All state below is guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, StaffState> staffById = new HashMap<>();
+    private final Map<Category, TreeSet<Candidate>> queues = new EnumMap<>(Category.class);
+
+    public TicketRoutingEngine() {
+        for (Category category : Category.values()) {
+            queues.put(category, new TreeSet<>(ROUTING_ORDER));
+        }
+    }
+
+    /**
+     * Ticket statuses that count as open work for the assignee
+     */
+    public static boolean isOpen(TicketStatus status) {
+        return status == TicketStatus.OPEN || status == TicketStatus.IN_PROGRESS;
+    }
+
+    /**
+     * Rebuild counts from the database
+     * One query for active staff and one grouped count query for their tickets
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${support.routing.resync-interval-ms:3600000}",
+               initialDelayString = "${support.routing.resync-interval-ms:3600000}")
+    public void rebuild() {
+        List<User> staffMembers = userRepository.findByRoleAndStatus(User.UserRole.STAFF, User.UserStatus.ACTIVE);
+        List<Object[]> ticketCounts = supportTicketRepository.countAssignedByStaffCategoryAndStatus();
+
+        lock.lock();
+        try {
+            staffById.clear();
+            queues.values().forEach(TreeSet::clear);
+            for (User staff : staffMembers) {
+                staffById.put(staff.getId(), new StaffState(staff.getId(), staff.getFullName()));
+            }
+            for (Object[] row : ticketCounts) {
+                StaffState state = staffById.get((Long) row[0]);
+                if (state != null) {
+                    state.count((Category) row[1], (TicketStatus) row[2], ((Number) row[3]).intValue());
+                }
+            }
+            staffById.values().forEach(this::reindex);
+        } finally {
+            lock.unlock();
+        }
+        log.info("Ticket routing engine rebuilt: {} active staff", staffMembers.size());
+    }
+
+    /**
+     * Pick a staff member for a new or re-routed ticket and count it against them right away
+     * (so concurrent tickets spread out). The count is rolled back if the surrounding
+     * transaction does not commit.
+     * @return selected staff ID, or null when routing is off or no staff is active
+     */
+    public Long reserveStaff(Category category) {
+        if (!enabled) {
+            return null;
+        }
+        Long staffId;
+        lock.lock();
+        try {
+            TreeSet<Candidate> queue = queues.get(category != null ? category : Category.GENERAL);
+            if (queue.isEmpty()) {
+                return null;
+            }
+            staffId = queue.first().staffId();
+            adjust(staffId, 1, null);
+        } finally {
+            lock.unlock();
+        }
+
+        Long selected = staffId;
+        afterCompletion(null, () -> adjustLocked(selected, -1, null));
+        return selected;
+    }
+
+    /**
+     * Record a manual (re)assignment of an open ticket, applied after commit
+     * @param previousStaffId staff the ticket was assigned to before (may be null)
+     */
+    public void onAssigned(Long previousStaffId, Long staffId) {
+        afterCompletion(() -> {
+            if (previousStaffId != null) {
+                adjustLocked(previousStaffId, -1, null);
+            }
+            adjustLocked(staffId, 1, null);
+        }, null);
+    }
+
+    /**
+     * Record that an assigned ticket was resolved or closed, applied after commit
+     * The assignee's open count drops and the ticket counts towards their skill in its category.
+     */
+    public void onClosed(Long staffId, Category category) {
+        afterCompletion(() -> adjustLocked(staffId, -1, category), null);
+    }
+
+    /**
+     * Record that a resolved/closed ticket was re-opened, applied after commit
+     */
+    public void onReopened(Long staffId) {
+        afterCompletion(() -> adjustLocked(staffId, 1, null), null);
+    }
+
+    /**
+     * Add a staff member (new or re-activated) to the pool, or refresh their name
+     * Counts are loaded from the database only for a staff member not in the pool yet; the counts
+     * of one already in the pool are kept, as they include reservations not committed yet.
+     * @return true if the staff member was not in the pool before
+     */
+    public boolean registerStaff(User staff) {
+        if (refreshName(staff)) {
+            return false;
+        }
+
+        List<Object[]> ticketCounts = supportTicketRepository.countByCategoryAndStatusForStaff(staff.getId());
+        StaffState state = new StaffState(staff.getId(), staff.getFullName());
+        for (Object[] row : ticketCounts) {
+            state.count((Category) row[0], (TicketStatus) row[1], ((Number) row[2]).intValue());
+        }
+
+        lock.lock();
+        try {
+            if (staffById.putIfAbsent(staff.getId(), state) != null) {
+                // Registered concurrently; keep the state that may already carry reservations
+                return false;
+            }
+            reindex(state);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove a staff member (deactivated or deleted) from the pool
+     * @return true if the staff member was in the pool
+     */
+    public boolean removeStaff(Long staffId) {
+        lock.lock();
+        try {
+            StaffState state = staffById.remove(staffId);
+            if (state == null) {
+                return false;
+            }
+            unindex(state);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ===== Queue maintenance =====
+
+    /**
+     * Update the name of a staff member already in the pool (it breaks ties in the queues)
+     * @return false if the staff member is not in the pool
+     */
+    private boolean refreshName(User staff) {
+        lock.lock();
+        try {
+            StaffState state = staffById.get(staff.getId());
+            if (state == null) {
+                return false;
+            }
+            unindex(state);
+            state.fullName = staff.getFullName();
+            reindex(state);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustLocked(Long staffId, int openDelta, Category resolvedCategory) {
+        lock.lock();
+        try {
+            adjust(staffId, openDelta, resolvedCategory);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(Long staffId, int openDelta, Category resolvedCategory) {
+        StaffState state = staffById.get(staffId);
+        if (state == null) {
+            return; // Staff is not in the pool (e.g. inactive)
+        }
+        unindex(state);
+        state.open = Math.max(0, state.open + openDelta);
+        if (resolvedCategory != null) {
+            state.resolved.merge(resolvedCategory, 1, Integer::sum);
+        }
+        reindex(state);
+    }
+
+    private void unindex(StaffState state) {
+        state.entries.forEach((category, candidate) -> queues.get(category).remove(candidate));
+        state.entries.clear();
+    }
+
+    private void reindex(StaffState state) {
+        for (Category category : Category.values()) {
+            boolean skilled = state.resolved.getOrDefault(category, 0) >= skillThreshold;
+            Candidate candidate = new Candidate(state.staffId, state.fullName, state.open,
+                    skilled ? state.open - skillSlack : state.open);
+            queues.get(category).add(candidate);
+            state.entries.put(category, candidate);
+        }
+    }
+
+    /**
+     * Run onCommit after the current transaction commits (or immediately if there is none),
+     * and onRollback if it rolls back
+     */
+    private void afterCompletion(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (onCommit != null) {
+                onCommit.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Runnable action = status == STATUS_COMMITTED ? onCommit : onRollback;
+                if (action != null) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static final class StaffState {
+        private final Long staffId;
+        private String fullName;
+        private int open;
+        private final Map<Category, Integer> resolved = new EnumMap<>(Category.class);
+        // Current entry of this staff member in each category queue
+        private final Map<Category, Candidate> entries = new EnumMap<>(Category.class);
+
+        StaffState(Long staffId, String fullName) {
+            this.staffId = staffId;
+            this.fullName = fullName;
+        }
+
+        void count(Category category, TicketStatus status, int tickets) {
+            if (isOpen(status)) {
+                open += tickets;
+            } else {
+                resolved.merge(category, tickets, Integer::sum);
+            }
+        }
+    }
+
+    private record Candidate(Long staffId, String fullName, int open, int score) {
+    }
+}
@@ -19,8 +19,11 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class TrafficViolationService {
@@ -81,7 +84,9 @@ public class TrafficViolationService {
         violation.setEvidenceUrl(evidenceUrl);
         violation.setStatus(ViolationStatus.PENDING);
 
-        return violationRepository.save(violation);
+        TrafficViolation saved = violationRepository.save(violation);
+        depositHoldRepository.refreshTotalFines(holdId);
+        return saved;
     }
 
     /**
@@ -93,7 +98,9 @@ public class TrafficViolationService {
                 .orElseThrow(() -> new RuntimeException("Violation not found"));
         
         violation.setStatus(ViolationStatus.CONFIRMED);
-        return violationRepository.save(violation);
+        TrafficViolation saved = violationRepository.save(violation);
+        depositHoldRepository.refreshTotalFines(violation.getDepositHold().getId());
+        return saved;
     }
 
     /**
@@ -117,13 +124,27 @@ public class TrafficViolationService {
         }
 
         violationRepository.delete(violation);
+        depositHoldRepository.refreshTotalFines(violation.getDepositHold().getId());
     }
 
     /**
-     * Get total fines for a deposit hold
+     * Get violations of several deposit holds in one query, grouped by hold ID
+     */
+    public Map<Long, List<TrafficViolation>> getViolationsByDepositHolds(Collection<Long> holdIds) {
+        if (holdIds.isEmpty()) {
+            return Map.of();
+        }
+        return violationRepository.findByDepositHoldIdIn(holdIds).stream()
+                .collect(Collectors.groupingBy(v -> v.getDepositHold().getId()));
+    }
+
+    /**
+     * Get total fines for a deposit hold (cached on the hold, summed if not cached yet)
      */
     public BigDecimal getTotalFinesByHold(Long holdId) {
-        return violationRepository.sumFineAmountByDepositHoldId(holdId);
+        return depositHoldRepository.findById(holdId)
+                .map(DepositHold::getTotalFines)
+                .orElseGet(() -> violationRepository.sumFineAmountByDepositHoldId(holdId));
     }
 
     /**
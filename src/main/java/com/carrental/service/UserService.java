@@ -1,6 +1,7 @@
 package com.carrental.service;
 
 import com.carrental.model.User;
+import com.carrental.repository.BookingRepository;
 import com.carrental.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,6 +19,18 @@ public class UserService {
 
     @Autowired
     private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private StaffAssignmentEngine staffAssignmentEngine;
+
+    @Autowired
+    private TicketRoutingEngine ticketRoutingEngine;
+
+    @Autowired
+    private SupportService supportService;
     
     // Track last password reset time per email to prevent duplicate resets
     private final ConcurrentHashMap<String, Long> lastResetTime = new ConcurrentHashMap<>();
@@ -31,9 +44,7 @@ public class UserService {
      * Get all users except admins (for general user management list)
      */
     public List<User> getAllNonAdminUsers() {
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRole() != User.UserRole.ADMIN)
-                .toList();
+        return userRepository.findByRoleNot(User.UserRole.ADMIN);
     }
 
     /**
@@ -49,7 +60,9 @@ public class UserService {
 
     public User createUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        syncStaffPool(saved);
+        return saved;
     }
 
     public User updateUser(Long id, User userDetails) {
@@ -65,7 +78,9 @@ public class UserService {
     }
 
     public User updateUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        syncStaffPool(saved);
+        return saved;
     }
 
     public User findByEmail(String email) {
@@ -91,6 +106,11 @@ public class UserService {
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        staffAssignmentEngine.removeStaff(id);
+        if (ticketRoutingEngine.removeStaff(id)) {
+            // Their open tickets lost the assignee (ON DELETE SET NULL)
+            supportService.routeUnassignedTickets();
+        }
     }
 
     public boolean existsByEmail(String email) {
@@ -128,9 +148,7 @@ public class UserService {
      */
     public List<User> findAllStaff() {
         // Chỉ lấy nhân viên (STAFF), không bao gồm ADMIN
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRole() == User.UserRole.STAFF)
-                .toList();
+        return userRepository.findByRole(User.UserRole.STAFF);
     }
 
     /**
@@ -141,6 +159,27 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setStatus(status);
         userRepository.save(user);
+        syncStaffPool(user);
+    }
+
+    /**
+     * Keep the staff assignment and ticket routing pools in line with a user's role and status
+     * Support tickets are rebalanced when a staff member joins or leaves the pool: a newcomer
+     * takes unassigned tickets, and the open tickets of someone leaving are routed to others.
+     */
+    private void syncStaffPool(User user) {
+        if (user.getRole() == User.UserRole.STAFF && user.getStatus() == User.UserStatus.ACTIVE) {
+            long pendingCount = user.getId() != null ? bookingRepository.countPendingBookingsByStaffId(user.getId()) : 0;
+            staffAssignmentEngine.registerStaff(user, pendingCount);
+            if (ticketRoutingEngine.registerStaff(user)) {
+                supportService.routeUnassignedTickets();
+            }
+        } else if (user.getId() != null) {
+            staffAssignmentEngine.removeStaff(user.getId());
+            if (ticketRoutingEngine.removeStaff(user.getId())) {
+                supportService.reassignOpenTickets(user.getId());
+            }
+        }
     }
     
     /**
@@ -14,10 +14,14 @@ import com.carrental.model.Contract;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +42,8 @@ import java.util.stream.Collectors;
 @Service
 public class VehicleService {
 
+    private static final Logger log = LoggerFactory.getLogger(VehicleService.class);
+
     @Autowired
     private VehicleRepository vehicleRepository;
 
@@ -53,6 +59,9 @@ public class VehicleService {
     @Autowired
     private ContractRepository contractRepository;
 
+    @Autowired
+    private ReservationHoldService reservationHoldService;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Đường dẫn lưu ảnh - sử dụng thư mục ngoài classpath để tránh vấn đề với DevTools
@@ -372,6 +381,16 @@ public class VehicleService {
      * date range doesn't overlap with existing bookings/contracts
      */
     public boolean isVehicleAvailableForDateRange(Long vehicleId, LocalDateTime startDate, LocalDateTime endDate) {
+        return isVehicleAvailableForDateRange(vehicleId, startDate, endDate, null);
+    }
+
+    /**
+     * Check if vehicle is available for a specific date range on behalf of a customer
+     * Reservation holds placed by other customers also block the range;
+     * the customer's own hold is ignored so they can complete their booking.
+     */
+    public boolean isVehicleAvailableForDateRange(Long vehicleId, LocalDateTime startDate, LocalDateTime endDate,
+                                                  Long customerId) {
         System.out.println("=== VEHICLE AVAILABILITY CHECK ===");
         System.out.println("Vehicle ID: " + vehicleId);
         System.out.println("Requested Start Date: " + startDate);
@@ -391,6 +410,12 @@ public class VehicleService {
             return false;
         }
 
+        // Check in-memory reservation holds first (no query needed)
+        if (reservationHoldService.hasConflictingHold(vehicleId, startDate, endDate, customerId)) {
+            log.debug("Vehicle {} is held by another customer - NOT AVAILABLE", vehicleId);
+            return false;
+        }
+
         // Check for active bookings that overlap with the requested date range
         // This works for both Available and Rented vehicles
         long activeBookings = bookingRepository.countActiveBookingsForDateRange(vehicleId, startDate, endDate);
@@ -694,6 +719,16 @@ public class VehicleService {
         }
     }
 
+    /**
+     * Sync status for several vehicles (each one once), e.g. after a bulk approval
+     */
+    @Transactional
+    public void syncVehicleStatuses(Collection<Long> vehicleIds) {
+        for (Long vehicleId : new LinkedHashSet<>(vehicleIds)) {
+            syncVehicleStatus(vehicleId);
+        }
+    }
+
     /**
      * Check if license plate exists (for duplicate validation)
      */
@@ -0,0 +1,124 @@
+package com.carrental.service;
+
+import com.carrental.config.PaymentGatewayConfig;
+import com.carrental.config.VnPayRequestBuilder;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Client for the gateway transaction query API ("querydr" on payment.gateway.api.url)
+ * Thread-safe; one HTTP client is shared by all callers.
+ */
+@Service
+public class VnPayQueryClient {
+
+    @Autowired
+    private PaymentGatewayConfig gatewayConfig;
+
+    @Autowired
+    private VnPayRequestBuilder vnPayRequestBuilder;
+
+    @Value("${payment.reconcile.request-timeout-ms:10000}")
+    private long requestTimeoutMs;
+
+    @Value("${payment.reconcile.ip-address:127.0.0.1}")
+    private String ipAddress;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    /**
+     * Transaction status returned by the gateway
+     * responseCode is the status of the query itself (00 = found, 91 = transaction not found);
+     * transactionStatus is the status of the payment (00 = success, 01 = not completed, 02 = error).
+     */
+    public record QueryResult(String transactionRef, String responseCode, String transactionStatus,
+                              String transactionNo, String bankCode, String payDate, String amount,
+                              String secureHash) {
+
+        public boolean isFound() {
+            return "00".equals(responseCode);
+        }
+
+        public boolean isNotFound() {
+            return "91".equals(responseCode);
+        }
+
+        /**
+         * Whether the gateway amount (smallest unit, amount x 100) equals the expected payment amount
+         */
+        public boolean hasAmount(BigDecimal expected) {
+            if (amount == null || expected == null) {
+                return false;
+            }
+            try {
+                return new BigDecimal(amount).compareTo(expected.multiply(new BigDecimal("100"))) == 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Query the status of one transaction
+     * @param transactionDate vnp_CreateDate of the original payment request (yyyyMMddHHmmss)
+     * @throws IOException on network errors, unexpected HTTP status or an invalid response signature
+     */
+    public QueryResult query(String transactionRef, String transactionDate) throws IOException, InterruptedException {
+        LocalDateTime now = LocalDateTime.now(VnPayRequestBuilder.GATEWAY_ZONE);
+        String requestId = transactionRef + "_" + PaymentGatewayConfig.getRandomNumber(6);
+        Map<String, String> body = vnPayRequestBuilder.buildQueryRequest(requestId, transactionRef,
+                "Kiem tra giao dich " + transactionRef, transactionDate, ipAddress, now);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(gatewayConfig.getApiUrl()))
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Gateway query API returned HTTP " + response.statusCode());
+        }
+
+        Map<String, String> fields = objectMapper.readValue(response.body(), new TypeReference<Map<String, String>>() {});
+        String secureHash = fields.get("vnp_SecureHash");
+        if (secureHash == null || !secureHash.equalsIgnoreCase(gatewayConfig.sign(responseHashData(fields)))) {
+            throw new IOException("Invalid signature on gateway query response for " + transactionRef);
+        }
+
+        return new QueryResult(fields.get("vnp_TxnRef") != null ? fields.get("vnp_TxnRef") : transactionRef,
+                fields.get("vnp_ResponseCode"), fields.get("vnp_TransactionStatus"),
+                fields.get("vnp_TransactionNo"), fields.get("vnp_BankCode"), fields.get("vnp_PayDate"),
+                fields.get("vnp_Amount"), secureHash);
+    }
+
+    /**
+     * Signed fields of a query response, joined by '|' in the order defined by the gateway
+     */
+    public static String responseHashData(Map<String, String> fields) {
+        return Stream.of("vnp_ResponseId", "vnp_Command", "vnp_ResponseCode", "vnp_Message", "vnp_TmnCode",
+                        "vnp_TxnRef", "vnp_Amount", "vnp_BankCode", "vnp_PayDate", "vnp_TransactionNo",
+                        "vnp_TransactionType", "vnp_TransactionStatus", "vnp_OrderInfo", "vnp_PromotionCode",
+                        "vnp_PromotionAmount")
+                .map(name -> fields.getOrDefault(name, ""))
+                .map(value -> value != null ? value : "")
+                .collect(Collectors.joining("|"));
+    }
+}
@@ -0,0 +1,151 @@
+package com.carrental.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel for many long-lived timers (deposit holds maturing in days)
+ * Level 0 has wheelSize buckets of tickMillis each; every level above covers wheelSize times
+ * the span of the one below. A timer sits in the lowest level whose span reaches its deadline
+ * and cascades down as the time approaches, so scheduling, cancelling and advancing by one tick
+ * are O(1) however many timers are pending. Timers further away than the top level are parked
+ * in its last bucket and re-placed when that bucket comes round.
+ * Deadlines are rounded up to whole ticks, so a timer never fires early and at most one tick late.
+ * Not tied to a clock: the owner calls advance() with the current time. Thread-safe.
+ */
+public class HierarchicalTimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] levelTick;
+    private final List<Map<K, Long>[]> levels = new ArrayList<>();
+
+    // Where each pending key is, for O(1) cancel / reschedule
+    private final Map<K, Map<K, Long>> bucketOf = new HashMap<>();
+    // Keys whose deadline had already passed when scheduled; returned by the next advance()
+    private final Map<K, Long> overdue = new HashMap<>();
+
+    // Start of the current tick (ms, multiple of tickMillis)
+    private long currentTime;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levelTick = new long[levelCount];
+        long tick = tickMillis;
+        for (int i = 0; i < levelCount; i++) {
+            levelTick[i] = tick;
+            Map<K, Long>[] buckets = new Map[wheelSize];
+            for (int b = 0; b < wheelSize; b++) {
+                buckets[b] = new HashMap<>();
+            }
+            levels.add(buckets);
+            tick = Math.multiplyExact(tick, (long) wheelSize);
+        }
+        this.currentTime = Math.floorDiv(startMillis, tickMillis) * tickMillis;
+    }
+
+    /**
+     * Schedule (or reschedule) a key to fire at deadlineMillis
+     */
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        place(key, -Math.floorDiv(-deadlineMillis, tickMillis) * tickMillis);
+    }
+
+    /**
+     * Cancel a pending key
+     * @return true if the key was pending
+     */
+    public synchronized boolean cancel(K key) {
+        Map<K, Long> bucket = bucketOf.remove(key);
+        if (bucket != null) {
+            bucket.remove(key);
+            return true;
+        }
+        return overdue.remove(key) != null;
+    }
+
+    /**
+     * Move the wheel forward to nowMillis
+     * @return keys whose deadline is at or before nowMillis, in firing order
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> due = new ArrayList<>(overdue.keySet());
+        overdue.clear();
+
+        long target = Math.floorDiv(nowMillis, tickMillis) * tickMillis;
+        while (currentTime < target) {
+            currentTime += tickMillis;
+
+            // Cascade higher levels whose bucket starts now, top first
+            for (int level = levelTick.length - 1; level > 0; level--) {
+                if (currentTime % levelTick[level] == 0) {
+                    Map<K, Long> bucket = bucketAt(level, currentTime);
+                    if (!bucket.isEmpty()) {
+                        List<Map.Entry<K, Long>> entries = new ArrayList<>(bucket.entrySet());
+                        bucket.clear();
+                        for (Map.Entry<K, Long> entry : entries) {
+                            bucketOf.remove(entry.getKey());
+                            place(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+            }
+
+            Map<K, Long> bucket = bucketAt(0, currentTime);
+            if (!bucket.isEmpty()) {
+                due.addAll(bucket.keySet());
+                bucket.keySet().forEach(bucketOf::remove);
+                bucket.clear();
+            }
+            if (!overdue.isEmpty()) {
+                // Cascaded entries that landed on the current tick
+                due.addAll(overdue.keySet());
+                overdue.clear();
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Number of pending keys
+     */
+    public synchronized int size() {
+        return bucketOf.size() + overdue.size();
+    }
+
+    private void place(K key, long deadline) {
+        if (deadline <= currentTime) {
+            overdue.put(key, deadline);
+            return;
+        }
+        int top = levelTick.length - 1;
+        for (int level = 0; level <= top; level++) {
+            long tick = levelTick[level];
+            long levelStart = Math.floorDiv(currentTime, tick) * tick;
+            if (deadline < levelStart + tick * wheelSize) {
+                addToBucket(key, deadline, bucketAt(level, deadline));
+                return;
+            }
+        }
+        // Beyond the top level: park in its last bucket, placed again when that bucket cascades
+        long topStart = Math.floorDiv(currentTime, levelTick[top]) * levelTick[top];
+        addToBucket(key, deadline, bucketAt(top, topStart + levelTick[top] * (wheelSize - 1)));
+    }
+
+    private void addToBucket(K key, long deadline, Map<K, Long> bucket) {
+        bucket.put(key, deadline);
+        bucketOf.put(key, bucket);
+    }
+
+    private Map<K, Long> bucketAt(int level, long time) {
+        return levels.get(level)[(int) Math.floorMod(Math.floorDiv(time, levelTick[level]), (long) wheelSize)];
+    }
+}
@@ -0,0 +1,113 @@
+package com.carrental.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occupied-vehicle counts over fixed time buckets, by sweeping rental intervals
+ * Intervals are half-open [start, end) in minutes on any common scale. Per group, the rentals of
+ * each vehicle are merged first (a vehicle counts once however many contracts overlap), then the
+ * start/end events are sorted once and swept left to right, accumulating per bucket the occupied
+ * vehicle-minutes and the peak number of vehicles occupied at the same time. Work is
+ * O(n log n + buckets) per group, independent of how long each rental is.
+ */
+public final class OccupancySweep {
+
+    private OccupancySweep() {
+    }
+
+    /**
+     * One rental of a vehicle belonging to a group (e.g. location and category)
+     */
+    public record Interval<K>(K group, long vehicleId, long start, long end) {
+    }
+
+    /**
+     * Non-empty bucket: index from the sweep start, occupied vehicle-minutes and peak concurrent vehicles
+     */
+    public record Bucket(int index, long occupiedMinutes, int peak) {
+    }
+
+    /**
+     * Sweep [from, to) into buckets of bucketMinutes
+     * @return per group, the buckets with any occupancy in index order (empty buckets are omitted)
+     */
+    public static <K> Map<K, List<Bucket>> sweep(List<Interval<K>> intervals, long from, long to, long bucketMinutes) {
+        if (bucketMinutes <= 0 || to < from) {
+            throw new IllegalArgumentException("Invalid sweep range");
+        }
+        int bucketCount = (int) -Math.floorDiv(-(to - from), bucketMinutes);
+
+        Map<K, List<Interval<K>>> byGroup = new HashMap<>();
+        for (Interval<K> interval : intervals) {
+            long start = Math.max(interval.start(), from);
+            long end = Math.min(interval.end(), to);
+            if (start < end) {
+                byGroup.computeIfAbsent(interval.group(), k -> new ArrayList<>())
+                        .add(new Interval<>(interval.group(), interval.vehicleId(), start, end));
+            }
+        }
+
+        Map<K, List<Bucket>> result = new HashMap<>();
+        byGroup.forEach((group, groupIntervals) ->
+                result.put(group, sweepGroup(groupIntervals, from, bucketMinutes, bucketCount)));
+        return result;
+    }
+
+    private static <K> List<Bucket> sweepGroup(List<Interval<K>> intervals, long from, long bucketMinutes, int bucketCount) {
+        // Merge overlapping rentals of the same vehicle, then turn each into a start and an end event.
+        // Events are packed as (offset << 1 | isStart) so one primitive sort orders them by time.
+        intervals.sort(Comparator.comparingLong((Interval<K> i) -> i.vehicleId()).thenComparingLong(Interval::start));
+        long[] packed = new long[intervals.size() * 2];
+        int events = 0;
+        int i = 0;
+        while (i < intervals.size()) {
+            Interval<K> first = intervals.get(i);
+            long end = first.end();
+            i++;
+            while (i < intervals.size() && intervals.get(i).vehicleId() == first.vehicleId()
+                    && intervals.get(i).start() <= end) {
+                end = Math.max(end, intervals.get(i).end());
+                i++;
+            }
+            packed[events++] = ((first.start() - from) << 1) | 1;
+            packed[events++] = (end - from) << 1;
+        }
+        Arrays.sort(packed, 0, events);
+
+        long[] occupied = new long[bucketCount];
+        int[] peak = new int[bucketCount];
+        int count = 0;
+        long cursor = 0;
+        for (int e = 0; e < events; ) {
+            long time = packed[e] >> 1;
+            // Occupancy between the previous event and this one, split over the buckets it spans
+            while (cursor < time) {
+                int bucket = (int) (cursor / bucketMinutes);
+                long segmentEnd = Math.min(time, (bucket + 1) * bucketMinutes);
+                if (count > 0) {
+                    occupied[bucket] += count * (segmentEnd - cursor);
+                    peak[bucket] = Math.max(peak[bucket], count);
+                }
+                cursor = segmentEnd;
+            }
+            // Apply every event at this instant before counting the peak
+            while (e < events && packed[e] >> 1 == time) {
+                count += (packed[e] & 1) == 1 ? 1 : -1;
+                e++;
+            }
+        }
+
+        List<Bucket> buckets = new ArrayList<>();
+        for (int b = 0; b < bucketCount; b++) {
+            if (occupied[b] > 0) {
+                buckets.add(new Bucket(b, occupied[b], peak[b]));
+            }
+        }
+        return buckets;
+    }
+}
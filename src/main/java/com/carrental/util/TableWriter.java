@@ -0,0 +1,19 @@
+package com.carrental.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Row-by-row writer for report exports (CSV, XLSX)
+ * Rows are written to the underlying stream as they come, nothing is buffered per row set,
+ * so an export of any size runs in constant memory. close() finishes the document but leaves
+ * the underlying stream open.
+ * Cell values: Number is written as a number, null as an empty cell, anything else as text.
+ */
+public interface TableWriter extends Closeable {
+
+    void writeHeader(List<String> columns) throws IOException;
+
+    void writeRow(List<?> cells) throws IOException;
+}
@@ -0,0 +1,102 @@
+package com.carrental;
+
+import com.carrental.model.Contract;
+import com.carrental.model.User;
+import com.carrental.model.Vehicle;
+import com.carrental.model.VehicleBrand;
+import com.carrental.model.VehicleModel;
+import com.carrental.service.ContractPdfService;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark cho xuất PDF hợp đồng với font đã nạp sẵn (ContractPdfService)
+ * Kiểm tra tiếng Việt được nhúng đúng và đo thời gian xuất một hợp đồng
+ */
+public class ContractPdfBenchmarkTest {
+
+    private static final int WARMUP = 20;
+    private static final int ITERATIONS = 200;
+
+    private ContractPdfService contractPdfService;
+
+    @BeforeEach
+    public void setUp() {
+        long start = System.nanoTime();
+        contractPdfService = new ContractPdfService();
+        contractPdfService.init();
+        System.out.printf("Nạp font PDF: %.1f ms%n", (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    @Test
+    public void testVietnameseTextIsEmbedded() throws Exception {
+        byte[] pdf = contractPdfService.generateContractPdf(sampleContract());
+
+        PdfReader reader = new PdfReader(pdf);
+        String text = new PdfTextExtractor(reader).getTextFromPage(1);
+        reader.close();
+        assertTrue(text.contains("HỢP ĐỒNG THUÊ XE"), text);
+        assertTrue(text.contains("Nguyễn Văn Đức"), text);
+        assertTrue(new String(pdf, java.nio.charset.StandardCharsets.ISO_8859_1).contains("DejaVuSans"));
+    }
+
+    @Test
+    public void testContentKeyFollowsPrintedContent() {
+        Contract contract = sampleContract();
+        String key = contractPdfService.contentKey(contract);
+        assertEquals(key, contractPdfService.contentKey(sampleContract()));
+
+        contract.setStatus(Contract.ContractStatus.COMPLETED);
+        assertNotEquals(key, contractPdfService.contentKey(contract));
+    }
+
+    @Test
+    public void testExportLatency() throws Exception {
+        Contract contract = sampleContract();
+        for (int i = 0; i < WARMUP; i++) {
+            contractPdfService.generateContractPdf(contract);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            contractPdfService.generateContractPdf(contract);
+        }
+        double millis = (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        System.out.printf("Xuất PDF hợp đồng: %.2f ms/lần%n", millis);
+    }
+
+    private static Contract sampleContract() {
+        User customer = new User();
+        customer.setFullName("Nguyễn Văn Đức");
+        customer.setEmail("duc.nguyen@example.com");
+        customer.setPhone("0901234567");
+
+        VehicleBrand brand = new VehicleBrand();
+        brand.setBrandName("Toyota");
+        VehicleModel model = new VehicleModel();
+        model.setBrand(brand);
+        model.setModelName("Vios");
+        Vehicle vehicle = new Vehicle();
+        vehicle.setModel(model);
+        vehicle.setLicensePlate("30A-123.45");
+
+        Contract contract = new Contract();
+        contract.setContractNumber("HD-20250101-0000001");
+        contract.setStatus(Contract.ContractStatus.ACTIVE);
+        contract.setCustomer(customer);
+        contract.setVehicle(vehicle);
+        contract.setStartDate(LocalDateTime.of(2025, 1, 1, 9, 0));
+        contract.setEndDate(LocalDateTime.of(2025, 1, 5, 9, 0));
+        contract.setTotalDays(4);
+        contract.setDailyRate(new BigDecimal("800000"));
+        contract.setTotalRentalFee(new BigDecimal("3200000"));
+        contract.setDepositAmount(new BigDecimal("5000000"));
+        return contract;
+    }
+}
@@ -0,0 +1,207 @@
+package com.carrental;
+
+import com.carrental.model.Contract;
+import com.carrental.model.DepositHold;
+import com.carrental.model.User;
+import com.carrental.repository.ContractRepository;
+import com.carrental.repository.DepositHoldRepository;
+import com.carrental.repository.UserRepository;
+import com.carrental.service.ContractService;
+import com.carrental.service.DepositService;
+import com.carrental.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Benchmark tích hợp cho các truy vấn hợp đồng / tiền cọc / người dùng có chỉ mục
+ * So sánh với cách cũ (findAll() rồi lọc trong Java) và kiểm tra bằng Hibernate statistics
+ * rằng chỉ các dòng khớp điều kiện được tải từ database
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ContractQueryBenchmarkTest {
+
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private ContractService contractService;
+
+    @Autowired
+    private DepositService depositService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private DepositHoldRepository depositHoldRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    /**
+     * Hợp đồng theo khách hàng: chỉ tải hợp đồng của khách hàng đó
+     */
+    @Test
+    public void testContractsByCustomer() {
+        List<Contract> all = contractRepository.findAll();
+        assumeFalse(all.isEmpty(), "Không có hợp đồng trong database");
+        Long customerId = all.get(0).getCustomer().getId();
+
+        List<Contract> expected = all.stream()
+                .filter(c -> c.getCustomer().getId().equals(customerId))
+                .toList();
+
+        statistics.clear();
+        List<Contract> actual = contractService.getContractsByCustomer(customerId);
+        assertEquals(ids(expected), ids(actual));
+        assertEquals(actual.size(), loadCount(Contract.class), "Chỉ được tải hợp đồng của khách hàng");
+
+        benchmark("getContractsByCustomer",
+                () -> contractRepository.findAll().stream()
+                        .filter(c -> c.getCustomer().getId().equals(customerId))
+                        .toList(),
+                () -> contractService.getContractsByCustomer(customerId));
+    }
+
+    /**
+     * Hợp đồng theo trạng thái
+     */
+    @Test
+    public void testContractsByStatus() {
+        Contract.ContractStatus status = Contract.ContractStatus.ACTIVE;
+        List<Contract> expected = contractRepository.findAll().stream()
+                .filter(c -> c.getStatus() == status)
+                .toList();
+
+        statistics.clear();
+        List<Contract> actual = contractService.getContractsByStatus(status);
+        assertEquals(ids(expected), ids(actual));
+        assertEquals(actual.size(), loadCount(Contract.class), "Chỉ được tải hợp đồng có trạng thái ACTIVE");
+
+        benchmark("getContractsByStatus",
+                () -> contractRepository.findAll().stream()
+                        .filter(c -> c.getStatus() == status)
+                        .toList(),
+                () -> contractService.getContractsByStatus(status));
+    }
+
+    /**
+     * Hợp đồng theo nhân viên tạo và trạng thái
+     */
+    @Test
+    public void testContractsByStaffIdAndStatus() {
+        List<Contract> all = contractRepository.findAll();
+        assumeFalse(all.isEmpty(), "Không có hợp đồng trong database");
+        Long staffId = all.get(0).getStaff().getId();
+        Contract.ContractStatus status = all.get(0).getStatus();
+
+        List<Contract> expected = all.stream()
+                .filter(c -> c.getStaff().getId().equals(staffId) && c.getStatus() == status)
+                .toList();
+
+        statistics.clear();
+        List<Contract> actual = contractService.getContractsByStaffIdAndStatus(staffId, status);
+        assertEquals(ids(expected), ids(actual));
+        assertEquals(actual.size(), loadCount(Contract.class), "Chỉ được tải hợp đồng của nhân viên");
+
+        benchmark("getContractsByStaffIdAndStatus",
+                () -> contractRepository.findAll().stream()
+                        .filter(c -> c.getStaff().getId().equals(staffId) && c.getStatus() == status)
+                        .toList(),
+                () -> contractService.getContractsByStaffIdAndStatus(staffId, status));
+    }
+
+    /**
+     * Tiền cọc theo nhân viên được phân công đơn đặt
+     */
+    @Test
+    public void testDepositsByStaffId() {
+        List<DepositHold> all = depositHoldRepository.findAll();
+        Long staffId = all.stream()
+                .filter(d -> d.getContract().getBooking() != null
+                        && d.getContract().getBooking().getAssignedStaff() != null)
+                .map(d -> d.getContract().getBooking().getAssignedStaff().getId())
+                .findFirst()
+                .orElse(null);
+        assumeFalse(staffId == null, "Không có tiền cọc của đơn đã phân công");
+
+        List<DepositHold> expected = all.stream()
+                .filter(d -> d.getContract().getBooking() != null
+                        && d.getContract().getBooking().getAssignedStaff() != null
+                        && d.getContract().getBooking().getAssignedStaff().getId().equals(staffId))
+                .toList();
+
+        statistics.clear();
+        List<DepositHold> actual = depositService.getDepositsByStaffId(staffId);
+        assertEquals(expected.stream().map(DepositHold::getId).sorted().toList(),
+                actual.stream().map(DepositHold::getId).sorted().toList());
+        assertEquals(actual.size(), loadCount(DepositHold.class), "Chỉ được tải tiền cọc của nhân viên");
+    }
+
+    /**
+     * Người dùng không phải admin
+     */
+    @Test
+    public void testNonAdminUsers() {
+        List<User> expected = userRepository.findAll().stream()
+                .filter(u -> u.getRole() != User.UserRole.ADMIN)
+                .toList();
+
+        statistics.clear();
+        List<User> actual = userService.getAllNonAdminUsers();
+        assertEquals(expected.stream().map(User::getId).sorted().toList(),
+                actual.stream().map(User::getId).sorted().toList());
+        assertEquals(actual.size(), loadCount(User.class), "Không được tải tài khoản admin");
+    }
+
+    private void benchmark(String name, Supplier<List<?>> legacy, Supplier<List<?>> indexed) {
+        // Warm up
+        legacy.get();
+        indexed.get();
+
+        long legacyNanos = time(legacy);
+        long indexedNanos = time(indexed);
+        System.out.printf("%s: findAll()+filter %.2f ms/lần, truy vấn có chỉ mục %.2f ms/lần%n",
+                name, legacyNanos / 1_000_000.0 / ITERATIONS, indexedNanos / 1_000_000.0 / ITERATIONS);
+    }
+
+    private long time(Supplier<List<?>> action) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long loadCount(Class<?> entityClass) {
+        return statistics.getEntityStatistics(entityClass.getName()).getLoadCount();
+    }
+
+    private static List<Long> ids(List<Contract> contracts) {
+        return contracts.stream().map(Contract::getId).sorted().toList();
+    }
+}
@@ -0,0 +1,96 @@
+package com.carrental;
+
+import com.carrental.util.HierarchicalTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kiểm tra HierarchicalTimingWheel: mỗi timer chỉ kích hoạt một lần, không sớm hơn hạn
+ * và trễ tối đa một tick, kể cả khi phải chuyển xuống từ các tầng trên
+ */
+public class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000L;
+    private static final long START = 1_700_000_000_500L;
+
+    @Test
+    public void testTimersFireOnTimeAcrossLevels() {
+        // 8 buckets x 3 levels = 512 ticks before timers are parked
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, 8, 3, START);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int key = 0; key < 2000; key++) {
+            long deadline = START + (long) (random.nextDouble() * 2000 * TICK); // up to ~4x the wheel span
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+        assertEquals(2000, wheel.size());
+
+        Map<Integer, Long> firedAt = new HashMap<>();
+        for (long now = START; now <= START + 2002 * TICK; now += TICK / 2) {
+            for (Integer key : wheel.advance(now)) {
+                assertNull(firedAt.put(key, now), "Timer fired twice: " + key);
+            }
+        }
+
+        assertEquals(deadlines.keySet(), firedAt.keySet());
+        for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+            long fired = firedAt.get(entry.getKey());
+            assertTrue(fired >= entry.getValue(), "Timer fired early: " + entry.getKey());
+            assertTrue(fired - entry.getValue() < 2 * TICK, "Timer fired late: " + entry.getKey());
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testOverdueTimersFireOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 16, 2, START);
+        wheel.schedule("past", START - 60_000);
+
+        assertEquals(List.of("past"), wheel.advance(START));
+        assertTrue(wheel.advance(START + TICK).isEmpty());
+    }
+
+    @Test
+    public void testCancelAndReschedule() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 16, 2, START);
+        wheel.schedule("cancelled", START + 100 * TICK);
+        wheel.schedule("moved", START + 100 * TICK);
+        wheel.schedule("moved", START + 5 * TICK);
+
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+
+        List<String> fired = new ArrayList<>();
+        long movedFiredAt = -1;
+        for (long now = START; now <= START + 200 * TICK; now += TICK) {
+            List<String> due = wheel.advance(now);
+            if (due.contains("moved")) {
+                movedFiredAt = now;
+            }
+            fired.addAll(due);
+        }
+        assertEquals(List.of("moved"), fired);
+        assertTrue(movedFiredAt >= START + 5 * TICK && movedFiredAt < START + 7 * TICK);
+    }
+
+    @Test
+    public void testLargeTimeJump() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK, 64, 4, START);
+        for (int day = 1; day <= 14; day++) {
+            wheel.schedule(day, START + day * 86_400_000L);
+        }
+
+        // The process was suspended for a week
+        List<Integer> fired = wheel.advance(START + 7 * 86_400_000L + TICK);
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), fired);
+        assertEquals(7, wheel.size());
+    }
+}
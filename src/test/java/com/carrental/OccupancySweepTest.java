@@ -0,0 +1,91 @@
+package com.carrental;
+
+import com.carrental.util.OccupancySweep;
+import com.carrental.util.OccupancySweep.Bucket;
+import com.carrental.util.OccupancySweep.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kiểm tra OccupancySweep: số phút-xe và số xe thuê cùng lúc cao nhất theo từng khoảng,
+ * gộp hợp đồng chồng nhau của cùng một xe và so sánh với cách đếm từng phút
+ */
+public class OccupancySweepTest {
+
+    private static final long HOUR = 60;
+
+    @Test
+    public void testBucketsAndPeak() {
+        List<Interval<String>> intervals = List.of(
+                new Interval<>("HN", 1, 30, 150),      // 00:30 - 02:30
+                new Interval<>("HN", 2, 60, 120),      // 01:00 - 02:00
+                new Interval<>("HN", 3, 120, 180),     // starts as vehicle 2 returns
+                new Interval<>("HCM", 4, -500, 90));   // clipped to the sweep start
+
+        Map<String, List<Bucket>> result = OccupancySweep.sweep(intervals, 0, 4 * HOUR, HOUR);
+
+        assertEquals(List.of(
+                new Bucket(0, 30, 1),
+                new Bucket(1, 120, 2),
+                new Bucket(2, 90, 2)), result.get("HN"));
+        assertEquals(List.of(
+                new Bucket(0, 60, 1),
+                new Bucket(1, 30, 1)), result.get("HCM"));
+    }
+
+    @Test
+    public void testOverlappingContractsOfOneVehicleCountOnce() {
+        List<Interval<String>> intervals = List.of(
+                new Interval<>("HN", 7, 0, 90),
+                new Interval<>("HN", 7, 60, 120));
+
+        Map<String, List<Bucket>> result = OccupancySweep.sweep(intervals, 0, 2 * HOUR, HOUR);
+
+        assertEquals(List.of(new Bucket(0, 60, 1), new Bucket(1, 60, 1)), result.get("HN"));
+    }
+
+    @Test
+    public void testMatchesMinuteByMinuteCount() {
+        Random random = new Random(7);
+        long to = 10 * 24 * HOUR;
+        List<Interval<Integer>> intervals = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            long start = random.nextInt((int) to);
+            intervals.add(new Interval<>(i % 3, i % 40, start, start + 1 + random.nextInt((int) (3 * 24 * HOUR))));
+        }
+
+        Map<Integer, List<Bucket>> result = OccupancySweep.sweep(intervals, 0, to, HOUR);
+
+        for (int group = 0; group < 3; group++) {
+            long[] occupied = new long[(int) (to / HOUR)];
+            int[] peak = new int[occupied.length];
+            for (long minute = 0; minute < to; minute++) {
+                boolean[] rentedVehicles = new boolean[40];
+                for (Interval<Integer> interval : intervals) {
+                    if (interval.group() == group && interval.start() <= minute && minute < interval.end()) {
+                        rentedVehicles[(int) interval.vehicleId()] = true;
+                    }
+                }
+                int rented = 0;
+                for (boolean vehicleRented : rentedVehicles) {
+                    rented += vehicleRented ? 1 : 0;
+                }
+                occupied[(int) (minute / HOUR)] += rented;
+                peak[(int) (minute / HOUR)] = Math.max(peak[(int) (minute / HOUR)], rented);
+            }
+            for (Bucket bucket : result.get(group)) {
+                assertEquals(occupied[bucket.index()], bucket.occupiedMinutes(), "group " + group + " bucket " + bucket.index());
+                assertEquals(peak[bucket.index()], bucket.peak(), "group " + group + " bucket " + bucket.index());
+            }
+            long stored = result.get(group).stream().mapToLong(Bucket::occupiedMinutes).sum();
+            assertEquals(Arrays.stream(occupied).sum(), stored);
+        }
+    }
+}
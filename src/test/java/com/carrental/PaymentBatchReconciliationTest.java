@@ -0,0 +1,85 @@
+package com.carrental;
+
+import com.carrental.model.Contract;
+import com.carrental.model.Payment;
+import com.carrental.repository.ContractRepository;
+import com.carrental.repository.PaymentRepository;
+import com.carrental.service.PaymentCallbackService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Kiểm tra áp dụng nhiều kết quả VNPay trong một transaction (job đối soát)
+ * Cập nhật hợp đồng của kết quả trước không được mất khi xử lý kết quả sau.
+ * Chạy trong transaction của test và được rollback sau khi kiểm tra.
+ */
+@SpringBootTest
+@Transactional
+public class PaymentBatchReconciliationTest {
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * Hai kết quả cọc thành công trong một lần gọi: cả hai hợp đồng đều chuyển sang ACTIVE
+     */
+    @Test
+    public void testTwoDepositResultsActivateBothContracts() {
+        List<Contract> pendingContracts = contractRepository.findByStatus(Contract.ContractStatus.PENDING_PAYMENT);
+        assumeTrue(pendingContracts.size() >= 2, "Cần ít nhất hai hợp đồng PENDING_PAYMENT trong database");
+
+        Payment first = createPendingDepositPayment(pendingContracts.get(0));
+        Payment second = createPendingDepositPayment(pendingContracts.get(1));
+
+        List<PaymentCallbackService.CallbackResult> results = paymentCallbackService.processGatewayResults(List.of(
+                successResult(first, "14000011"),
+                successResult(second, "14000012")));
+
+        assertTrue(results.stream().allMatch(r -> r.outcome() == PaymentCallbackService.Outcome.APPLIED));
+
+        // Đọc lại từ database, không dùng bản trong persistence context
+        entityManager.flush();
+        entityManager.clear();
+        for (Payment payment : List.of(first, second)) {
+            assertEquals(Payment.PaymentStatus.COMPLETED,
+                    paymentRepository.findById(payment.getId()).orElseThrow().getStatus());
+            assertEquals(Contract.ContractStatus.ACTIVE,
+                    contractRepository.findById(payment.getContract().getId()).orElseThrow().getStatus(),
+                    "Hợp đồng " + payment.getContract().getId() + " phải được kích hoạt");
+        }
+    }
+
+    private Payment createPendingDepositPayment(Contract contract) {
+        Payment payment = new Payment();
+        payment.setContract(contract);
+        payment.setPaymentType(Payment.PaymentType.DEPOSIT);
+        payment.setPaymentMethod(Payment.PaymentMethod.ONLINE);
+        payment.setAmount(new BigDecimal("1000000"));
+        payment.setStatus(Payment.PaymentStatus.PENDING);
+        payment.setTransactionRef("TEST" + System.nanoTime());
+        return paymentRepository.saveAndFlush(payment);
+    }
+
+    private PaymentCallbackService.GatewayResult successResult(Payment payment, String transactionNo) {
+        return new PaymentCallbackService.GatewayResult(payment.getTransactionRef(), "00", "00", transactionNo,
+                "NCB", "ATM", "20250101120000", "hash");
+    }
+}
@@ -0,0 +1,172 @@
+package com.carrental;
+
+import com.carrental.config.PaymentGatewayConfig;
+import com.carrental.controller.PaymentCallbackController;
+import com.carrental.model.Contract;
+import com.carrental.model.Payment;
+import com.carrental.repository.ContractRepository;
+import com.carrental.repository.PaymentRepository;
+import com.carrental.service.LedgerService;
+import com.carrental.service.PaymentCallbackService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Kiểm tra xử lý callback VNPay khi cùng một callback (đã ký) được gửi lại đồng thời từ nhiều luồng
+ * Chỉ một lần được áp dụng; các lần còn lại là trùng lặp và không thay đổi gì thêm
+ * Test chạy trên database thật nên LedgerService được thay bằng mock: bút toán của payment giả
+ * không được ghi vào sổ cái (doanh thu trong báo cáo đọc từ sổ cái)
+ */
+@SpringBootTest
+public class PaymentCallbackConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PaymentCallbackController paymentCallbackController;
+
+    @Autowired
+    private PaymentCallbackService paymentCallbackService;
+
+    @Autowired
+    private PaymentGatewayConfig gatewayConfig;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private ContractRepository contractRepository;
+
+    @MockitoBean
+    private LedgerService ledgerService;
+
+    private Payment testPayment;
+
+    @AfterEach
+    public void cleanUp() {
+        if (testPayment != null) {
+            paymentRepository.deleteById(testPayment.getId());
+        }
+    }
+
+    /**
+     * Gọi service song song: đúng một lần APPLIED, còn lại DUPLICATE
+     */
+    @Test
+    public void testConcurrentServiceCallsApplyOnce() throws Exception {
+        testPayment = createPendingDepositPayment();
+        PaymentCallbackService.GatewayResult result = new PaymentCallbackService.GatewayResult(
+                testPayment.getTransactionRef(), "00", "00", "14000001", "NCB", "ATM", "20250101120000", "hash");
+
+        List<PaymentCallbackService.Outcome> outcomes =
+                runConcurrently(() -> paymentCallbackService.processGatewayResult(result).outcome());
+
+        assertEquals(1, outcomes.stream().filter(o -> o == PaymentCallbackService.Outcome.APPLIED).count(),
+                "Chỉ một callback được áp dụng");
+        assertEquals(THREADS - 1, outcomes.stream().filter(o -> o == PaymentCallbackService.Outcome.DUPLICATE).count());
+
+        Payment saved = paymentRepository.findById(testPayment.getId()).orElseThrow();
+        assertEquals(Payment.PaymentStatus.COMPLETED, saved.getStatus());
+        assertEquals("14000001", saved.getGatewayTransactionId());
+        verify(ledgerService, times(1)).recordPaymentCompleted(any());
+    }
+
+    /**
+     * Gửi lại cùng một callback đã ký qua controller từ nhiều luồng: mọi lần đều hiển thị thành công
+     */
+    @Test
+    public void testConcurrentSignedCallbackReplay() throws Exception {
+        testPayment = createPendingDepositPayment();
+
+        Map<String, String> params = new TreeMap<>();
+        params.put("vnp_TxnRef", testPayment.getTransactionRef());
+        params.put("vnp_Amount", testPayment.getAmount().multiply(new BigDecimal("100")).toBigInteger().toString());
+        params.put("vnp_OrderInfo", "Thanh toan coc hop dong");
+        params.put("vnp_ResponseCode", "00");
+        params.put("vnp_TransactionStatus", "00");
+        params.put("vnp_TransactionNo", "14000002");
+        params.put("vnp_BankCode", "NCB");
+        params.put("vnp_CardType", "ATM");
+        params.put("vnp_PayDate", "20250101120000");
+        String secureHash = PaymentGatewayConfig.hmacSHA512(gatewayConfig.getSecretKey(), gatewayConfig.buildHashData(params));
+
+        List<Object> pageStatuses = runConcurrently(() -> {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/payment/callback");
+            params.forEach(request::addParameter);
+            request.addParameter("vnp_SecureHash", secureHash);
+
+            ExtendedModelMap model = new ExtendedModelMap();
+            paymentCallbackController.handlePaymentCallback(request, model);
+            assertEquals(Boolean.TRUE, model.getAttribute("isValidSignature"));
+            return model.getAttribute("paymentStatus");
+        });
+
+        assertTrue(pageStatuses.stream().allMatch("success"::equals), "Mọi lần gửi lại đều hiển thị thành công");
+        Payment saved = paymentRepository.findById(testPayment.getId()).orElseThrow();
+        assertEquals(Payment.PaymentStatus.COMPLETED, saved.getStatus());
+        assertEquals("14000002", saved.getGatewayTransactionId());
+    }
+
+    /**
+     * Tạo payment cọc PENDING cho một hợp đồng đang ACTIVE
+     * (kích hoạt lại hợp đồng ACTIVE không thay đổi dữ liệu và không gửi thông báo)
+     */
+    private Payment createPendingDepositPayment() {
+        List<Contract> activeContracts = contractRepository.findByStatus(Contract.ContractStatus.ACTIVE);
+        assumeFalse(activeContracts.isEmpty(), "Không có hợp đồng ACTIVE trong database");
+
+        Payment payment = new Payment();
+        payment.setContract(activeContracts.get(0));
+        payment.setPaymentType(Payment.PaymentType.DEPOSIT);
+        payment.setPaymentMethod(Payment.PaymentMethod.ONLINE);
+        payment.setAmount(new BigDecimal("1000000"));
+        payment.setStatus(Payment.PaymentStatus.PENDING);
+        payment.setTransactionRef("TEST" + System.nanoTime());
+        return paymentRepository.save(payment);
+    }
+
+    private <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.carrental;
+
+import com.carrental.config.PaymentGatewayConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark cho việc ký URL thanh toán và xác thực callback VNPay
+ * So sánh với cách cũ (Mac.getInstance mỗi lần ký, sắp xếp HashMap và encode hai lần)
+ * và kiểm tra chữ ký mới giống hệt chữ ký cũ
+ */
+public class PaymentSignatureBenchmarkTest {
+
+    private static final String SECRET_KEY = "MDUIFDCRAKLNBPOFIAFNEKFRNMFBYEPX";
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private PaymentGatewayConfig gatewayConfig;
+
+    @BeforeEach
+    public void setUp() {
+        gatewayConfig = new PaymentGatewayConfig();
+        ReflectionTestUtils.setField(gatewayConfig, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(gatewayConfig, "gatewayUrl", "https://sandbox.vnpayment.vn/paymentv2/vpcpay.html");
+    }
+
+    /**
+     * URL thanh toán: cùng query string và chữ ký với cách cũ
+     */
+    @Test
+    public void testPaymentUrlGeneration() {
+        Map<String, String> params = paymentParams();
+        String legacyUrl = legacyPaymentUrl(params);
+        String url = gatewayConfig.signQuery(new TreeMap<>(params)).toUrl(gatewayConfig.getGatewayUrl());
+        assertEquals(legacyUrl, url);
+
+        benchmark("Tạo URL thanh toán",
+                () -> legacyPaymentUrl(params),
+                () -> gatewayConfig.signQuery(new TreeMap<>(params)).toUrl(gatewayConfig.getGatewayUrl()));
+    }
+
+    /**
+     * Xác thực callback: cùng chữ ký với cách cũ và khớp với chữ ký trong URL thanh toán
+     */
+    @Test
+    public void testCallbackVerification() {
+        Map<String, String> callback = callbackParams();
+        String expected = legacyHmacSHA512(SECRET_KEY, gatewayConfig.buildHashData(callback));
+        callback.put("vnp_SecureHash", expected);
+        callback.put("vnp_SecureHashType", "HmacSHA512");
+
+        assertEquals(expected, gatewayConfig.hashReceivedFields(callback));
+        assertEquals(expected, legacyVerify(callback));
+
+        benchmark("Xác thực callback",
+                () -> legacyVerify(callback),
+                () -> gatewayConfig.hashReceivedFields(callback));
+    }
+
+    /**
+     * Ký song song từ nhiều luồng (Mac dùng riêng theo luồng) cho kết quả ổn định
+     */
+    @Test
+    public void testConcurrentSigning() throws Exception {
+        Map<String, String> callback = callbackParams();
+        String expected = legacyHmacSHA512(SECRET_KEY, gatewayConfig.buildHashData(callback));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1_000; j++) {
+                        if (!expected.equals(gatewayConfig.hashReceivedFields(callback))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void benchmark(String name, Supplier<String> legacy, Supplier<String> current) {
+        long legacyNanos = time(legacy);
+        long currentNanos = time(current);
+        System.out.printf("%s: cách cũ %.2f µs/lần, cách mới %.2f µs/lần%n",
+                name, legacyNanos / 1_000.0 / ITERATIONS, currentNanos / 1_000.0 / ITERATIONS);
+    }
+
+    private long time(Supplier<String> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Map<String, String> paymentParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Version", "2.1.0");
+        params.put("vnp_Command", "pay");
+        params.put("vnp_TmnCode", "4YUP19I4");
+        params.put("vnp_Amount", "5000000000");
+        params.put("vnp_CurrCode", "VND");
+        params.put("vnp_TxnRef", "DEPOSIT42_12345678");
+        params.put("vnp_OrderInfo", "Thanh toan coc hop dong #42");
+        params.put("vnp_OrderType", "other");
+        params.put("vnp_Locale", "vn");
+        params.put("vnp_ReturnUrl", "http://localhost:8080/payment/callback");
+        params.put("vnp_IpAddr", "127.0.0.1");
+        params.put("vnp_CreateDate", "20250101120000");
+        params.put("vnp_ExpireDate", "20250101121500");
+        return params;
+    }
+
+    private static Map<String, String> callbackParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Amount", "5000000000");
+        params.put("vnp_BankCode", "NCB");
+        params.put("vnp_BankTranNo", "VNP14000001");
+        params.put("vnp_CardType", "ATM");
+        params.put("vnp_OrderInfo", "Thanh toan coc hop dong #42");
+        params.put("vnp_PayDate", "20250101120500");
+        params.put("vnp_ResponseCode", "00");
+        params.put("vnp_TmnCode", "4YUP19I4");
+        params.put("vnp_TransactionNo", "14000001");
+        params.put("vnp_TransactionStatus", "00");
+        params.put("vnp_TxnRef", "DEPOSIT42_12345678");
+        return params;
+    }
+
+    // ===== Cách cũ (giữ lại để so sánh) =====
+
+    private static String legacyPaymentUrl(Map<String, String> params) {
+        List<String> fieldNames = new ArrayList<>(params.keySet());
+        Collections.sort(fieldNames);
+        List<String> hashDataList = new ArrayList<>();
+        List<String> queryList = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            String fieldValue = params.get(fieldName);
+            if ((fieldValue != null) && (fieldValue.length() > 0)) {
+                hashDataList.add(fieldName + "=" + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8));
+                queryList.add(URLEncoder.encode(fieldName, StandardCharsets.UTF_8)
+                        + "=" + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8));
+            }
+        }
+        String secureHash = legacyHmacSHA512(SECRET_KEY, String.join("&", hashDataList));
+        return "https://sandbox.vnpayment.vn/paymentv2/vpcpay.html?" + String.join("&", queryList)
+                + "&vnp_SecureHash=" + secureHash;
+    }
+
+    private static String legacyVerify(Map<String, String> params) {
+        Map<String, String> fields = new HashMap<>();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            if (param.getValue() != null && param.getValue().length() > 0) {
+                fields.put(param.getKey(), URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+            }
+        }
+        fields.remove("vnp_SecureHashType");
+        fields.remove("vnp_SecureHash");
+
+        List<String> fieldNames = new ArrayList<>(fields.keySet());
+        Collections.sort(fieldNames);
+        List<String> hashDataList = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            hashDataList.add(fieldName + "=" + fields.get(fieldName));
+        }
+        return legacyHmacSHA512(SECRET_KEY, String.join("&", hashDataList));
+    }
+
+    private static String legacyHmacSHA512(String key, String data) {
+        try {
+            Mac hmac512 = Mac.getInstance("HmacSHA512");
+            hmac512.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA512"));
+            byte[] result = hmac512.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(2 * result.length);
+            for (byte b : result) {
+                sb.append(String.format("%02x", b & 0xff));
+            }
+            return sb.toString();
+        } catch (Exception ex) {
+            return "";
+        }
+    }
+}
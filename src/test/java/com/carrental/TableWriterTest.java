@@ -0,0 +1,76 @@
+package com.carrental;
+
+import com.carrental.util.CsvTableWriter;
+import com.carrental.util.TableWriter;
+import com.carrental.util.XlsxTableWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kiểm tra CsvTableWriter và XlsxTableWriter dùng cho xuất báo cáo
+ * Trích dẫn/escape ký tự đặc biệt, chặn công thức trong CSV và cấu trúc gói XLSX hợp lệ
+ */
+public class TableWriterTest {
+
+    @Test
+    public void testCsvQuotingAndFormulaGuard() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TableWriter writer = new CsvTableWriter(out)) {
+            writer.writeHeader(List.of("Khách hàng", "Ghi chú", "Số tiền"));
+            writer.writeRow(Arrays.asList("Nguyễn Văn Đức", "a, \"b\"", new BigDecimal("1E+6")));
+            writer.writeRow(Arrays.asList("=HYPERLINK(\"x\")", null, -5));
+        }
+
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertEquals("\uFEFFKhách hàng,Ghi chú,Số tiền\r\n"
+                + "Nguyễn Văn Đức,\"a, \"\"b\"\"\",1000000\r\n"
+                + "\"'=HYPERLINK(\"\"x\"\")\",,-5\r\n", csv);
+    }
+
+    @Test
+    public void testXlsxPackage() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TableWriter writer = new XlsxTableWriter(out, "payments")) {
+            writer.writeHeader(List.of("Mã", "Khách hàng", "Số tiền"));
+            for (int i = 1; i <= 1000; i++) {
+                writer.writeRow(Arrays.asList((long) i, "Trần <Thị> & Bình\u0001", new BigDecimal("150000.50")));
+            }
+        }
+
+        Map<String, byte[]> parts = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                parts.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        assertTrue(parts.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels",
+                "xl/workbook.xml", "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml")));
+
+        // Every part must be well-formed XML
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        for (byte[] part : parts.values()) {
+            factory.newDocumentBuilder().parse(new ByteArrayInputStream(part));
+        }
+
+        var sheet = factory.newDocumentBuilder().parse(new ByteArrayInputStream(parts.get("xl/worksheets/sheet1.xml")));
+        assertEquals(1001, sheet.getElementsByTagName("row").getLength());
+        String sheetXml = new String(parts.get("xl/worksheets/sheet1.xml"), StandardCharsets.UTF_8);
+        assertTrue(sheetXml.contains("Trần &lt;Thị&gt; &amp; Bình</t>"));
+        assertTrue(sheetXml.contains("<v>150000.50</v>"));
+    }
+}
@@ -0,0 +1,168 @@
+package com.carrental;
+
+import com.carrental.config.PaymentGatewayConfig;
+import com.carrental.config.VnPayRequestBuilder;
+import com.carrental.service.VnPayQueryClient;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Kiểm tra VnPayQueryClient với một cổng thanh toán giả chạy cục bộ (API querydr)
+ * Cổng giả kiểm tra chữ ký của yêu cầu và trả về phản hồi đã ký theo trạng thái đã cấu hình
+ */
+public class VnPayQueryClientTest {
+
+    private static final String SECRET_KEY = "MDUIFDCRAKLNBPOFIAFNEKFRNMFBYEPX";
+    private static final String MERCHANT_CODE = "4YUP19I4";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // transactionRef -> transaction status (missing = not found)
+    private final Map<String, String> transactionStatuses = new ConcurrentHashMap<>();
+    private final AtomicBoolean tamperResponses = new AtomicBoolean(false);
+
+    private HttpServer stubGateway;
+    private PaymentGatewayConfig gatewayConfig;
+    private VnPayQueryClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        stubGateway = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubGateway.createContext("/merchant_webapi/api/transaction", exchange -> {
+            Map<String, String> request = objectMapper.readValue(exchange.getRequestBody(),
+                    new TypeReference<Map<String, String>>() {});
+            byte[] body = objectMapper.writeValueAsBytes(respond(request));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stubGateway.start();
+
+        gatewayConfig = new PaymentGatewayConfig();
+        ReflectionTestUtils.setField(gatewayConfig, "merchantCode", MERCHANT_CODE);
+        ReflectionTestUtils.setField(gatewayConfig, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(gatewayConfig, "version", "2.1.0");
+        ReflectionTestUtils.setField(gatewayConfig, "gatewayUrl", "https://sandbox.vnpayment.vn/paymentv2/vpcpay.html");
+        ReflectionTestUtils.setField(gatewayConfig, "apiUrl",
+                "http://127.0.0.1:" + stubGateway.getAddress().getPort() + "/merchant_webapi/api/transaction");
+
+        client = new VnPayQueryClient();
+        ReflectionTestUtils.setField(client, "gatewayConfig", gatewayConfig);
+        ReflectionTestUtils.setField(client, "vnPayRequestBuilder", new VnPayRequestBuilder(gatewayConfig));
+        ReflectionTestUtils.setField(client, "requestTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(client, "ipAddress", "127.0.0.1");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stubGateway.stop(0);
+    }
+
+    @Test
+    public void testSuccessfulTransaction() throws Exception {
+        transactionStatuses.put("DEPOSIT1_12345678", "00");
+
+        VnPayQueryClient.QueryResult result = client.query("DEPOSIT1_12345678", "20250101120000");
+
+        assertTrue(result.isFound());
+        assertEquals("00", result.transactionStatus());
+        assertEquals("14000001", result.transactionNo());
+        assertEquals("NCB", result.bankCode());
+    }
+
+    @Test
+    public void testAmountComparedInSmallestUnit() throws Exception {
+        transactionStatuses.put("DEPOSIT6_12345678", "00");
+
+        VnPayQueryClient.QueryResult result = client.query("DEPOSIT6_12345678", "20250101120000");
+
+        assertTrue(result.hasAmount(new BigDecimal("50000000")));
+        assertTrue(result.hasAmount(new BigDecimal("50000000.00")));
+        assertFalse(result.hasAmount(new BigDecimal("5000000")));
+        assertFalse(result.hasAmount(null));
+    }
+
+    @Test
+    public void testPendingAndFailedTransactions() throws Exception {
+        transactionStatuses.put("DEPOSIT2_12345678", "01");
+        transactionStatuses.put("BILL3_12345678", "02");
+
+        assertEquals("01", client.query("DEPOSIT2_12345678", "20250101120000").transactionStatus());
+        assertEquals("02", client.query("BILL3_12345678", "20250101120000").transactionStatus());
+    }
+
+    @Test
+    public void testTransactionNotFound() throws Exception {
+        VnPayQueryClient.QueryResult result = client.query("DEPOSIT4_12345678", "20250101120000");
+
+        assertFalse(result.isFound());
+        assertTrue(result.isNotFound());
+    }
+
+    @Test
+    public void testTamperedResponseIsRejected() {
+        transactionStatuses.put("DEPOSIT5_12345678", "00");
+        tamperResponses.set(true);
+
+        assertThrows(IOException.class, () -> client.query("DEPOSIT5_12345678", "20250101120000"));
+    }
+
+    /**
+     * Stub querydr endpoint: verifies the request signature and answers with a signed response
+     */
+    private Map<String, String> respond(Map<String, String> request) {
+        Map<String, String> response = new HashMap<>();
+        response.put("vnp_ResponseId", "R" + System.nanoTime());
+        response.put("vnp_Command", "querydr");
+        response.put("vnp_TmnCode", MERCHANT_CODE);
+        response.put("vnp_TxnRef", request.get("vnp_TxnRef"));
+
+        String requestHashData = String.join("|", request.get("vnp_RequestId"), request.get("vnp_Version"),
+                request.get("vnp_Command"), request.get("vnp_TmnCode"), request.get("vnp_TxnRef"),
+                request.get("vnp_TransactionDate"), request.get("vnp_CreateDate"), request.get("vnp_IpAddr"),
+                request.get("vnp_OrderInfo"));
+        String status = transactionStatuses.get(request.get("vnp_TxnRef"));
+        if (!PaymentGatewayConfig.hmacSHA512(SECRET_KEY, requestHashData).equals(request.get("vnp_SecureHash"))) {
+            response.put("vnp_ResponseCode", "97");
+            response.put("vnp_Message", "Invalid Checksum");
+        } else if (status == null) {
+            response.put("vnp_ResponseCode", "91");
+            response.put("vnp_Message", "Transaction not found");
+        } else {
+            response.put("vnp_ResponseCode", "00");
+            response.put("vnp_Message", "QueryDR Success");
+            response.put("vnp_TransactionStatus", status);
+            response.put("vnp_Amount", "5000000000");
+            response.put("vnp_BankCode", "NCB");
+            response.put("vnp_PayDate", "20250101120500");
+            response.put("vnp_TransactionNo", "14000001");
+            response.put("vnp_TransactionType", "01");
+            response.put("vnp_OrderInfo", request.get("vnp_OrderInfo"));
+        }
+        response.put("vnp_SecureHash", PaymentGatewayConfig.hmacSHA512(SECRET_KEY, VnPayQueryClient.responseHashData(response)));
+
+        if (tamperResponses.get()) {
+            response.put("vnp_TransactionStatus", "02".equals(status) ? "00" : "02");
+        }
+        return response;
+    }
+}
@@ -0,0 +1,155 @@
+package com.carrental;
+
+import com.carrental.config.PaymentGatewayConfig;
+import com.carrental.config.VnPayRequestBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Benchmark cho VnPayRequestBuilder so với cách tạo URL thanh toán cũ
+ * (HashMap + sắp xếp, Calendar và SimpleDateFormat tạo mới mỗi lần)
+ */
+public class VnPayRequestBuilderBenchmarkTest {
+
+    private static final String SECRET_KEY = "MDUIFDCRAKLNBPOFIAFNEKFRNMFBYEPX";
+    private static final String GATEWAY_URL = "https://sandbox.vnpayment.vn/paymentv2/vpcpay.html";
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private static final VnPayRequestBuilder.PaymentRequest REQUEST = new VnPayRequestBuilder.PaymentRequest(
+            "DEPOSIT42_12345678", 5_000_000_000L, "Thanh toan coc hop dong #42", "other",
+            "http://localhost:8080/payment/callback", "127.0.0.1");
+
+    private PaymentGatewayConfig gatewayConfig;
+    private VnPayRequestBuilder builder;
+
+    @BeforeEach
+    public void setUp() {
+        gatewayConfig = new PaymentGatewayConfig();
+        ReflectionTestUtils.setField(gatewayConfig, "gatewayUrl", GATEWAY_URL);
+        ReflectionTestUtils.setField(gatewayConfig, "merchantCode", "4YUP19I4");
+        ReflectionTestUtils.setField(gatewayConfig, "secretKey", SECRET_KEY);
+        ReflectionTestUtils.setField(gatewayConfig, "version", "2.1.0");
+        builder = new VnPayRequestBuilder(gatewayConfig);
+    }
+
+    /**
+     * Cùng thời điểm tạo: URL giống hệt cách cũ, hạn thanh toán sau 15 phút
+     */
+    @Test
+    public void testSameUrlAsLegacy() {
+        LocalDateTime createDate = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        Date legacyDate = Date.from(createDate.atZone(TimeZone.getDefault().toZoneId()).toInstant());
+
+        String url = builder.buildPaymentUrl(REQUEST, createDate);
+        assertEquals(legacyPaymentUrl(legacyDate), url);
+        assertTrue(url.contains("vnp_CreateDate=20250101120000"));
+        assertTrue(url.contains("vnp_ExpireDate=20250101121500"));
+    }
+
+    /**
+     * Builder dùng chung giữa nhiều luồng
+     */
+    @Test
+    public void testConcurrentUse() throws Exception {
+        LocalDateTime createDate = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+        String expected = builder.buildPaymentUrl(REQUEST, createDate);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1_000; j++) {
+                        if (!expected.equals(builder.buildPaymentUrl(REQUEST, createDate))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void benchmarkPaymentUrl() {
+        benchmark("Tạo URL thanh toán",
+                () -> legacyPaymentUrl(new Date()),
+                () -> builder.buildPaymentUrl(REQUEST));
+    }
+
+    private void benchmark(String name, Supplier<String> legacy, Supplier<String> current) {
+        long legacyNanos = time(legacy);
+        long currentNanos = time(current);
+        System.out.printf("%s: cách cũ %.2f µs/lần, VnPayRequestBuilder %.2f µs/lần%n",
+                name, legacyNanos / 1_000.0 / ITERATIONS, currentNanos / 1_000.0 / ITERATIONS);
+    }
+
+    private long time(Supplier<String> action) {
+        for (int i = 0; i < WARMUP; i++) {
+            action.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // ===== Cách cũ (giữ lại để so sánh) =====
+
+    private String legacyPaymentUrl(Date now) {
+        Map<String, String> params = new HashMap<>();
+        params.put("vnp_Version", gatewayConfig.getVersion());
+        params.put("vnp_Command", "pay");
+        params.put("vnp_TmnCode", gatewayConfig.getMerchantCode());
+        params.put("vnp_Amount", String.valueOf(REQUEST.amount()));
+        params.put("vnp_CurrCode", "VND");
+        params.put("vnp_TxnRef", REQUEST.transactionRef());
+        params.put("vnp_OrderInfo", REQUEST.orderInfo());
+        params.put("vnp_OrderType", REQUEST.orderType());
+        params.put("vnp_Locale", "vn");
+        params.put("vnp_ReturnUrl", REQUEST.returnUrl());
+        params.put("vnp_IpAddr", REQUEST.ipAddress());
+
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("Etc/GMT+7"));
+        calendar.setTime(now);
+        SimpleDateFormat formatter = new SimpleDateFormat("yyyyMMddHHmmss");
+        params.put("vnp_CreateDate", formatter.format(calendar.getTime()));
+        calendar.add(Calendar.MINUTE, 15);
+        params.put("vnp_ExpireDate", formatter.format(calendar.getTime()));
+
+        List<String> fieldNames = new ArrayList<>(params.keySet());
+        Collections.sort(fieldNames);
+        List<String> hashDataList = new ArrayList<>();
+        List<String> queryList = new ArrayList<>();
+        for (String fieldName : fieldNames) {
+            String fieldValue = params.get(fieldName);
+            if ((fieldValue != null) && (fieldValue.length() > 0)) {
+                hashDataList.add(fieldName + "=" + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8));
+                queryList.add(URLEncoder.encode(fieldName, StandardCharsets.UTF_8)
+                        + "=" + URLEncoder.encode(fieldValue, StandardCharsets.UTF_8));
+            }
+        }
+        String secureHash = PaymentGatewayConfig.hmacSHA512(SECRET_KEY, String.join("&", hashDataList));
+        return GATEWAY_URL + "?" + String.join("&", queryList) + "&vnp_SecureHash=" + secureHash;
+    }
+}